@@ -1,9 +1,12 @@
 package io.maven.vectors.cli;
 
 import io.maven.vectors.*;
+import io.maven.vectors.embeddings.EmbeddingCache;
 import io.maven.vectors.embeddings.EmbeddingConfig;
 import io.maven.vectors.embeddings.EmbeddingModel;
 import io.maven.vectors.embeddings.ModelDownloader;
+import io.maven.vectors.parser.IncrementalIndexer;
+import io.maven.vectors.parser.IndexManifest;
 import io.maven.vectors.parser.JavaCodeChunker;
 import picocli.CommandLine;
 import picocli.CommandLine.*;
@@ -11,6 +14,7 @@ import picocli.CommandLine.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -75,6 +79,30 @@ public class VectorsCli implements Callable<Integer> {
         @Option(names = {"--hnsw"}, description = "Use HNSW index for fast approximate search (recommended for >10K chunks)")
         private boolean useHnsw;
         
+        @Option(names = {"--hnsw-m"}, description = "HNSW max connections per node", defaultValue = "16")
+        private int hnswM;
+        
+        @Option(names = {"--hnsw-ef-construction"}, description = "HNSW build-time search breadth", defaultValue = "200")
+        private int hnswEfConstruction;
+        
+        @Option(names = {"--hnsw-ef-search"}, description = "HNSW default query-time search breadth", defaultValue = "50")
+        private int hnswEfSearch;
+        
+        @Option(names = {"--quantization"}, description = "Vector quantization: none, int8", defaultValue = "none")
+        private String quantization;
+        
+        @Option(names = {"--rerank"}, description = "Keep full-precision vectors to re-rank quantized results")
+        private boolean rerank;
+        
+        @Option(names = {"--binary-codes"}, description = "Also store 1-bit sign codes for binary-mode search")
+        private boolean binaryCodes;
+        
+        @Option(names = {"--full"}, description = "Re-embed every file instead of only those changed since the last run")
+        private boolean full;
+        
+        @Option(names = {"--no-cache"}, description = "Do not reuse or store embeddings in the shared embedding cache")
+        private boolean noCache;
+        
         @Override
         public Integer call() throws Exception {
             String resolvedModel = resolveModel(model, provider);
@@ -82,48 +110,59 @@ public class VectorsCli implements Callable<Integer> {
             System.out.println("Using model: " + resolvedModel);
             System.out.println("Provider: " + provider);
             
-            // Parse source files
-            JavaCodeChunker chunker = new JavaCodeChunker();
-            List<CodeChunk> chunks = chunker.parseDirectory(projectPath);
-            
-            System.out.println("Found " + chunks.size() + " code chunks");
-            
-            if (chunks.isEmpty()) {
-                System.out.println("No code chunks to index");
-                return 1;
+            if (full) {
+                Files.deleteIfExists(IndexManifest.pathFor(outputPath));
             }
             
             // Configure embedding provider
             EmbeddingConfig config = createConfig(provider, apiKey);
-            try (EmbeddingModel embeddingModel = EmbeddingModel.load(resolvedModel, config)) {
+            EmbeddingModel loadedModel = EmbeddingModel.load(resolvedModel, config);
+            try (EmbeddingModel embeddingModel = noCache ? loadedModel : EmbeddingCache.open(loadedModel, config)) {
                 
-                IndexConfig indexConfig = IndexConfig.forModel(resolvedModel, embeddingModel.getDimensions());
+                IndexConfig indexConfig = IndexConfig.forModel(resolvedModel, embeddingModel.getDimensions())
+                    .withNormalized(config.normalizeOutput())
+                    .withQuantization(Quantization.fromName(quantization))
+                    .withRerank(rerank)
+                    .withBinaryCodes(binaryCodes)
+                    .withHnsw(hnswM, hnswEfConstruction, hnswEfSearch);
                 
                 // Create index (HNSW for large datasets, brute-force for small)
-                VectorIndex index;
-                if (useHnsw) {
-                    int maxItems = Math.max(chunks.size() * 2, 10_000);
-                    index = VectorIndex.createHnsw(indexConfig, maxItems);
-                    System.out.println("Using HNSW index (fast approximate search)");
-                } else {
-                    index = VectorIndex.create(indexConfig);
+                // when there is no previous one to update
+                IncrementalIndexer indexer = new IncrementalIndexer(new JavaCodeChunker(),
+                    indexConfig + ", hnsw=" + useHnsw + ", preprocessCode=" + config.preprocessCode());
+                IncrementalIndexer.Result result = indexer.index(List.of(projectPath), outputPath, () -> {
+                    if (useHnsw) {
+                        System.out.printf("Using HNSW index (fast approximate search, M=%d, efConstruction=%d)%n",
+                            hnswM, hnswEfConstruction);
+                        return VectorIndex.createHnsw(indexConfig, 10_000);
+                    }
                     System.out.println("Using brute-force index (exact search)");
-                }
-                
-                System.out.println("Generating embeddings...");
+                    return VectorIndex.create(indexConfig);
+                }, codes -> {
+                    System.out.println("Generating embeddings...");
+                    // Use batch embedding to minimize API calls (important for rate-limited APIs)
+                    return embeddingModel.embedBatch(codes);
+                });
+                VectorIndex index = result.index();
                 
-                // Use batch embedding to minimize API calls (important for rate-limited APIs)
-                List<String> codes = chunks.stream().map(CodeChunk::code).toList();
-                List<float[]> embeddings = embeddingModel.embedBatch(codes);
+                if (!result.rebuilt()) {
+                    System.out.printf("Re-indexed %d changed and %d deleted files (%d chunks reused)%n",
+                        result.changedFiles(), result.removedFiles(), result.reusedChunks());
+                }
+                System.out.println("Found " + index.size() + " code chunks");
                 
-                for (int i = 0; i < chunks.size(); i++) {
-                    index.add(chunks.get(i), embeddings.get(i));
+                if (index.isEmpty()) {
+                    System.out.println("No code chunks to index");
+                    return 1;
+                }
+                System.out.printf("Embedded %d chunks%n", result.embeddedChunks());
+                if (embeddingModel instanceof EmbeddingCache cache) {
+                    System.out.printf("Embedding cache: %d hits, %d computed%n", cache.hits(), cache.misses());
                 }
-                System.out.printf("Embedded %d chunks%n", chunks.size());
                 
-                // Save index
+                // Save index and manifest
                 Files.createDirectories(outputPath.getParent() != null ? outputPath.getParent() : Path.of("."));
-                index.save(outputPath);
+                result.save(outputPath);
                 
                 System.out.println("Saved index to: " + outputPath);
                 
@@ -165,13 +204,26 @@ public class VectorsCli implements Callable<Integer> {
         @Option(names = {"--show-code"}, description = "Show code snippets", defaultValue = "true")
         private boolean showCode;
         
+        @Option(names = {"--mode"}, description = "Search mode: default, binary", defaultValue = "default")
+        private String mode;
+        
+        @Option(names = {"--ef"}, description = "HNSW search breadth (0 = index default)", defaultValue = "0")
+        private int ef;
+        
+        @Option(names = {"--timeout-ms"}, description = "Per-query time budget for HNSW search (0 = none)", defaultValue = "0")
+        private long timeoutMs;
+        
+        @Option(names = {"-a", "--artifact"}, split = ",",
+                description = "Only search these dependencies: exact groupId:artifactId:version or groupId[:artifactId] globs, e.g. 'org.springframework.data*'")
+        private List<String> artifacts;
+        
         @Override
         public Integer call() throws Exception {
             String resolvedModel = resolveModel(model, provider);
             System.out.println("Searching for: " + query);
             System.out.println("Using model: " + resolvedModel + " (" + provider + ")");
             
-            VectorIndex index = VectorIndex.load(indexPath);
+            VectorIndex index = VectorIndex.loadMapped(indexPath);
             
             EmbeddingConfig config = createConfig(provider, apiKey);
             try (EmbeddingModel embeddingModel = EmbeddingModel.load(resolvedModel, config)) {
@@ -180,9 +232,18 @@ public class VectorsCli implements Callable<Integer> {
                     memIndex.setEmbeddingProvider(embeddingModel::embed);
                 } else if (index instanceof HnswVectorIndex hnswIndex) {
                     hnswIndex.setEmbeddingProvider(embeddingModel::embed);
+                } else if (index instanceof PqVectorIndex pqIndex) {
+                    pqIndex.setEmbeddingProvider(embeddingModel::embed);
                 }
                 
-                List<SearchResult> results = index.search(query, topK);
+                SearchOptions options = SearchOptions.defaults()
+                    .withMode(SearchMode.fromName(mode))
+                    .withEf(ef)
+                    .withTimeout(timeoutMs > 0 ? Duration.ofMillis(timeoutMs) : null)
+                    .withFilter(artifactScope());
+                List<SearchResult> results = options.equals(SearchOptions.defaults())
+                    ? index.search(query, topK)
+                    : index.search(embeddingModel.embed(query), topK, options);
                 
                 System.out.println();
                 System.out.println("Found " + results.size() + " results:");
@@ -198,6 +259,21 @@ public class VectorsCli implements Callable<Integer> {
             return 0;
         }
         
+        /**
+         * Returns a filter matching any of the --artifact patterns, or null if none.
+         */
+        private ChunkFilter artifactScope() {
+            if (artifacts == null) {
+                return null;
+            }
+            ChunkFilter scope = null;
+            for (String pattern : artifacts) {
+                ChunkFilter filter = ChunkFilter.fromArtifacts(pattern.trim());
+                scope = scope == null ? filter : scope.or(filter);
+            }
+            return scope;
+        }
+        
         private void printResult(int rank, SearchResult result, boolean showCode) {
             CodeChunk chunk = result.chunk();
 
@@ -239,9 +315,27 @@ public class VectorsCli implements Callable<Integer> {
         @Option(names = {"-o", "--output"}, description = "Output file", defaultValue = "merged-vectors.mvec")
         private Path outputPath;
 
-        @Option(names = {"--format"}, description = "Output format: inmemory, hnsw", defaultValue = "inmemory")
+        @Option(names = {"--format"}, description = "Output format: inmemory, hnsw, pq", defaultValue = "inmemory")
         private String format;
 
+        @Option(names = {"--quantization"}, description = "Vector quantization: none, int8", defaultValue = "none")
+        private String quantization;
+
+        @Option(names = {"--rerank"}, description = "Keep full-precision vectors to re-rank quantized results")
+        private boolean rerank;
+
+        @Option(names = {"--binary-codes"}, description = "Also store 1-bit sign codes for binary-mode search")
+        private boolean binaryCodes;
+
+        @Option(names = {"--hnsw-m"}, description = "HNSW max connections per node", defaultValue = "16")
+        private int hnswM;
+
+        @Option(names = {"--hnsw-ef-construction"}, description = "HNSW build-time search breadth", defaultValue = "200")
+        private int hnswEfConstruction;
+
+        @Option(names = {"--hnsw-ef-search"}, description = "HNSW default query-time search breadth", defaultValue = "50")
+        private int hnswEfSearch;
+
         @Override
         public Integer call() throws Exception {
             if (inputFiles == null || inputFiles.isEmpty()) {
@@ -253,12 +347,18 @@ public class VectorsCli implements Callable<Integer> {
 
             // Load first index to determine model/dimensions
             VectorIndex first = VectorIndex.load(inputFiles.get(0));
-            IndexMerger.OutputFormat outFormat = "hnsw".equalsIgnoreCase(format)
-                ? IndexMerger.OutputFormat.HNSW : IndexMerger.OutputFormat.IN_MEMORY;
+            IndexMerger.OutputFormat outFormat = switch (format.toLowerCase()) {
+                case "hnsw" -> IndexMerger.OutputFormat.HNSW;
+                case "pq" -> IndexMerger.OutputFormat.PQ;
+                default -> IndexMerger.OutputFormat.IN_MEMORY;
+            };
 
             IndexMerger merger = new IndexMerger(
                 first.getModelId(), first.getDimensions(), outFormat, 100_000
             );
+            merger.setQuantization(Quantization.fromName(quantization), rerank);
+            merger.setBinaryCodes(binaryCodes);
+            merger.setHnswParameters(hnswM, hnswEfConstruction, hnswEfSearch);
             merger.addIndex(first, inputFiles.get(0).getFileName().toString());
             System.out.println("  Loaded: " + inputFiles.get(0) + " (" + first.size() + " chunks)");
 
@@ -305,8 +405,7 @@ public class VectorsCli implements Callable<Integer> {
         
         @Override
         public Integer call() throws Exception {
-            VectorIndex index = VectorIndex.load(indexPath);
-            IndexStats stats = index.getStats();
+            IndexStats stats = VectorIndex.readStats(indexPath);
             
             System.out.println();
             System.out.println("Vector Index Statistics");
@@ -321,7 +420,6 @@ public class VectorsCli implements Callable<Integer> {
             stats.chunksByType().forEach((type, count) -> 
                 System.out.println("  " + type + ": " + count));
             
-            index.close();
             return 0;
         }
     }
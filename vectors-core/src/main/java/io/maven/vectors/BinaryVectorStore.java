@@ -0,0 +1,151 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Growable store of 1-bit sign codes, packed 64 dimensions per {@code long}.
+ *
+ * <p>Bit {@code i} of a code is set when dimension {@code i} is positive. The
+ * Hamming distance between two codes ({@code XOR} plus {@link Long#bitCount})
+ * tracks the angle between the original vectors, so it works as a cheap first
+ * pass before exact re-ranking. A 768-dimension vector packs into 12 longs,
+ * 1/32 of its float32 size.</p>
+ *
+ * <p>Not thread-safe for concurrent writes.</p>
+ */
+final class BinaryVectorStore {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // Largest array most JVMs will allocate
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int dimensions;
+    private final int words;
+    private long[] codes;
+    private int size;
+
+    BinaryVectorStore(int dimensions) {
+        this(dimensions, DEFAULT_CAPACITY);
+    }
+
+    BinaryVectorStore(int dimensions, int initialCapacity) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be > 0");
+        }
+        this.dimensions = dimensions;
+        this.words = wordsFor(dimensions);
+        this.codes = new long[Math.min(Math.max(initialCapacity, 1), maxVectors()) * words];
+    }
+
+    /**
+     * Number of longs needed to hold one code of the given dimensions.
+     */
+    static int wordsFor(int dimensions) {
+        return (dimensions + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Packs the signs of a vector into {@code codes[offset .. offset + wordsFor(vector.length))}.
+     */
+    static void encode(float[] vector, long[] codes, int offset) {
+        Arrays.fill(codes, offset, offset + wordsFor(vector.length), 0L);
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0) {
+                codes[offset + (i >>> 6)] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    /**
+     * Encodes and appends a vector, returning its ordinal.
+     */
+    int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(String.format(
+                "Vector dimension mismatch: expected %d, got %d", dimensions, vector.length
+            ));
+        }
+        ensureCapacity(size + 1);
+        encode(vector, codes, size * words);
+        return size++;
+    }
+
+    /**
+     * Appends an already-packed code from {@code source[offset .. offset + words())}.
+     */
+    int add(long[] source, int offset) {
+        ensureCapacity(size + 1);
+        System.arraycopy(source, offset, codes, size * words, words);
+        return size++;
+    }
+
+    /**
+     * Drops the codes at the given ordinals and moves the rest down, keeping
+     * their order.
+     */
+    void removeAll(OrdinalBitmap ordinals) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!ordinals.contains(i)) {
+                System.arraycopy(codes, i * words, codes, kept * words, words);
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Hamming distance between {@code query} and the code at the given ordinal.
+     */
+    int hamming(long[] query, int ordinal) {
+        int offset = ordinal * words;
+        int distance = 0;
+        for (int i = 0; i < words; i++) {
+            distance += Long.bitCount(query[i] ^ codes[offset + i]);
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the backing code array. Only the first {@code size() * words()}
+     * elements are meaningful, and the reference changes when the store grows.
+     */
+    long[] codes() {
+        return codes;
+    }
+
+    int words() {
+        return words;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes occupied by the stored codes.
+     */
+    long sizeBytes() {
+        return (long) size * words * Long.BYTES;
+    }
+
+    private void ensureCapacity(int vectors) {
+        if ((long) vectors * words <= codes.length) {
+            return;
+        }
+        int maxVectors = maxVectors();
+        if (vectors > maxVectors) {
+            throw new IllegalStateException(String.format(
+                "Vector store full: at most %d codes of %d dimensions fit in one array",
+                maxVectors, dimensions
+            ));
+        }
+        long grown = Math.max((long) (codes.length / words) * 2, vectors);
+        codes = Arrays.copyOf(codes, (int) Math.min(grown, maxVectors) * words);
+    }
+
+    private int maxVectors() {
+        return MAX_ARRAY_LENGTH / words;
+    }
+}
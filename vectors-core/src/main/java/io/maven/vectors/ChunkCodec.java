@@ -0,0 +1,134 @@
+package io.maven.vectors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary encoding of {@link CodeChunk} records in index files.
+ *
+ * <p>A record is the chunk's fields in declaration order: strings as a
+ * little-endian UTF-8 byte length (-1 for null) followed by the bytes, the
+ * type by name, line numbers as ints, then the metadata entry count and its
+ * keys and values. Records have no framing of their own; they are read back
+ * to back, or located through an offset table.</p>
+ */
+final class ChunkCodec {
+
+    private ChunkCodec() {
+    }
+
+    /**
+     * Returns the number of bytes {@link #encode} produces for a chunk.
+     */
+    static int encodedSize(CodeChunk chunk) {
+        int size = SectionWriter.stringSize(chunk.id())
+            + SectionWriter.stringSize(chunk.name())
+            + SectionWriter.stringSize(chunk.type().name())
+            + SectionWriter.stringSize(chunk.code())
+            + SectionWriter.stringSize(chunk.file())
+            + 2 * Integer.BYTES
+            + SectionWriter.stringSize(chunk.parentClass())
+            + Integer.BYTES;
+        for (Map.Entry<String, String> entry : chunk.metadata().entrySet()) {
+            size += SectionWriter.stringSize(entry.getKey()) + SectionWriter.stringSize(entry.getValue());
+        }
+        return size;
+    }
+
+    static byte[] encode(CodeChunk chunk) {
+        ByteBuffer out = ByteBuffer.allocate(encodedSize(chunk)).order(ByteOrder.LITTLE_ENDIAN);
+        putString(out, chunk.id());
+        putString(out, chunk.name());
+        putString(out, chunk.type().name());
+        putString(out, chunk.code());
+        putString(out, chunk.file());
+        out.putInt(chunk.lineStart());
+        out.putInt(chunk.lineEnd());
+        putString(out, chunk.parentClass());
+        out.putInt(chunk.metadata().size());
+        for (Map.Entry<String, String> entry : chunk.metadata().entrySet()) {
+            putString(out, entry.getKey());
+            putString(out, entry.getValue());
+        }
+        return out.array();
+    }
+
+    /**
+     * Decodes the record at the buffer's position and advances past it.
+     * The buffer must be little-endian.
+     */
+    static CodeChunk read(ByteBuffer in) {
+        String id = readString(in);
+        String name = readString(in);
+        ChunkType type = ChunkType.valueOf(readString(in));
+        String code = readString(in);
+        String file = readString(in);
+        int lineStart = in.getInt();
+        int lineEnd = in.getInt();
+        String parentClass = readString(in);
+        return new CodeChunk(id, name, type, code, file, lineStart, lineEnd, parentClass, readMetadata(in));
+    }
+
+    /**
+     * Like {@link #read}, but skips the name and code, which are left empty.
+     * The result carries every field indexes look chunks up by (id, type,
+     * file, parent class and metadata) at a fraction of the decoding cost.
+     */
+    static CodeChunk readKeys(ByteBuffer in) {
+        String id = readString(in);
+        skipString(in);
+        ChunkType type = ChunkType.valueOf(readString(in));
+        skipString(in);
+        String file = readString(in);
+        int lineStart = in.getInt();
+        int lineEnd = in.getInt();
+        String parentClass = readString(in);
+        return new CodeChunk(id, "", type, "", file, lineStart, lineEnd, parentClass, readMetadata(in));
+    }
+
+    private static Map<String, String> readMetadata(ByteBuffer in) {
+        int metadataCount = in.getInt();
+        Map<String, String> metadata = new HashMap<>(metadataCount * 2);
+        for (int i = 0; i < metadataCount; i++) {
+            metadata.put(readString(in), readString(in));
+        }
+        return metadata;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(in.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > 0) {
+            in.position(in.position() + length);
+        }
+    }
+}
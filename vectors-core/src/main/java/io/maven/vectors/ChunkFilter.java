@@ -0,0 +1,130 @@
+package io.maven.vectors;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Restricts which chunks a search may return.
+ *
+ * <p>Filters only gate the result set: an HNSW index still walks through
+ * non-matching nodes to reach matching ones, so a selective filter returns a
+ * full top-K instead of the few matches that happen to be near the query.</p>
+ *
+ * <p>Type, artifact, class and file conditions, and {@code and}/{@code or}/{@code negate}
+ * expressions over them, are answered from per-value bitmaps that indexes build as
+ * chunks are added: brute-force indexes score only the matching ordinals, and HNSW
+ * uses the bitmap as its allow-list. Other filters, such as lambdas or
+ * {@link #metadata} on keys other than {@code maven.artifact}, are tested chunk by chunk.</p>
+ *
+ * <pre>{@code
+ * ChunkFilter filter = ChunkFilter.ofType(ChunkType.RECORD)
+ *     .and(ChunkFilter.inArtifact("org.springframework:spring-core:6.1.0"));
+ * index.search(query, 10, SearchOptions.defaults().withFilter(filter));
+ * }</pre>
+ */
+@FunctionalInterface
+public interface ChunkFilter {
+
+    /**
+     * Returns true if the chunk may appear in the results.
+     */
+    boolean test(CodeChunk chunk);
+
+    /**
+     * Matches chunks of the given type.
+     */
+    static ChunkFilter ofType(ChunkType type) {
+        Objects.requireNonNull(type, "type cannot be null");
+        return new ChunkFilters.Equals(ChunkFilters.Field.TYPE, type.name());
+    }
+
+    /**
+     * Matches chunks stamped with the given {@code maven.artifact} coordinates.
+     */
+    static ChunkFilter inArtifact(String artifactCoords) {
+        Objects.requireNonNull(artifactCoords, "artifactCoords cannot be null");
+        return new ChunkFilters.Equals(ChunkFilters.Field.ARTIFACT, artifactCoords);
+    }
+
+    /**
+     * Matches chunks from the artifacts selected by a Maven coordinate pattern:
+     * an exact {@code groupId:artifactId:version}, or a glob over
+     * {@code groupId[:artifactId[:version]]} where {@code *} matches any run of
+     * characters and {@code ?} one character. Omitted trailing parts match anything,
+     * so {@code org.springframework.data*} selects every Spring Data artifact and
+     * {@code com.fasterxml.jackson.core:jackson-databind} every version of one.
+     */
+    static ChunkFilter fromArtifacts(String pattern) {
+        Objects.requireNonNull(pattern, "pattern cannot be null");
+        if (pattern.isBlank()) {
+            throw new IllegalArgumentException("Artifact pattern cannot be blank");
+        }
+        if (pattern.split(":", -1).length == 3 && pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+            return inArtifact(pattern);
+        }
+        return new ChunkFilters.Matches(ChunkFilters.Field.ARTIFACT, ChunkFilters.coordinatePattern(pattern));
+    }
+
+    /**
+     * Matches chunks declared in the given class.
+     */
+    static ChunkFilter inClass(String parentClass) {
+        Objects.requireNonNull(parentClass, "parentClass cannot be null");
+        return new ChunkFilters.Equals(ChunkFilters.Field.PARENT_CLASS, parentClass);
+    }
+
+    /**
+     * Matches chunks from exactly the given file path.
+     */
+    static ChunkFilter inFile(String file) {
+        Objects.requireNonNull(file, "file cannot be null");
+        return new ChunkFilters.Equals(ChunkFilters.Field.FILE, file);
+    }
+
+    /**
+     * Matches chunks from any of the given file paths.
+     */
+    static ChunkFilter inFiles(Collection<String> files) {
+        Set<String> paths = Set.copyOf(files);
+        return new ChunkFilters.Matches(ChunkFilters.Field.FILE, paths::contains);
+    }
+
+    /**
+     * Matches chunks whose file path starts with the given prefix.
+     */
+    static ChunkFilter fileStartsWith(String prefix) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        return new ChunkFilters.Matches(ChunkFilters.Field.FILE, file -> file.startsWith(prefix));
+    }
+
+    /**
+     * Matches chunks whose metadata value for {@code key} is present and satisfies {@code condition}.
+     */
+    static ChunkFilter metadata(String key, Predicate<String> condition) {
+        Objects.requireNonNull(key, "key cannot be null");
+        Objects.requireNonNull(condition, "condition cannot be null");
+        if (key.equals("maven.artifact")) {
+            return new ChunkFilters.Matches(ChunkFilters.Field.ARTIFACT, condition);
+        }
+        return chunk -> {
+            String value = chunk.metadata().get(key);
+            return value != null && condition.test(value);
+        };
+    }
+
+    default ChunkFilter and(ChunkFilter other) {
+        Objects.requireNonNull(other, "other cannot be null");
+        return new ChunkFilters.And(this, other);
+    }
+
+    default ChunkFilter or(ChunkFilter other) {
+        Objects.requireNonNull(other, "other cannot be null");
+        return new ChunkFilters.Or(this, other);
+    }
+
+    default ChunkFilter negate() {
+        return new ChunkFilters.Not(this);
+    }
+}
@@ -0,0 +1,127 @@
+package io.maven.vectors;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Structured {@link ChunkFilter} implementations.
+ *
+ * <p>Filters built from these records can be answered from an index's
+ * {@link MetadataBitmaps} instead of testing every chunk; any other
+ * {@code ChunkFilter} is evaluated chunk by chunk.</p>
+ */
+final class ChunkFilters {
+
+    private ChunkFilters() {
+    }
+
+    /**
+     * Compiles a {@code groupId[:artifactId[:version]]} glob into a predicate over
+     * artifact coordinates; see {@link ChunkFilter#fromArtifacts(String)}.
+     */
+    static Predicate<String> coordinatePattern(String pattern) {
+        String[] parts = pattern.split(":", -1);
+        Pattern[] globs = new Pattern[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            globs[i] = glob(parts[i]);
+        }
+        return coords -> {
+            String[] values = coords.split(":", -1);
+            if (values.length < globs.length) {
+                return false;
+            }
+            for (int i = 0; i < globs.length; i++) {
+                if (!globs[i].matcher(values[i]).matches()) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Chunk fields that indexes keep a bitmap per distinct value for.
+     */
+    enum Field {
+        TYPE(chunk -> chunk.type().name()),
+        ARTIFACT(CodeChunk::getArtifact),
+        PARENT_CLASS(CodeChunk::parentClass),
+        FILE(CodeChunk::file);
+
+        private final Function<CodeChunk, String> accessor;
+
+        Field(Function<CodeChunk, String> accessor) {
+            this.accessor = accessor;
+        }
+
+        /**
+         * Returns the field value of a chunk, or null if it has none.
+         */
+        String valueOf(CodeChunk chunk) {
+            return accessor.apply(chunk);
+        }
+    }
+
+    /**
+     * Matches chunks whose field equals {@code value}.
+     */
+    record Equals(Field field, String value) implements ChunkFilter {
+        @Override
+        public boolean test(CodeChunk chunk) {
+            return value.equals(field.valueOf(chunk));
+        }
+    }
+
+    /**
+     * Matches chunks whose field is present and satisfies {@code condition}.
+     */
+    record Matches(Field field, Predicate<String> condition) implements ChunkFilter {
+        @Override
+        public boolean test(CodeChunk chunk) {
+            String value = field.valueOf(chunk);
+            return value != null && condition.test(value);
+        }
+    }
+
+    record And(ChunkFilter left, ChunkFilter right) implements ChunkFilter {
+        @Override
+        public boolean test(CodeChunk chunk) {
+            return left.test(chunk) && right.test(chunk);
+        }
+    }
+
+    record Or(ChunkFilter left, ChunkFilter right) implements ChunkFilter {
+        @Override
+        public boolean test(CodeChunk chunk) {
+            return left.test(chunk) || right.test(chunk);
+        }
+    }
+
+    record Not(ChunkFilter filter) implements ChunkFilter {
+        @Override
+        public boolean test(CodeChunk chunk) {
+            return !filter.test(chunk);
+        }
+    }
+}
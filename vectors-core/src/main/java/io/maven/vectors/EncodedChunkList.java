@@ -0,0 +1,152 @@
+package io.maven.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Chunk list over {@link ChunkCodec} records as loaded from an index file.
+ *
+ * <p>Records stay encoded, in a heap buffer or a memory-mapped section, and a
+ * chunk is decoded each time it is read; only an offset per record is kept in
+ * addition. Search results need a handful of chunks, so an index no longer
+ * pays to decode every chunk's source code on load. Chunks added after
+ * loading are kept as objects.</p>
+ *
+ * <p>Offsets are ints, as are buffer positions, so the records of one list
+ * must total less than 2 GB.</p>
+ *
+ * <p>Reads may run concurrently with each other, but not with adds.</p>
+ */
+final class EncodedChunkList extends AbstractList<CodeChunk> implements RandomAccess {
+
+    private final ByteBuffer records;
+    private final int[] offsets;
+    private final List<CodeChunk> appended = new ArrayList<>();
+
+    private EncodedChunkList(ByteBuffer records, int[] offsets) {
+        this.records = records;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Wraps the records written back to back from the buffer's position, as
+     * located by a stored offset table: {@code count + 1} offsets from the
+     * first record, the last being where the records end.
+     *
+     * @throws IOException if the offsets do not fit the records
+     */
+    static EncodedChunkList of(ByteBuffer records, long[] recordOffsets) throws IOException {
+        int base = records.position();
+        int count = recordOffsets.length - 1;
+        if (count < 0 || recordOffsets[0] != 0 || recordOffsets[count] != records.remaining()) {
+            throw new IOException("Corrupt chunk offsets: " + Math.max(count, 0) + " records do not span "
+                + records.remaining() + " bytes");
+        }
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (recordOffsets[i + 1] <= recordOffsets[i]) {
+                throw new IOException("Corrupt chunk offsets: record " + i + " is empty or out of order");
+            }
+            offsets[i] = base + (int) recordOffsets[i];
+        }
+        return new EncodedChunkList(records, offsets);
+    }
+
+    @Override
+    public CodeChunk get(int index) {
+        if (index >= offsets.length) {
+            return appended.get(index - offsets.length);
+        }
+        return ChunkCodec.read(recordAt(index));
+    }
+
+    /**
+     * Returns the chunk's lookup fields only, see {@link ChunkCodec#readKeys}.
+     */
+    CodeChunk keys(int index) {
+        if (index >= offsets.length) {
+            return appended.get(index - offsets.length);
+        }
+        return ChunkCodec.readKeys(recordAt(index));
+    }
+
+    @Override
+    public int size() {
+        return offsets.length + appended.size();
+    }
+
+    @Override
+    public boolean add(CodeChunk chunk) {
+        modCount++;
+        return appended.add(chunk);
+    }
+
+    /**
+     * Returns the chunks not at the given ordinals, in order. Records of an
+     * encoded list stay encoded and share its buffer.
+     */
+    static List<CodeChunk> removeAll(List<CodeChunk> chunks, OrdinalBitmap ordinals) {
+        if (chunks instanceof EncodedChunkList encoded) {
+            int[] offsets = new int[encoded.offsets.length];
+            int kept = 0;
+            for (int i = 0; i < encoded.offsets.length; i++) {
+                if (!ordinals.contains(i)) {
+                    offsets[kept++] = encoded.offsets[i];
+                }
+            }
+            EncodedChunkList result = new EncodedChunkList(encoded.records, Arrays.copyOf(offsets, kept));
+            for (int i = 0; i < encoded.appended.size(); i++) {
+                if (!ordinals.contains(encoded.offsets.length + i)) {
+                    result.appended.add(encoded.appended.get(i));
+                }
+            }
+            return result;
+        }
+        List<CodeChunk> result = new ArrayList<>(chunks.size() - ordinals.cardinality());
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!ordinals.contains(i)) {
+                result.add(chunks.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lookup fields of the chunk at {@code index}: decoded only
+     * that far for an encoded list, see {@link #keys(int)}.
+     */
+    static CodeChunk keys(List<CodeChunk> chunks, int index) {
+        return chunks instanceof EncodedChunkList encoded ? encoded.keys(index) : chunks.get(index);
+    }
+
+    /**
+     * Estimates the heap bytes a chunk list holds: offsets and unmapped record
+     * bytes for an encoded list, a per-chunk estimate for decoded chunks.
+     */
+    static long estimateSizeBytes(List<CodeChunk> chunks) {
+        if (chunks instanceof EncodedChunkList encoded) {
+            long bytes = (long) encoded.offsets.length * Integer.BYTES + estimateDecoded(encoded.appended);
+            return encoded.records.isDirect() ? bytes : bytes + encoded.records.capacity();
+        }
+        return estimateDecoded(chunks);
+    }
+
+    private static long estimateDecoded(List<CodeChunk> chunks) {
+        return chunks.stream()
+            .mapToLong(c -> c.code().length() + c.name().length() + c.file().length() + 100)
+            .sum();
+    }
+
+    private ByteBuffer recordAt(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return records.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(offsets[index]);
+    }
+}
@@ -0,0 +1,133 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Growable store that packs fixed-width float vectors into one contiguous array.
+ *
+ * <p>Vectors are laid out row-major: vector {@code i} occupies
+ * {@code data[i * dimensions .. (i + 1) * dimensions)}. Brute-force scans walk
+ * the backing array sequentially instead of following one reference per vector,
+ * and no per-vector array header is paid.</p>
+ *
+ * <p>Not thread-safe for concurrent writes.</p>
+ */
+final class FlatVectorStore {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // Largest array most JVMs will allocate
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int dimensions;
+    private float[] data;
+    private int size;
+
+    FlatVectorStore(int dimensions) {
+        this(dimensions, DEFAULT_CAPACITY);
+    }
+
+    FlatVectorStore(int dimensions, int initialCapacity) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be > 0");
+        }
+        this.dimensions = dimensions;
+        this.data = new float[Math.min(Math.max(initialCapacity, 1), maxVectors()) * dimensions];
+    }
+
+    /**
+     * Appends a vector and returns its ordinal.
+     */
+    int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(String.format(
+                "Vector dimension mismatch: expected %d, got %d", dimensions, vector.length
+            ));
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(vector, 0, data, size * dimensions, dimensions);
+        return size++;
+    }
+
+    /**
+     * Drops the vectors at the given ordinals and moves the rest down, keeping
+     * their order: vector {@code i} takes the ordinal of its rank among those kept.
+     */
+    void removeAll(OrdinalBitmap ordinals) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!ordinals.contains(i)) {
+                System.arraycopy(data, i * dimensions, data, kept * dimensions, dimensions);
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Returns a copy of the vector at the given ordinal.
+     */
+    float[] get(int ordinal) {
+        checkOrdinal(ordinal);
+        int offset = ordinal * dimensions;
+        return Arrays.copyOfRange(data, offset, offset + dimensions);
+    }
+
+    /**
+     * Returns the start of the vector in {@link #data()}.
+     */
+    int offset(int ordinal) {
+        return ordinal * dimensions;
+    }
+
+    /**
+     * Returns the backing array. Only the first {@code size() * dimensions()}
+     * elements are meaningful, and the reference changes when the store grows.
+     */
+    float[] data() {
+        return data;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the number of bytes occupied by the stored vectors.
+     */
+    long sizeBytes() {
+        return (long) size * dimensions * Float.BYTES;
+    }
+
+    /**
+     * Grows the backing array to hold at least {@code vectors} vectors.
+     */
+    void ensureCapacity(int vectors) {
+        if ((long) vectors * dimensions <= data.length) {
+            return;
+        }
+        int maxVectors = maxVectors();
+        if (vectors > maxVectors) {
+            throw new IllegalStateException(String.format(
+                "Vector store full: at most %d vectors of %d dimensions fit in one array",
+                maxVectors, dimensions
+            ));
+        }
+        long grown = Math.max((long) (data.length / dimensions) * 2, vectors);
+        data = Arrays.copyOf(data, (int) Math.min(grown, maxVectors) * dimensions);
+    }
+
+    private int maxVectors() {
+        return MAX_ARRAY_LENGTH / dimensions;
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("ordinal " + ordinal + " out of range [0, " + size + ")");
+        }
+    }
+}
@@ -0,0 +1,1098 @@
+package io.maven.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Hierarchical Navigable Small World graph over primitive arrays.
+ *
+ * <p>Nodes are dense {@code int} ids in insertion order, so a node id is also the
+ * chunk ordinal of the owning index. Vectors live in one {@link FlatVectorStore}.
+ * Layer 0 neighbor lists are packed into a single {@code int[]} with
+ * {@code 2 * m + 1} slots per node: a count followed by neighbor ids. The few
+ * nodes that reach higher layers keep those lists in one per-node {@code int[]}
+ * of {@code m + 1} slots per layer. Traversal marks nodes in a reusable
+ * per-thread visited bitmap, so a search allocates no per-node objects.</p>
+ *
+ * <p>Scores are similarities, higher is closer: dot product for normalized
+ * graphs, cosine otherwise.</p>
+ *
+ * <p>{@link #addAll} links large batches in parallel, locking a node's lists
+ * while reading or rewriting them. Searches do not lock and must not run
+ * concurrently with adds.</p>
+ *
+ * <p>{@link #remove} marks a node deleted and repairs the lists that pointed
+ * at it. A deleted node keeps its vector and links, so searches still pass
+ * through it, but it is never returned or linked to again; {@link #compact}
+ * drops deleted nodes for good.</p>
+ *
+ * <p>A graph opened with {@link #mapSections} is read-only: vectors and
+ * neighbor lists are read from the mapped file in place of the arrays.</p>
+ */
+final class HnswGraph {
+
+    // Batches smaller than this are linked on the calling thread
+    private static final int PARALLEL_BUILD_THRESHOLD = 1_000;
+
+    private static final int LOCK_STRIPES = 1_024;
+
+    // Expansions between deadline checks (power of two minus one)
+    private static final int DEADLINE_CHECK_MASK = 63;
+    private static final long SEED = 42;
+
+    // Largest region one MappedByteBuffer can address
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    // Ints copied per write when saving a mapped graph
+    private static final int COPY_INTS = 16 * 1024;
+
+    // Sections of an index file holding the graph (see SectionedFile), in file order
+    static final int SECTION_GRAPH = 8;     // entry point and top level
+    static final int SECTION_LEVELS = 9;    // top layer of each node, one byte per node
+    static final int SECTION_VECTORS = 6;   // N x D float32
+    static final int SECTION_LAYER0 = 10;   // 2M + 1 ints per node: neighbor count, then neighbor slots
+    static final int SECTION_UPPER = 11;    // M + 1 ints per layer above 0, for the nodes that have any
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final boolean normalized;
+    private final double levelMultiplier;
+    private final SimilarityKernel kernel = SimilarityKernel.defaultKernel();
+    private final Random random = new Random(SEED);
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ThreadLocal<Scratch> scratch;
+
+    private final FlatVectorStore vectors;
+    private byte[] levels;
+    private int[] layer0;
+    private int[][] upper;
+    private int size;
+
+    // Sections mapped from an index file by mapSections; replace the arrays above
+    private MappedLayers mapped;
+
+    // Nodes removed since the graph was built or last compacted
+    private final OrdinalBitmap deleted = new OrdinalBitmap();
+
+    // Guarded by this while linking
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswGraph(int dimensions, int m, int efConstruction, boolean normalized, int initialCapacity) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be >= 2: " + m);
+        }
+        if (efConstruction < 1) {
+            throw new IllegalArgumentException("efConstruction must be > 0: " + efConstruction);
+        }
+        int capacity = Math.max(initialCapacity, 1);
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.normalized = normalized;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.vectors = new FlatVectorStore(dimensions, capacity);
+        this.levels = new byte[capacity];
+        this.layer0 = new int[capacity * (maxM0 + 1)];
+        this.upper = new int[capacity][];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(dimensions, maxM0));
+    }
+
+    // ==================== Construction ====================
+
+    /**
+     * Inserts a vector and returns its node id.
+     */
+    int add(float[] vector) {
+        int node = reserve(vector);
+        link(node);
+        return node;
+    }
+
+    /**
+     * Inserts vectors in order and returns the node id of the first one.
+     * Ids are assigned up front; large batches are then linked in parallel.
+     */
+    int addAll(List<float[]> batch) {
+        int first = size;
+        vectors.ensureCapacity(size + batch.size());
+        ensureCapacity(size + batch.size());
+        for (float[] vector : batch) {
+            reserve(vector);
+        }
+        IntStream nodes = IntStream.range(first, size);
+        if (batch.size() >= PARALLEL_BUILD_THRESHOLD) {
+            nodes = nodes.parallel();
+        }
+        nodes.forEach(this::link);
+        return first;
+    }
+
+    /**
+     * Stores the vector and draws its level, without linking it into the graph.
+     */
+    private int reserve(float[] vector) {
+        int level = (int) Math.min(-Math.log(1 - random.nextDouble()) * levelMultiplier, Byte.MAX_VALUE);
+        return reserve(vector, level);
+    }
+
+    private int reserve(float[] vector, int level) {
+        int node = vectors.add(vector);
+        ensureCapacity(node + 1);
+        levels[node] = (byte) level;
+        if (level > 0) {
+            upper[node] = new int[level * (m + 1)];
+        }
+        size = node + 1;
+        return node;
+    }
+
+    /**
+     * Connects a reserved node: descends greedily to its level, then links it to
+     * the best candidates on every layer from there down to layer 0.
+     */
+    private void link(int node) {
+        int level = levels[node];
+        int entry;
+        int top;
+        synchronized (this) {
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+            entry = entryPoint;
+            top = maxLevel;
+        }
+
+        float[] vector = vectors.get(node);
+        float entryScore = score(vector, entry);
+        for (int layer = top; layer > level; layer--) {
+            TopKCollector best = searchLayer(vector, entry, entryScore, 1, layer, true, 0);
+            int[] ids = new int[1];
+            float[] scores = new float[1];
+            best.drainTo(ids, scores);
+            entry = ids[0];
+            entryScore = scores[0];
+        }
+
+        for (int layer = Math.min(level, top); layer >= 0; layer--) {
+            TopKCollector found = searchLayer(vector, entry, entryScore, efConstruction, layer, true, 0);
+            int[] ids = new int[found.size()];
+            float[] scores = new float[ids.length];
+            int count = found.drainTo(ids, scores);
+            entry = ids[0];
+            entryScore = scores[0];
+            if (deleted.cardinality() > 0) {
+                count = dropDeleted(ids, scores, count);
+            }
+
+            int selected = selectNeighbors(ids, scores, count, m);
+            synchronized (lock(node)) {
+                setLinks(node, layer, ids, selected);
+            }
+            for (int i = 0; i < selected; i++) {
+                addLink(ids[i], node, layer);
+            }
+        }
+
+        if (level > top) {
+            synchronized (this) {
+                if (level > maxLevel) {
+                    entryPoint = node;
+                    maxLevel = level;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds {@code node} to the neighbor list of {@code target}, pruning the list
+     * with the selection heuristic when it is full.
+     */
+    private void addLink(int target, int node, int layer) {
+        int maxConnections = layer == 0 ? maxM0 : m;
+        synchronized (lock(target)) {
+            int[] links = links(target, layer);
+            int base = base(target, layer);
+            int count = links[base];
+            if (count < maxConnections) {
+                links[base + 1 + count] = node;
+                links[base] = count + 1;
+                return;
+            }
+
+            // Full: rank the old neighbors and the new one by closeness to target
+            Scratch s = scratch.get();
+            System.arraycopy(vectors.data(), vectors.offset(target), s.vector, 0, s.vector.length);
+            int[] ids = s.ids;
+            float[] scores = s.scores;
+            System.arraycopy(links, base + 1, ids, 0, count);
+            ids[count] = node;
+            for (int i = 0; i <= count; i++) {
+                scores[i] = score(s.vector, ids[i]);
+            }
+            sortDescending(ids, scores, count + 1);
+            int selected = selectNeighbors(ids, scores, count + 1, maxConnections);
+            setLinks(target, layer, ids, selected);
+        }
+    }
+
+    /**
+     * Moves the candidates that are not deleted to the front, keeping their
+     * order, and returns their count.
+     */
+    private int dropDeleted(int[] ids, float[] scores, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!deleted.contains(ids[i])) {
+                ids[kept] = ids[i];
+                scores[kept] = scores[i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Neighbor selection heuristic: walks candidates best first and keeps one only
+     * if it is closer to the base node than to every neighbor already kept, which
+     * favors links in diverse directions. Kept candidates are moved to the front.
+     *
+     * @param ids Candidate ids sorted by descending score
+     * @param scores Candidate scores against the base node
+     * @return the number of candidates kept
+     */
+    private int selectNeighbors(int[] ids, float[] scores, int count, int max) {
+        if (count <= max) {
+            return count;
+        }
+        float[] candidate = scratch.get().candidate;
+        float[] data = vectors.data();
+        int selected = 0;
+        for (int i = 0; i < count && selected < max; i++) {
+            System.arraycopy(data, vectors.offset(ids[i]), candidate, 0, candidate.length);
+            boolean keep = true;
+            for (int j = 0; j < selected; j++) {
+                if (score(candidate, ids[j]) > scores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                ids[selected] = ids[i];
+                scores[selected] = scores[i];
+                selected++;
+            }
+        }
+        return selected;
+    }
+
+    // ==================== Deletion ====================
+
+    /**
+     * Marks a node deleted and repairs the graph around it: on every layer,
+     * each neighbor that links back to the node replaces that link with its
+     * best candidates among its other neighbors and the node's neighbors.
+     */
+    void remove(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("node " + node + " out of range [0, " + size + ")");
+        }
+        if (deleted.contains(node)) {
+            return;
+        }
+        deleted.add(node);
+        int[] around = new int[maxM0];
+        for (int layer = 0; layer <= levels[node]; layer++) {
+            int count = copyLinks(node, layer, around);
+            for (int i = 0; i < count; i++) {
+                if (!deleted.contains(around[i])) {
+                    relink(around[i], node, layer, around, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the list of {@code target} without {@code removed}, if it links
+     * there, choosing from its deleted node's neighbors as well.
+     */
+    private void relink(int target, int removed, int layer, int[] replacements, int replacementCount) {
+        int[] links = links(target, layer);
+        int base = base(target, layer);
+        int count = links[base];
+        int[] ids = new int[count + replacementCount];
+        int candidates = 0;
+        boolean linked = false;
+        for (int i = 1; i <= count; i++) {
+            int id = links[base + i];
+            if (id == removed) {
+                linked = true;
+            } else if (!deleted.contains(id)) {
+                ids[candidates++] = id;
+            }
+        }
+        if (!linked) {
+            return;
+        }
+        for (int i = 0; i < replacementCount; i++) {
+            int id = replacements[i];
+            if (id != target && !deleted.contains(id) && !contains(ids, candidates, id)) {
+                ids[candidates++] = id;
+            }
+        }
+
+        float[] vector = vectors.get(target);
+        float[] scores = new float[ids.length];
+        for (int i = 0; i < candidates; i++) {
+            scores[i] = score(vector, ids[i]);
+        }
+        sortDescending(ids, scores, candidates);
+        int selected = selectNeighbors(ids, scores, candidates, layer == 0 ? maxM0 : m);
+        setLinks(target, layer, ids, selected);
+    }
+
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isDeleted(int node) {
+        return deleted.contains(node);
+    }
+
+    /**
+     * Returns the deleted nodes; shared, do not modify.
+     */
+    OrdinalBitmap deleted() {
+        return deleted;
+    }
+
+    /**
+     * Returns a copy without the deleted nodes, the others renumbered in order.
+     * Remaining links to deleted nodes are dropped, and a deleted entry point
+     * is replaced by the first remaining node on the highest level.
+     */
+    HnswGraph compact() {
+        int[] ids = new int[size];
+        int live = 0;
+        for (int node = 0; node < size; node++) {
+            ids[node] = deleted.contains(node) ? -1 : live++;
+        }
+
+        HnswGraph result = new HnswGraph(vectors.dimensions(), m, efConstruction, normalized, live);
+        int[] neighbors = new int[maxM0];
+        for (int node = 0; node < size; node++) {
+            if (ids[node] < 0) {
+                continue;
+            }
+            int id = result.reserve(vectors.get(node), levels[node]);
+            for (int layer = 0; layer <= levels[node]; layer++) {
+                int count = copyLinks(node, layer, neighbors);
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if (ids[neighbors[i]] >= 0) {
+                        neighbors[kept++] = ids[neighbors[i]];
+                    }
+                }
+                result.setLinks(id, layer, neighbors, kept);
+            }
+            if (result.entryPoint < 0 || levels[node] > result.maxLevel) {
+                result.entryPoint = id;
+                result.maxLevel = levels[node];
+            }
+        }
+        if (live > 0 && ids[entryPoint] >= 0) {
+            result.entryPoint = ids[entryPoint];
+            result.maxLevel = maxLevel;
+        }
+        return result;
+    }
+
+    // ==================== Search ====================
+
+    /**
+     * Returns up to {@code k} nearest nodes to the query, exploring {@code ef}
+     * candidates on layer 0 (at least {@code k}).
+     */
+    TopKCollector search(float[] query, int k, int ef) {
+        return search(query, k, ef, 0);
+    }
+
+    /**
+     * Like {@link #search(float[], int, int)}, but stops expanding nodes once
+     * {@link System#nanoTime()} passes {@code deadline} and returns the best
+     * nodes found so far.
+     *
+     * @param deadline Deadline in {@link System#nanoTime()} units, or 0 for none
+     */
+    TopKCollector search(float[] query, int k, int ef, long deadline) {
+        return search(query, k, ef, deadline, null);
+    }
+
+    /**
+     * Like {@link #search(float[], int, int, long)}, but only nodes accepted by
+     * {@code accept} may enter the results. Rejected nodes are still scored and
+     * expanded, so the walk crosses them to reach accepted ones; {@code ef} bounds
+     * the navigation candidates, which should grow as the filter gets more selective.
+     *
+     * @param accept Nodes that may be returned, or null for all
+     */
+    TopKCollector search(float[] query, int k, int ef, long deadline, IntPredicate accept) {
+        TopKCollector results = new TopKCollector(k);
+        if (entryPoint < 0) {
+            return results;
+        }
+        if (deleted.cardinality() > 0) {
+            // Deleted nodes are crossed like rejected ones
+            IntPredicate live = node -> !deleted.contains(node);
+            accept = accept != null ? live.and(accept) : live;
+        }
+
+        int entry = entryPoint;
+        float entryScore = score(query, entry);
+        int[] ids = new int[Math.max(ef, k)];
+        float[] scores = new float[ids.length];
+        for (int layer = maxLevel; layer > 0; layer--) {
+            searchLayer(query, entry, entryScore, 1, layer, false, deadline).drainTo(ids, scores);
+            entry = ids[0];
+            entryScore = scores[0];
+        }
+
+        if (accept != null) {
+            searchLayer(query, entry, entryScore, ids.length, 0, false, deadline, accept, results);
+            return results;
+        }
+        int found = searchLayer(query, entry, entryScore, ids.length, 0, false, deadline).drainTo(ids, scores);
+        for (int i = 0; i < found; i++) {
+            results.collect(ids[i], scores[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Best-first search of one layer, keeping the {@code ef} closest nodes seen.
+     *
+     * @param lock Whether to read neighbor lists under their node locks (while linking)
+     * @param deadline {@link System#nanoTime()} after which to stop expanding, or 0 for none
+     */
+    private TopKCollector searchLayer(float[] query, int entry, float entryScore, int ef, int layer,
+                                      boolean lock, long deadline) {
+        return searchLayer(query, entry, entryScore, ef, layer, lock, deadline, null, null);
+    }
+
+    /**
+     * @param accept Nodes to offer to {@code matches}, or null for none
+     * @param matches Receives every scored node accepted by {@code accept}
+     */
+    private TopKCollector searchLayer(float[] query, int entry, float entryScore, int ef, int layer,
+                                      boolean lock, long deadline, IntPredicate accept, TopKCollector matches) {
+        Scratch s = scratch.get();
+        VisitedSet visited = s.visited;
+        CandidateQueue candidates = s.candidates;
+        int[] neighbors = s.neighbors;
+        TopKCollector results = new TopKCollector(ef);
+
+        visited.visit(entry);
+        candidates.push(entry, entryScore);
+        results.collect(entry, entryScore);
+        if (accept != null && accept.test(entry)) {
+            matches.collect(entry, entryScore);
+        }
+        int expanded = 0;
+        while (!candidates.isEmpty()) {
+            if (candidates.peekScore() < results.minScore()) {
+                break;
+            }
+            if (deadline != 0 && (++expanded & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            int current = candidates.pop();
+            int count = readLinks(current, layer, neighbors, lock);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (!visited.visit(neighbor)) {
+                    continue;
+                }
+                float score = score(query, neighbor);
+                if (accept != null && accept.test(neighbor)) {
+                    matches.collect(neighbor, score);
+                }
+                if (score > results.minScore()) {
+                    candidates.push(neighbor, score);
+                    results.collect(neighbor, score);
+                }
+            }
+        }
+
+        visited.clear();
+        candidates.clear();
+        return results;
+    }
+
+    // ==================== Accessors ====================
+
+    /**
+     * Returns a copy of the vector stored for a node.
+     */
+    float[] vector(int node) {
+        return mapped != null ? mapped.vectors.get(node) : vectors.get(node);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int m() {
+        return m;
+    }
+
+    /**
+     * Returns whether the graph was opened read-only by {@link #mapSections}.
+     */
+    boolean isMapped() {
+        return mapped != null;
+    }
+
+    /**
+     * Returns the bytes held by vectors and neighbor lists, mapped or on the heap.
+     */
+    long sizeBytes() {
+        if (mapped != null) {
+            return mapped.vectors.sizeBytes() + (long) size * (maxM0 + 1) * Integer.BYTES
+                + (long) mapped.upper.capacity() * Integer.BYTES + size;
+        }
+        long linkBytes = (long) size * (maxM0 + 1) * Integer.BYTES;
+        for (int node = 0; node < size; node++) {
+            if (upper[node] != null) {
+                linkBytes += (long) upper[node].length * Integer.BYTES;
+            }
+        }
+        return vectors.sizeBytes() + linkBytes + size;
+    }
+
+    // ==================== Persistence ====================
+
+    /**
+     * Adds the lengths of the graph's sections, in file order, for
+     * {@link SectionedFile#layout}.
+     */
+    void putSectionLengths(Map<Integer, Long> lengths) {
+        long upperInts = 0;
+        if (mapped != null) {
+            upperInts = mapped.upper.capacity();
+        } else {
+            for (int node = 0; node < size; node++) {
+                upperInts += (long) levels[node] * (m + 1);
+            }
+        }
+        lengths.put(SECTION_GRAPH, 2L * Integer.BYTES);
+        lengths.put(SECTION_LEVELS, (long) size);
+        lengths.put(SECTION_VECTORS, (long) size * vectors.dimensions() * Float.BYTES);
+        lengths.put(SECTION_LAYER0, (long) size * (maxM0 + 1) * Integer.BYTES);
+        lengths.put(SECTION_UPPER, upperInts * Integer.BYTES);
+    }
+
+    /**
+     * Writes the graph's sections as the arrays it searches: the layer 0 slots
+     * as one run and the upper layers of each node back to back.
+     */
+    void writeSections(SectionWriter out) throws IOException {
+        out.startSection(SECTION_GRAPH);
+        out.putInt(entryPoint);
+        out.putInt(maxLevel);
+        if (mapped != null) {
+            mapped.writeSections(out);
+            return;
+        }
+
+        out.startSection(SECTION_LEVELS);
+        out.put(levels, 0, size);
+
+        out.startSection(SECTION_VECTORS);
+        out.putFloats(vectors.data(), 0, size * vectors.dimensions());
+
+        out.startSection(SECTION_LAYER0);
+        out.putInts(layer0, 0, size * (maxM0 + 1));
+
+        out.startSection(SECTION_UPPER);
+        for (int node = 0; node < size; node++) {
+            if (levels[node] > 0) {
+                out.putInts(upper[node], 0, levels[node] * (m + 1));
+            }
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #writeSections} straight into its arrays,
+     * then checks that every link points at a node on that layer.
+     *
+     * @throws IOException if a section has the wrong size or the graph is inconsistent
+     */
+    static HnswGraph readSections(SectionReader in, int dimensions, int count, int m, int efConstruction,
+                                  boolean normalized) throws IOException {
+        HnswGraph graph = new HnswGraph(dimensions, m, efConstruction, normalized, count);
+
+        in.seek(require(in, SECTION_GRAPH, 2L * Integer.BYTES));
+        graph.entryPoint = in.getInt();
+        graph.maxLevel = in.getInt();
+
+        in.seek(require(in, SECTION_LEVELS, count));
+        in.get(graph.levels, 0, count);
+
+        in.seek(require(in, SECTION_VECTORS, (long) count * dimensions * Float.BYTES));
+        float[] vector = new float[dimensions];
+        for (int node = 0; node < count; node++) {
+            in.getFloats(vector, 0, dimensions);
+            graph.vectors.add(vector);
+        }
+
+        in.seek(require(in, SECTION_LAYER0, (long) count * (graph.maxM0 + 1) * Integer.BYTES));
+        in.getInts(graph.layer0, 0, count * (graph.maxM0 + 1));
+
+        SectionedFile.Section upperSection = in.require(SECTION_UPPER);
+        in.seek(upperSection);
+        long upperInts = 0;
+        for (int node = 0; node < count; node++) {
+            int level = graph.levels[node];
+            if (level < 0) {
+                throw new IOException("Corrupt HNSW graph: node " + node + " has level " + level);
+            }
+            if (level > 0) {
+                upperInts += (long) level * (m + 1);
+                if (upperInts * Integer.BYTES > upperSection.length()) {
+                    throw new IOException("Corrupt HNSW graph: upper layers exceed their section");
+                }
+                graph.upper[node] = new int[level * (m + 1)];
+                in.getInts(graph.upper[node], 0, graph.upper[node].length);
+            }
+        }
+        graph.size = count;
+
+        graph.checkLinks();
+        return graph;
+    }
+
+    /**
+     * Maps a graph written by {@link #writeSections} instead of reading it:
+     * vectors and neighbor lists stay in the file and are read from the page
+     * cache as the graph is searched. Only the entry point, section sizes and
+     * the level of each node are read up front, the last to locate the upper
+     * layers; links are not checked, as that would read the whole graph.
+     *
+     * @param in Reader over {@code channel}, positioned before the graph sections
+     * @throws IOException if a section has the wrong size or cannot be mapped
+     */
+    static HnswGraph mapSections(SectionReader in, FileChannel channel, int dimensions, int count, int m,
+                                 int efConstruction, boolean normalized) throws IOException {
+        HnswGraph graph = new HnswGraph(dimensions, m, efConstruction, normalized, 1);
+
+        in.seek(require(in, SECTION_GRAPH, 2L * Integer.BYTES));
+        graph.entryPoint = in.getInt();
+        graph.maxLevel = in.getInt();
+
+        ByteBuffer levels = SectionedFile.map(channel, require(in, SECTION_LEVELS, count));
+        int upperNodeCount = 0;
+        for (int node = 0; node < count; node++) {
+            int level = levels.get(node);
+            if (level < 0) {
+                throw new IOException("Corrupt HNSW graph: node " + node + " has level " + level);
+            }
+            if (level > 0) {
+                upperNodeCount++;
+            }
+        }
+        int[] upperNodes = new int[upperNodeCount];
+        int[] upperStarts = new int[upperNodeCount];
+        long upperInts = 0;
+        for (int node = 0, i = 0; node < count; node++) {
+            int level = levels.get(node);
+            if (level > 0) {
+                upperNodes[i] = node;
+                upperStarts[i] = (int) upperInts;    // the section fails to map past 2 GB
+                upperInts += (long) level * (m + 1);
+                i++;
+            }
+        }
+        IntBuffer upper = SectionedFile.map(channel, require(in, SECTION_UPPER, upperInts * Integer.BYTES))
+            .asIntBuffer();
+
+        SectionedFile.Section vectorSection = require(in, SECTION_VECTORS, (long) count * dimensions * Float.BYTES);
+        MappedVectorStore vectors = MappedVectorStore.map(channel, vectorSection.offset(), count, dimensions,
+            ByteOrder.LITTLE_ENDIAN);
+
+        int stride = graph.maxM0 + 1;
+        SectionedFile.Section layer0Section = require(in, SECTION_LAYER0, (long) count * stride * Integer.BYTES);
+        int nodesPerSegment = (int) (MAX_SEGMENT_BYTES / ((long) stride * Integer.BYTES));
+        IntBuffer[] layer0 = new IntBuffer[(int) (((long) count + nodesPerSegment - 1) / nodesPerSegment)];
+        for (int s = 0; s < layer0.length; s++) {
+            int nodes = Math.min(nodesPerSegment, count - s * nodesPerSegment);
+            long start = layer0Section.offset() + (long) s * nodesPerSegment * stride * Integer.BYTES;
+            layer0[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, (long) nodes * stride * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+        }
+
+        boolean validEntry = count == 0
+            ? graph.entryPoint == -1 && graph.maxLevel == -1
+            : graph.entryPoint >= 0 && graph.entryPoint < count && graph.maxLevel == levels.get(graph.entryPoint);
+        if (!validEntry) {
+            throw new IOException(
+                "Corrupt HNSW graph: entry point " + graph.entryPoint + " at level " + graph.maxLevel);
+        }
+        graph.mapped = new MappedLayers(vectors, levels, layer0, nodesPerSegment, stride, upper, m + 1,
+            upperNodes, upperStarts);
+        graph.size = count;
+        return graph;
+    }
+
+    private static SectionedFile.Section require(SectionReader in, int id, long length) throws IOException {
+        SectionedFile.Section section = in.require(id);
+        if (section.length() != length) {
+            throw new IOException(String.format(
+                "Corrupt HNSW graph: section %d has %d bytes, expected %d", id, section.length(), length
+            ));
+        }
+        return section;
+    }
+
+    /**
+     * Checks the entry point and that every neighbor id is a node reaching that layer.
+     */
+    private void checkLinks() throws IOException {
+        boolean validEntry = size == 0
+            ? entryPoint == -1 && maxLevel == -1
+            : entryPoint >= 0 && entryPoint < size && maxLevel == levels[entryPoint];
+        if (!validEntry) {
+            throw new IOException("Corrupt HNSW graph: entry point " + entryPoint + " at level " + maxLevel);
+        }
+        for (int node = 0; node < size; node++) {
+            for (int layer = 0; layer <= levels[node]; layer++) {
+                int[] links = links(node, layer);
+                int base = base(node, layer);
+                int count = links[base];
+                if (count < 0 || count > (layer == 0 ? maxM0 : m)) {
+                    throw new IOException("Corrupt HNSW graph: node " + node + " has " + count + " links");
+                }
+                for (int i = 1; i <= count; i++) {
+                    int neighbor = links[base + i];
+                    if (neighbor < 0 || neighbor >= size || levels[neighbor] < layer) {
+                        throw new IOException(String.format(
+                            "Corrupt HNSW graph: node %d links to %d on layer %d", node, neighbor, layer
+                        ));
+                    }
+                }
+            }
+        }
+    }
+
+    // ==================== Internals ====================
+
+    /**
+     * Similarity between a prepared query and a stored node.
+     */
+    float score(float[] query, int node) {
+        if (mapped != null) {
+            float[] vector = mapped.vectors.read(node);
+            return normalized ? kernel.dot(query, vector, 0) : kernel.cosine(query, vector, 0);
+        }
+        int offset = vectors.offset(node);
+        float[] data = vectors.data();
+        return normalized ? kernel.dot(query, data, offset) : kernel.cosine(query, data, offset);
+    }
+
+    private int[] links(int node, int layer) {
+        return layer == 0 ? layer0 : upper[node];
+    }
+
+    private int base(int node, int layer) {
+        return layer == 0 ? node * (maxM0 + 1) : (layer - 1) * (m + 1);
+    }
+
+    /**
+     * Copies the neighbor ids of a node into {@code out} and returns their count.
+     */
+    private int readLinks(int node, int layer, int[] out, boolean lock) {
+        if (lock) {
+            synchronized (lock(node)) {
+                return copyLinks(node, layer, out);
+            }
+        }
+        return copyLinks(node, layer, out);
+    }
+
+    private int copyLinks(int node, int layer, int[] out) {
+        if (mapped != null) {
+            return mapped.copyLinks(node, layer, out);
+        }
+        int[] links = links(node, layer);
+        int base = base(node, layer);
+        int count = links[base];
+        System.arraycopy(links, base + 1, out, 0, count);
+        return count;
+    }
+
+    private void setLinks(int node, int layer, int[] ids, int count) {
+        int[] links = links(node, layer);
+        int base = base(node, layer);
+        System.arraycopy(ids, 0, links, base + 1, count);
+        links[base] = count;
+    }
+
+    private Object lock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (nodes <= levels.length) {
+            return;
+        }
+        int capacity = (int) Math.min(Math.max((long) levels.length * 2, nodes),
+            Integer.MAX_VALUE / (maxM0 + 1));
+        levels = Arrays.copyOf(levels, capacity);
+        layer0 = Arrays.copyOf(layer0, capacity * (maxM0 + 1));
+        upper = Arrays.copyOf(upper, capacity);
+    }
+
+    /**
+     * Insertion sort by descending score; neighbor lists are short.
+     */
+    private static void sortDescending(int[] ids, float[] scores, int count) {
+        for (int i = 1; i < count; i++) {
+            int id = ids[i];
+            float score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                ids[j + 1] = ids[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Graph sections memory-mapped from an index file, read with absolute gets
+     * so that searches can share them.
+     */
+    private static final class MappedLayers {
+        final MappedVectorStore vectors;
+        final ByteBuffer levels;
+        final IntBuffer[] layer0;     // whole nodes per segment
+        final int nodesPerSegment;
+        final int stride;             // ints per node on layer 0
+        final IntBuffer upper;
+        final int upperStride;        // ints per node and upper layer
+        final int[] upperNodes;       // nodes above layer 0, ascending
+        final int[] upperStarts;      // where each one's lists start in upper
+
+        MappedLayers(MappedVectorStore vectors, ByteBuffer levels, IntBuffer[] layer0, int nodesPerSegment,
+                     int stride, IntBuffer upper, int upperStride, int[] upperNodes, int[] upperStarts) {
+            this.vectors = vectors;
+            this.levels = levels;
+            this.layer0 = layer0;
+            this.nodesPerSegment = nodesPerSegment;
+            this.stride = stride;
+            this.upper = upper;
+            this.upperStride = upperStride;
+            this.upperNodes = upperNodes;
+            this.upperStarts = upperStarts;
+        }
+
+        int copyLinks(int node, int layer, int[] out) {
+            IntBuffer links;
+            int base;
+            if (layer == 0) {
+                int segment = node / nodesPerSegment;
+                links = layer0[segment];
+                base = (node - segment * nodesPerSegment) * stride;
+            } else {
+                links = upper;
+                base = upperStarts[Arrays.binarySearch(upperNodes, node)] + (layer - 1) * upperStride;
+            }
+            int count = links.get(base);
+            links.get(base + 1, out, 0, count);
+            return count;
+        }
+
+        /**
+         * Copies the mapped sections back out, in the order of {@link #writeSections}.
+         */
+        void writeSections(SectionWriter out) throws IOException {
+            out.startSection(SECTION_LEVELS);
+            byte[] bytes = new byte[levels.capacity()];
+            levels.get(0, bytes);
+            out.put(bytes, 0, bytes.length);
+
+            out.startSection(SECTION_VECTORS);
+            for (int node = 0; node < vectors.size(); node++) {
+                out.putFloats(vectors.read(node), 0, vectors.dimensions());
+            }
+
+            out.startSection(SECTION_LAYER0);
+            for (IntBuffer segment : layer0) {
+                putInts(out, segment);
+            }
+
+            out.startSection(SECTION_UPPER);
+            putInts(out, upper);
+        }
+
+        private static void putInts(SectionWriter out, IntBuffer source) throws IOException {
+            int[] ints = new int[COPY_INTS];
+            for (int i = 0; i < source.capacity(); i += ints.length) {
+                int n = Math.min(ints.length, source.capacity() - i);
+                source.get(i, ints, 0, n);
+                out.putInts(ints, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Per-thread buffers reused across searches and link updates.
+     */
+    private static final class Scratch {
+        final VisitedSet visited = new VisitedSet();
+        final CandidateQueue candidates = new CandidateQueue();
+        final int[] neighbors;
+        final int[] ids;
+        final float[] scores;
+        final float[] vector;
+        final float[] candidate;
+
+        Scratch(int dimensions, int maxConnections) {
+            this.neighbors = new int[maxConnections];
+            this.ids = new int[maxConnections + 1];
+            this.scores = new float[maxConnections + 1];
+            this.vector = new float[dimensions];
+            this.candidate = new float[dimensions];
+        }
+    }
+
+    /**
+     * Bitmap of visited nodes that clears only the words it touched.
+     */
+    private static final class VisitedSet {
+        private long[] words = new long[64];
+        private int[] touched = new int[64];
+        private int touchedCount;
+
+        /**
+         * Marks a node, returning false if it was already marked.
+         */
+        boolean visit(int node) {
+            int word = node >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(words.length * 2, word + 1));
+            }
+            long bit = 1L << node;
+            long current = words[word];
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (current == 0) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touched.length * 2);
+                }
+                touched[touchedCount++] = word;
+            }
+            words[word] = current | bit;
+            return true;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                words[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    /**
+     * Growable binary max-heap of (score, node) pairs: the next node to expand.
+     */
+    private static final class CandidateQueue {
+        private int[] nodes = new int[64];
+        private float[] scores = new float[64];
+        private int size;
+
+        void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] >= score) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+
+        /**
+         * Removes and returns the best node.
+         */
+        int pop() {
+            int best = nodes[0];
+            size--;
+            if (size > 0) {
+                int node = nodes[size];
+                float score = scores[size];
+                int i = 0;
+                int half = size >>> 1;
+                while (i < half) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && scores[child + 1] > scores[child]) {
+                        child++;
+                    }
+                    if (score >= scores[child]) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    scores[i] = scores[child];
+                    i = child;
+                }
+                nodes[i] = node;
+                scores[i] = score;
+            }
+            return best;
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
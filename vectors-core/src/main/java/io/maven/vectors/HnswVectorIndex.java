@@ -1,17 +1,23 @@
 package io.maven.vectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.jelmerk.hnswlib.core.DistanceFunctions;
 import com.github.jelmerk.hnswlib.core.Item;
 import com.github.jelmerk.hnswlib.core.hnsw.HnswIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntPredicate;
 
 /**
  * HNSW-based implementation of VectorIndex for fast approximate nearest neighbor search.
@@ -20,6 +26,12 @@ import java.util.stream.Collectors;
  * O(log n) search complexity instead of O(n) brute-force search.</p>
  * 
  * <p>Recommended for indexes with more than 10,000 vectors.</p>
+ * 
+ * <p>The graph is a first-party {@link HnswGraph} over flat primitive arrays.
+ * Searches may run concurrently with each other, but not with adds. Saved files
+ * hold those arrays as little-endian sections (see {@link SectionedFile}), which
+ * load back without re-linking nodes or deserializing objects, or are searched
+ * in place from a memory-mapped file (see {@link #loadMapped(Path)}).</p>
  */
 public class HnswVectorIndex implements VectorIndex {
 
@@ -28,42 +40,61 @@ public class HnswVectorIndex implements VectorIndex {
     
     // Format constants
     private static final byte[] MAGIC = "MHNS".getBytes(); // Different magic for HNSW format
-    private static final short FORMAT_VERSION = 1;
+    private static final short FORMAT_VERSION = 2;
+    
+    // Sections of a version 2+ file in file order (see SectionedFile); the graph's follow
+    private static final int SECTION_INFO = 1;           // model id, then M, efConstruction and efSearch
+    private static final int SECTION_CHUNKS = 2;         // binary chunk records, see ChunkCodec
+    private static final int SECTION_CHUNK_OFFSETS = 3;  // count + 1 record offsets within SECTION_CHUNKS
+    private static final int SECTION_STATS = 7;          // file count and chunk counts by type
+    
+    // Header flags (format version 2+)
+    private static final int FLAG_NORMALIZED = 1;
     
-    // HNSW parameters
-    private static final int DEFAULT_M = 16;              // Max connections per node
-    private static final int DEFAULT_EF_CONSTRUCTION = 200; // Build-time quality
-    private static final int DEFAULT_EF = 50;             // Query-time quality
+    // Upper bound on up-front allocation; the graph grows past it as needed
+    private static final int MAX_INITIAL_CAPACITY = 4_096;
+    
+    // Chunks tested to estimate how selective a filter is
+    private static final int SELECTIVITY_SAMPLE = 1_024;
+    
+    // Share of graph nodes that may be deleted before the graph is compacted
+    private static final double COMPACTION_THRESHOLD = 0.25;
     
     private final IndexConfig config;
-    private final List<CodeChunk> chunks;
+    private List<CodeChunk> chunks;
     private final Map<String, Integer> idToIndex;
-    private HnswIndex<String, float[], CodeVectorItem, Float> hnswIndex;
+    private MetadataBitmaps bitmaps = new MetadataBitmaps();
+    private HnswGraph graph;
     
     // Embedding provider for query-time embedding
     private EmbeddingProvider embeddingProvider;
     
+    // Pool for batched searches (common pool when unset)
+    private ForkJoinPool searchPool;
+    
     public HnswVectorIndex(IndexConfig config) {
         this(config, 100_000); // Default max items
     }
     
+    /**
+     * @param maxItems Expected number of items; used to size the initial allocation.
+     *                 The graph grows past it, so it is not a hard limit.
+     */
     public HnswVectorIndex(IndexConfig config, int maxItems) {
+        this(config, maxItems, new ArrayList<>());
+    }
+    
+    private HnswVectorIndex(IndexConfig config, int maxItems, List<CodeChunk> chunks) {
         this.config = config;
-        this.chunks = new ArrayList<>();
+        this.chunks = chunks;
         this.idToIndex = new HashMap<>();
         
-        // Initialize HNSW index
-        this.hnswIndex = HnswIndex.newBuilder(
-                config.dimensions(),
-                DistanceFunctions.FLOAT_COSINE_DISTANCE,
-                maxItems
-            )
-            .withM(DEFAULT_M)
-            .withEfConstruction(DEFAULT_EF_CONSTRUCTION)
-            .withEf(DEFAULT_EF)
-            .build();
+        // Unit vectors only need the inner product
+        this.graph = new HnswGraph(config.dimensions(), config.hnswM(), config.hnswEfConstruction(),
+            config.normalized(), Math.min(maxItems, MAX_INITIAL_CAPACITY));
         
-        log.info("Created HNSW index: dims={}, maxItems={}", config.dimensions(), maxItems);
+        log.info("Created HNSW index: dims={}, maxItems={}, M={}, efConstruction={}, efSearch={}",
+            config.dimensions(), maxItems, config.hnswM(), config.hnswEfConstruction(), config.hnswEfSearch());
     }
     
     /**
@@ -73,10 +104,19 @@ public class HnswVectorIndex implements VectorIndex {
         this.embeddingProvider = provider;
     }
     
+    /**
+     * Sets the pool that {@link #searchBatch} fans queries out on.
+     * Defaults to {@link ForkJoinPool#commonPool()}.
+     */
+    public void setSearchPool(ForkJoinPool pool) {
+        this.searchPool = pool;
+    }
+    
     // ==================== Modification ====================
     
     @Override
     public void add(CodeChunk chunk, float[] embedding) {
+        checkWritable();
         if (embedding.length != config.dimensions()) {
             throw new IllegalArgumentException(String.format(
                 "Embedding dimension mismatch: expected %d, got %d",
@@ -86,19 +126,33 @@ public class HnswVectorIndex implements VectorIndex {
         
         int index = chunks.size();
         chunks.add(chunk);
-        idToIndex.put(chunk.id(), index);
+        indexChunk(index, chunk);
         
-        // Add to HNSW index
-        CodeVectorItem item = new CodeVectorItem(chunk.id(), embedding, index);
-        hnswIndex.add(item);
+        // Node ids follow insertion order, so the node is the chunk ordinal
+        graph.add(prepareVector(embedding));
         
         log.debug("Added chunk to HNSW: {} (index={})", chunk.name(), index);
     }
     
+    private void checkWritable() {
+        if (graph.isMapped()) {
+            throw new UnsupportedOperationException("Index is read-only: its graph is memory-mapped");
+        }
+    }
+    
+    /**
+     * Adds a stored chunk to the id lookup and the metadata bitmaps.
+     */
+    private void indexChunk(int ordinal, CodeChunk chunk) {
+        idToIndex.put(chunk.id(), ordinal);
+        bitmaps.add(ordinal, chunk);
+    }
+    
     @Override
     public void addAll(List<VectorEntry> entries) {
+        checkWritable();
         // Batch add for efficiency
-        List<CodeVectorItem> items = new ArrayList<>(entries.size());
+        List<float[]> vectors = new ArrayList<>(entries.size());
         
         for (VectorEntry entry : entries) {
             CodeChunk chunk = entry.chunk();
@@ -111,20 +165,14 @@ public class HnswVectorIndex implements VectorIndex {
                 ));
             }
             
-            int index = chunks.size();
             chunks.add(chunk);
-            idToIndex.put(chunk.id(), index);
-            items.add(new CodeVectorItem(chunk.id(), embedding, index));
+            indexChunk(chunks.size() - 1, chunk);
+            vectors.add(prepareVector(embedding));
         }
         
-        // Batch add to HNSW (more efficient than individual adds)
-        try {
-            hnswIndex.addAll(items);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while adding items to HNSW index", e);
-        }
-        log.info("Batch added {} chunks to HNSW index", items.size());
+        // Large batches are linked in parallel
+        graph.addAll(vectors);
+        log.info("Batch added {} chunks to HNSW index", vectors.size());
     }
     
     @Override
@@ -135,11 +183,12 @@ public class HnswVectorIndex implements VectorIndex {
         
         if (other instanceof HnswVectorIndex otherIndex) {
             for (int i = 0; i < otherIndex.chunks.size(); i++) {
+                if (otherIndex.graph.isDeleted(i)) {
+                    continue;
+                }
                 CodeChunk chunk = otherIndex.chunks.get(i);
                 if (!idToIndex.containsKey(chunk.id())) {
-                    // Need to get the vector from HNSW index
-                    Optional<CodeVectorItem> item = otherIndex.hnswIndex.get(chunk.id());
-                    item.ifPresent(cvi -> add(chunk, cvi.vector()));
+                    add(chunk, otherIndex.graph.vector(i));
                 }
             }
         } else if (other instanceof InMemoryVectorIndex) {
@@ -153,6 +202,49 @@ public class HnswVectorIndex implements VectorIndex {
         }
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The node is marked deleted in the graph, which repairs the neighbor
+     * lists that pointed at it; searches still pass through it but never return
+     * it. Once deleted nodes make up a quarter of the graph, it is compacted
+     * and the chunks are renumbered.</p>
+     */
+    @Override
+    public boolean remove(String id) {
+        checkWritable();
+        Integer ordinal = idToIndex.remove(id);
+        if (ordinal == null) {
+            return false;
+        }
+        graph.remove(ordinal);
+        if (graph.deleted().cardinality() > chunks.size() * COMPACTION_THRESHOLD) {
+            compact();
+        }
+        
+        log.debug("Removed chunk from HNSW: {} (index={})", id, ordinal);
+        return true;
+    }
+    
+    /**
+     * Drops deleted nodes from the graph, then rebuilds the id lookup and
+     * metadata bitmaps for the new ordinals.
+     */
+    private void compact() {
+        OrdinalBitmap deleted = graph.deleted();
+        if (deleted.cardinality() == 0) {
+            return;
+        }
+        graph = graph.compact();
+        chunks = EncodedChunkList.removeAll(chunks, deleted);
+        
+        idToIndex.clear();
+        bitmaps = new MetadataBitmaps();
+        for (int i = 0; i < chunks.size(); i++) {
+            indexChunk(i, EncodedChunkList.keys(chunks, i));
+        }
+    }
+    
     // ==================== Search ====================
     
     @Override
@@ -167,24 +259,133 @@ public class HnswVectorIndex implements VectorIndex {
     
     @Override
     public List<SearchResult> search(float[] queryVector, int topK) {
-        if (chunks.isEmpty()) {
+        if (chunks.isEmpty() || topK <= 0) {
             return List.of();
         }
+        checkQueryDimensions(queryVector);
         
-        // HNSW search returns nearest neighbors
-        List<com.github.jelmerk.hnswlib.core.SearchResult<CodeVectorItem, Float>> hnswResults = 
-            hnswIndex.findNearest(queryVector, topK);
+        TopKCollector nearest = graph.search(prepareQuery(queryVector), topK, config.hnswEfSearch());
+        return toResults(nearest, topK);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The graph walk keeps {@code max(ef, topK * oversample)} candidates, and
+     * stops early with the best nodes found so far when the timeout runs out.
+     * A filter gates which chunks are returned while all nodes stay walkable;
+     * see {@link #filteredSearch}.</p>
+     */
+    @Override
+    public List<SearchResult> search(float[] queryVector, int topK, SearchOptions options) {
+        if (options.mode() != SearchMode.DEFAULT) {
+            throw new UnsupportedOperationException("HnswVectorIndex does not support search mode " + options.mode());
+        }
+        long deadline = options.deadlineNanos();
+        if (chunks.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        checkQueryDimensions(queryVector);
         
-        // Convert to our SearchResult format
-        // Note: HNSW returns distance, we need similarity (1 - distance for cosine)
-        return hnswResults.stream()
-            .map(r -> {
-                int chunkIndex = r.item().chunkIndex();
-                CodeChunk chunk = chunks.get(chunkIndex);
-                float similarity = 1.0f - r.distance(); // Convert distance to similarity
-                return SearchResult.of(chunk, similarity, chunk.getArtifact());
-            })
-            .collect(Collectors.toList());
+        int ef = options.ef() > 0 ? options.ef() : config.hnswEfSearch();
+        if (options.oversample() > 0) {
+            ef = (int) Math.max(ef, Math.min(chunks.size(), (long) topK * options.oversample()));
+        }
+        ChunkFilter filter = options.filter();
+        if (filter != null) {
+            return filteredSearch(prepareQuery(queryVector), topK, ef, deadline, filter);
+        }
+        TopKCollector nearest = graph.search(prepareQuery(queryVector), topK, ef, deadline);
+        return toResults(nearest, topK);
+    }
+    
+    /**
+     * Graph search that only returns chunks accepted by {@code filter}.
+     * 
+     * <p>Filters that resolve to metadata bitmaps use the bitmap as the allow-list
+     * and its exact cardinality as the selectivity; others are tested per node and
+     * their selectivity is sampled. The candidate list is widened by the inverse of
+     * the selectivity, so a filter matching 1% of chunks walks about 100x as many
+     * nodes. When fewer chunks match than the walk would score, they are scored
+     * directly instead. If the walk yields fewer than {@code topK} matches it is
+     * repeated with twice the breadth, up to the whole graph, so rare types get a
+     * full top-K rather than the few matches near the query.</p>
+     */
+    private List<SearchResult> filteredSearch(float[] query, int topK, int ef, long deadline, ChunkFilter filter) {
+        int count = chunks.size();
+        MetadataBitmaps.Candidates candidates = bitmaps.resolve(filter);
+        OrdinalBitmap resolved = candidates.bitmap();
+        OrdinalBitmap allowed = resolved != null && graph.deleted().cardinality() > 0
+            ? resolved.andNot(graph.deleted())
+            : resolved;
+        IntPredicate residual = candidates.exact() ? null : i -> filter.test(chunks.get(i));
+        IntPredicate accept;
+        if (allowed == null) {
+            accept = residual;
+        } else if (residual == null) {
+            accept = allowed::contains;
+        } else {
+            accept = i -> allowed.contains(i) && residual.test(i);
+        }
+        
+        double selectivity = candidates.exact()
+            ? (double) allowed.cardinality() / count
+            : estimateSelectivity(accept);
+        if (selectivity == 0) {
+            return List.of();
+        }
+        int filteredEf = (int) Math.min(count, Math.max(Math.max(ef, topK), Math.ceil(ef / selectivity)));
+        
+        if (candidates.exact() && allowed.cardinality() <= filteredEf) {
+            TopKCollector nearest = new TopKCollector(topK);
+            for (int ordinal : allowed.toArray()) {
+                nearest.collect(ordinal, graph.score(query, ordinal));
+            }
+            return toResults(nearest, topK);
+        }
+        
+        while (true) {
+            TopKCollector matches = graph.search(query, topK, filteredEf, deadline, accept);
+            boolean expired = deadline != 0 && System.nanoTime() - deadline >= 0;
+            if (matches.size() >= topK || filteredEf >= count || expired) {
+                return toResults(matches, topK);
+            }
+            filteredEf = (int) Math.min(count, 2L * filteredEf);
+        }
+    }
+    
+    /**
+     * Estimates the fraction of chunks a filter accepts from evenly spaced
+     * ordinals. Never returns 0, so an unseen match still bounds the breadth.
+     */
+    private double estimateSelectivity(IntPredicate accept) {
+        int count = chunks.size();
+        int samples = Math.min(count, SELECTIVITY_SAMPLE);
+        int matched = 0;
+        for (int i = 0; i < samples; i++) {
+            if (accept.test((int) ((long) i * count / samples))) {
+                matched++;
+            }
+        }
+        return Math.max(matched, 0.5) / samples;
+    }
+    
+    /**
+     * Runs each query as its own graph search, in parallel on the search pool.
+     */
+    @Override
+    public List<List<SearchResult>> searchBatch(float[][] queries, int topK) {
+        ForkJoinPool pool = searchPool != null ? searchPool : ForkJoinPool.commonPool();
+        List<ForkJoinTask<List<SearchResult>>> tasks = new ArrayList<>(queries.length);
+        for (float[] query : queries) {
+            tasks.add(pool.submit(() -> search(query, topK)));
+        }
+        
+        List<List<SearchResult>> results = new ArrayList<>(queries.length);
+        for (ForkJoinTask<List<SearchResult>> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
     }
     
     @Override
@@ -194,51 +395,41 @@ public class HnswVectorIndex implements VectorIndex {
         }
         
         float[] queryVector = embeddingProvider.embed(query);
+        if (chunks.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        checkQueryDimensions(queryVector);
         
-        // Search with larger K, then filter by type
-        int searchK = Math.min(topK * 10, chunks.size());
-        List<com.github.jelmerk.hnswlib.core.SearchResult<CodeVectorItem, Float>> hnswResults = 
-            hnswIndex.findNearest(queryVector, searchK);
-        
-        return hnswResults.stream()
-            .filter(r -> chunks.get(r.item().chunkIndex()).type() == type)
-            .limit(topK)
-            .map(r -> {
-                int chunkIndex = r.item().chunkIndex();
-                CodeChunk chunk = chunks.get(chunkIndex);
-                float similarity = 1.0f - r.distance();
-                return SearchResult.of(chunk, similarity, chunk.getArtifact());
-            })
-            .collect(Collectors.toList());
+        return filteredSearch(prepareQuery(queryVector), topK, config.hnswEfSearch(), 0, ChunkFilter.ofType(type));
     }
     
     // ==================== Analysis ====================
     
     @Override
     public List<CodeChunk> findAnomalies(float threshold) {
-        if (chunks.size() < 5) {
+        if (size() < 5) {
             return List.of();
         }
         
         List<CodeChunk> anomalies = new ArrayList<>();
         
         // For each chunk, find its nearest neighbors and compute average similarity
+        int[] neighbors = new int[11];
+        float[] similarities = new float[neighbors.length];
         for (int i = 0; i < chunks.size(); i++) {
-            Optional<CodeVectorItem> itemOpt = hnswIndex.get(chunks.get(i).id());
-            if (itemOpt.isEmpty()) continue;
+            if (graph.isDeleted(i)) continue;
             
-            float[] vector = itemOpt.get().vector();
+            float[] vector = graph.vector(i);
             
-            // Find 10 nearest neighbors
-            List<com.github.jelmerk.hnswlib.core.SearchResult<CodeVectorItem, Float>> neighbors = 
-                hnswIndex.findNearest(vector, 11); // +1 because it includes itself
+            // Find 10 nearest neighbors (+1 because it includes itself)
+            int found = graph.search(vector, neighbors.length, config.hnswEfSearch()).drainTo(neighbors, similarities);
             
             // Calculate average similarity (skip self)
             float avgSimilarity = 0;
             int count = 0;
-            for (var neighbor : neighbors) {
-                if (neighbor.item().chunkIndex() != i) {
-                    avgSimilarity += (1.0f - neighbor.distance());
+            for (int n = 0; n < found; n++) {
+                if (neighbors[n] != i) {
+                    avgSimilarity += similarities[n];
                     count++;
                 }
             }
@@ -259,28 +450,24 @@ public class HnswVectorIndex implements VectorIndex {
         List<DuplicateGroup> groups = new ArrayList<>();
         Set<Integer> processed = new HashSet<>();
         
-        float distanceThreshold = 1.0f - threshold; // Convert similarity to distance
-        
+        int[] neighbors = new int[20];
+        float[] similarities = new float[neighbors.length];
         for (int i = 0; i < chunks.size(); i++) {
-            if (processed.contains(i)) continue;
+            if (processed.contains(i) || graph.isDeleted(i)) continue;
             
-            Optional<CodeVectorItem> itemOpt = hnswIndex.get(chunks.get(i).id());
-            if (itemOpt.isEmpty()) continue;
-            
-            float[] vector = itemOpt.get().vector();
+            float[] vector = graph.vector(i);
             
             // Find very similar items
-            List<com.github.jelmerk.hnswlib.core.SearchResult<CodeVectorItem, Float>> neighbors = 
-                hnswIndex.findNearest(vector, 20);
+            int found = graph.search(vector, neighbors.length, config.hnswEfSearch()).drainTo(neighbors, similarities);
             
             List<CodeChunk> group = new ArrayList<>();
             group.add(chunks.get(i));
             processed.add(i);
             
-            for (var neighbor : neighbors) {
-                int neighborIndex = neighbor.item().chunkIndex();
+            for (int n = 0; n < found; n++) {
+                int neighborIndex = neighbors[n];
                 if (neighborIndex != i && !processed.contains(neighborIndex)) {
-                    if (neighbor.distance() <= distanceThreshold) {
+                    if (similarities[n] >= threshold) {
                         group.add(chunks.get(neighborIndex));
                         processed.add(neighborIndex);
                     }
@@ -297,60 +484,77 @@ public class HnswVectorIndex implements VectorIndex {
     
     @Override
     public IndexStats getStats() {
-        Map<ChunkType, Integer> byType = new EnumMap<>(ChunkType.class);
-        Set<String> files = new HashSet<>();
-        
-        for (CodeChunk chunk : chunks) {
-            byType.merge(chunk.type(), 1, Integer::sum);
-            files.add(chunk.file());
-        }
-        
-        return new IndexStats(
-            chunks.size(),
-            byType,
-            files.size(),
-            config.modelId(),
-            config.dimensions(),
-            estimateSizeBytes()
-        );
+        return IndexStats.of(chunks, graph.deleted(), config.modelId(), config.dimensions(), estimateSizeBytes());
     }
     
     // ==================== Persistence ====================
     
+    /**
+     * Writes the index beside {@code path} and moves it into place, so a
+     * mapped index can be saved back to the file it was loaded from and a
+     * failed save leaves the previous file.
+     */
     @Override
     public void save(Path path) throws IOException {
-        try (OutputStream os = Files.newOutputStream(path)) {
-            save(os);
+        Path temp = SectionedFile.tempFileFor(path);
+        try {
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                save(os);
+            }
+            SectionedFile.replace(temp, path);
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
     
     @Override
     public void save(OutputStream os) throws IOException {
-        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os));
+        compact();
+        int count = chunks.size();
         
-        // Write header
-        dos.write(MAGIC);
-        dos.writeShort(FORMAT_VERSION);
-        dos.writeInt(config.dimensions());
-        dos.writeInt(chunks.size());
-        dos.writeLong(getModelHash());
-        dos.writeUTF(config.modelId());
+        long[] recordOffsets = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            recordOffsets[i + 1] = recordOffsets[i] + ChunkCodec.encodedSize(chunks.get(i));
+        }
+        IndexStats stats = IndexStats.of(chunks, config.modelId(), config.dimensions(), 0);
+        
+        Map<Integer, Long> lengths = new LinkedHashMap<>();
+        lengths.put(SECTION_INFO, (long) SectionWriter.stringSize(config.modelId()) + 3 * Integer.BYTES);
+        lengths.put(SECTION_CHUNKS, recordOffsets[count]);
+        lengths.put(SECTION_CHUNK_OFFSETS, (long) recordOffsets.length * Long.BYTES);
+        lengths.put(SECTION_STATS, stats.sectionLength());
+        graph.putSectionLengths(lengths);
+        
+        SectionWriter out = new SectionWriter(Channels.newChannel(os));
+        out.begin(
+            new SectionedFile.Header(MAGIC, FORMAT_VERSION, config.dimensions(), count, getModelHash(),
+                config.normalized() ? FLAG_NORMALIZED : 0),
+            SectionedFile.layout(lengths)
+        );
         
-        // Write chunks as JSON
-        ObjectMapper mapper = new ObjectMapper();
-        byte[] chunksJson = mapper.writeValueAsBytes(chunks);
-        dos.writeInt(chunksJson.length);
-        dos.write(chunksJson);
+        out.startSection(SECTION_INFO);
+        out.putString(config.modelId());
+        out.putInt(config.hnswM());
+        out.putInt(config.hnswEfConstruction());
+        out.putInt(config.hnswEfSearch());
+        
+        out.startSection(SECTION_CHUNKS);
+        for (CodeChunk chunk : chunks) {
+            byte[] record = ChunkCodec.encode(chunk);
+            out.put(record, 0, record.length);
+        }
+        out.startSection(SECTION_CHUNK_OFFSETS);
+        out.putLongs(recordOffsets, 0, recordOffsets.length);
         
-        // Write HNSW index
-        ByteArrayOutputStream hnswBytes = new ByteArrayOutputStream();
-        hnswIndex.save(hnswBytes);
-        byte[] hnswData = hnswBytes.toByteArray();
-        dos.writeInt(hnswData.length);
-        dos.write(hnswData);
+        out.startSection(SECTION_STATS);
+        stats.writeSection(out);
         
-        dos.flush();
-        log.info("Saved HNSW index: {} chunks, {} bytes HNSW data", chunks.size(), hnswData.length);
+        // Graph: levels, vectors and neighbor lists as the int runs it searches
+        graph.writeSections(out);
+        
+        out.finish();
+        os.flush();
+        log.info("Saved HNSW index: {} chunks", count);
     }
     
     @Override
@@ -367,7 +571,9 @@ public class HnswVectorIndex implements VectorIndex {
     }
     
     public static HnswVectorIndex loadFrom(InputStream is) throws IOException {
-        DataInputStream dis = new DataInputStream(new BufferedInputStream(is));
+        BufferedInputStream bis = new BufferedInputStream(is);
+        DataInputStream dis = new DataInputStream(bis);
+        bis.mark(MAGIC.length + Short.BYTES);
         
         // Read and verify header
         byte[] magic = new byte[4];
@@ -377,16 +583,20 @@ public class HnswVectorIndex implements VectorIndex {
         }
         
         short version = dis.readShort();
-        if (version != FORMAT_VERSION) {
+        if (version == FORMAT_VERSION) {
+            bis.reset();
+            return readSections(Channels.newChannel(bis), null);
+        }
+        if (version != 1) {
             throw new UnsupportedFormatException(version);
         }
         
+        // Version 1: a big-endian stream of header fields, JSON chunks and a serialized hnswlib index
         int dimensions = dis.readInt();
         int chunkCount = dis.readInt();
         long modelHash = dis.readLong();
         String modelId = dis.readUTF();
         
-        // Read chunks
         int chunksJsonLength = dis.readInt();
         byte[] chunksJson = new byte[chunksJsonLength];
         dis.readFully(chunksJson);
@@ -395,42 +605,174 @@ public class HnswVectorIndex implements VectorIndex {
         List<CodeChunk> loadedChunks = mapper.readValue(chunksJson,
             mapper.getTypeFactory().constructCollectionType(List.class, CodeChunk.class));
         
-        // Read HNSW index
+        // Take the vectors of the hnswlib index and rebuild the graph with the default parameters
+        IndexConfig defaults = IndexConfig.defaultConfig();
+        IndexConfig config = configFor(modelId, dimensions, 0, defaults.hnswM(), defaults.hnswEfConstruction(),
+            defaults.hnswEfSearch());
+        HnswVectorIndex index = new HnswVectorIndex(config, chunkCount);
+        index.addAll(readLegacyEntries(dis, loadedChunks));
+        log.info("Loaded legacy HNSW index: {} chunks (graph rebuilt)", index.chunks.size());
+        return index;
+    }
+    
+    /**
+     * Loads an index whose graph stays in the file: vectors, neighbor lists and
+     * chunk records are memory-mapped and searched in place instead of being
+     * copied onto the heap. Loading reads the header and the level of each node
+     * but not the graph itself, and the OS page cache holding the file is shared
+     * by every process that maps it. The data checksum is not verified, as that
+     * would read the whole file; {@link #loadFrom(Path)} verifies it.
+     * 
+     * <p>The returned index is read-only. Adding to it throws
+     * {@link UnsupportedOperationException}, and the file must not be
+     * rewritten in place while the index is in use. Version 1 files are loaded
+     * onto the heap as by {@link #loadFrom(Path)}.</p>
+     * 
+     * @param path Path to an HNSW index file
+     * @return Loaded index
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public static HnswVectorIndex loadMapped(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // A positional read leaves the channel at the start for the section reader
+            ByteBuffer prefix = ByteBuffer.allocate(MAGIC.length + Short.BYTES);
+            channel.read(prefix, 0);
+            byte[] magic = Arrays.copyOf(prefix.array(), MAGIC.length);
+            short version = prefix.hasRemaining() ? 0 : prefix.getShort(MAGIC.length);
+            if (Arrays.equals(magic, MAGIC) && version == FORMAT_VERSION) {
+                return readSections(channel, channel);
+            }
+        }
+        return loadFrom(path);
+    }
+    
+    /**
+     * Reads a sectioned (version 2) file. Chunk records stay encoded and the
+     * graph is read straight into its arrays, or mapped from {@code mapFrom}
+     * along with the records when it is given.
+     */
+    private static HnswVectorIndex readSections(ReadableByteChannel channel, FileChannel mapFrom)
+            throws IOException {
+        SectionReader in = new SectionReader(channel);
+        SectionedFile.Header header = in.readHeader();
+        int dimensions = header.dimensions();
+        int chunkCount = header.count();
+        if ((header.flags() & ~FLAG_NORMALIZED) != 0) {
+            throw new IOException(String.format("Unsupported index flags: 0x%x", header.flags()));
+        }
+        
+        in.seek(in.require(SECTION_INFO));
+        String modelId = in.getString();
+        int m = in.getInt();
+        int efConstruction = in.getInt();
+        int efSearch = in.getInt();
+        IndexConfig config = configFor(modelId, dimensions, header.flags(), m, efConstruction, efSearch);
+        
+        SectionedFile.Section chunkSection = in.require(SECTION_CHUNKS);
+        ByteBuffer records = mapFrom != null
+            ? SectionedFile.map(mapFrom, chunkSection)
+            : in.readSection(chunkSection);
+        in.seek(in.require(SECTION_CHUNK_OFFSETS));
+        long[] recordOffsets = new long[chunkCount + 1];
+        in.getLongs(recordOffsets, 0, recordOffsets.length);
+        EncodedChunkList chunks = EncodedChunkList.of(records, recordOffsets);
+        HnswVectorIndex index = new HnswVectorIndex(config, chunkCount, chunks);
+        
+        index.graph = mapFrom != null
+            ? HnswGraph.mapSections(in, mapFrom, dimensions, chunkCount, m, efConstruction, config.normalized())
+            : HnswGraph.readSections(in, dimensions, chunkCount, m, efConstruction, config.normalized());
+        in.finish();
+        
+        for (int i = 0; i < chunkCount; i++) {
+            index.indexChunk(i, chunks.keys(i));
+        }
+        log.info("{} HNSW index: {} chunks", mapFrom != null ? "Mapped" : "Loaded", chunkCount);
+        return index;
+    }
+    
+    private static IndexConfig configFor(String modelId, int dimensions, int flags, int m, int efConstruction,
+            int efSearch) throws IOException {
+        try {
+            return IndexConfig.forModel(modelId, dimensions)
+                .withNormalized((flags & FLAG_NORMALIZED) != 0)
+                .withHnsw(m, efConstruction, efSearch);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt HNSW index: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Reads an index's statistics from the file header and stats section
+     * without loading chunks or the graph, so the cost doesn't grow with the index.
+     * {@link IndexStats#sizeBytes()} is the file size. Version 1 files
+     * carry no counts and are loaded in full.
+     * 
+     * @param path Path to an HNSW index file
+     * @return Statistics of the stored index
+     * @throws IOException if the file cannot be read
+     */
+    public static IndexStats readStats(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long sizeBytes = channel.size();
+            DataInputStream dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            byte[] magic = new byte[4];
+            dis.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Invalid file format: not an HNSW index (magic: " + new String(magic) + ")");
+            }
+            short version = dis.readShort();
+            
+            if (version == FORMAT_VERSION) {
+                SectionReader in = new SectionReader(channel.position(0));
+                SectionedFile.Header header = in.readHeader();
+                in.seek(in.require(SECTION_INFO));
+                String modelId = in.getString();
+                in.seek(in.require(SECTION_STATS));
+                return IndexStats.readSection(in, header, modelId, sizeBytes);
+            }
+        }
+        
+        HnswVectorIndex index = loadFrom(path);
+        return IndexStats.of(index.chunks, index.config.modelId(), index.config.dimensions(), Files.size(path));
+    }
+    
+    /**
+     * Reads the hnswlib blob of a version 1 file and pairs each chunk with its vector.
+     */
+    private static List<VectorEntry> readLegacyEntries(DataInputStream dis, List<CodeChunk> chunks)
+            throws IOException {
         int hnswDataLength = dis.readInt();
         byte[] hnswData = new byte[hnswDataLength];
         dis.readFully(hnswData);
+        HnswIndex<String, float[], CodeVectorItem, Float> legacy = HnswIndex.load(new ByteArrayInputStream(hnswData));
         
-        // Create index
-        IndexConfig config = IndexConfig.forModel(modelId, dimensions);
-        HnswVectorIndex index = new HnswVectorIndex(config, Math.max(chunkCount * 2, 100_000));
-        
-        // Load HNSW from bytes
-        index.hnswIndex = HnswIndex.load(new ByteArrayInputStream(hnswData));
-        
-        // Restore chunks and id mapping
-        for (int i = 0; i < loadedChunks.size(); i++) {
-            CodeChunk chunk = loadedChunks.get(i);
-            index.chunks.add(chunk);
-            index.idToIndex.put(chunk.id(), i);
+        List<VectorEntry> entries = new ArrayList<>(chunks.size());
+        for (CodeChunk chunk : chunks) {
+            CodeVectorItem item = legacy.get(chunk.id())
+                .orElseThrow(() -> new IOException("Corrupt HNSW index: no vector for chunk " + chunk.id()));
+            entries.add(new VectorEntry(chunk, item.vector()));
         }
-        
-        log.info("Loaded HNSW index: {} chunks", index.chunks.size());
-        return index;
+        return entries;
     }
     
     // ==================== Entries ====================
 
     @Override
     public List<VectorEntry> entries() {
-        List<VectorEntry> result = new ArrayList<>(chunks.size());
+        List<VectorEntry> result = new ArrayList<>(size());
         for (int i = 0; i < chunks.size(); i++) {
-            CodeChunk chunk = chunks.get(i);
-            Optional<CodeVectorItem> item = hnswIndex.get(chunk.id());
-            item.ifPresent(cvi -> result.add(new VectorEntry(chunk, cvi.vector().clone())));
+            if (!graph.isDeleted(i)) {
+                result.add(new VectorEntry(chunks.get(i), graph.vector(i)));
+            }
         }
         return result;
     }
 
+    @Override
+    public List<VectorEntry> entries(ChunkFilter filter) {
+        return bitmaps.entries(filter, chunks, graph.deleted(), graph::vector);
+    }
+
     // ==================== Metadata ====================
 
     @Override
@@ -438,6 +780,18 @@ public class HnswVectorIndex implements VectorIndex {
         return config.modelId();
     }
     
+    /**
+     * Returns the configuration this index was built with, including its HNSW parameters.
+     */
+    public IndexConfig getConfig() {
+        return config;
+    }
+    
+    @Override
+    public boolean isNormalized() {
+        return config.normalized();
+    }
+    
     @Override
     public long getModelHash() {
         return config.modelId().hashCode();
@@ -450,7 +804,7 @@ public class HnswVectorIndex implements VectorIndex {
     
     @Override
     public int size() {
-        return chunks.size();
+        return chunks.size() - graph.deleted().cardinality();
     }
     
     @Override
@@ -458,19 +812,53 @@ public class HnswVectorIndex implements VectorIndex {
         // HNSW index doesn't need explicit closing
     }
     
+    /**
+     * Returns the vector to store: a normalized copy for normalized indexes,
+     * otherwise the embedding itself.
+     */
+    private float[] prepareVector(float[] embedding) {
+        return config.normalized() ? VectorMath.normalize(embedding.clone()) : embedding;
+    }
+    
+    private float[] prepareQuery(float[] queryVector) {
+        return prepareVector(queryVector);
+    }
+    
+    private void checkQueryDimensions(float[] queryVector) {
+        if (queryVector.length != config.dimensions()) {
+            throw new IllegalArgumentException(String.format(
+                "Query dimension mismatch: expected %d, got %d",
+                config.dimensions(), queryVector.length
+            ));
+        }
+    }
+    
+    /**
+     * Converts the best {@code limit} graph hits to search results, best first.
+     */
+    private List<SearchResult> toResults(TopKCollector nearest, int limit) {
+        int[] ordinals = new int[nearest.size()];
+        float[] similarities = new float[ordinals.length];
+        int found = Math.min(nearest.drainTo(ordinals, similarities), limit);
+        
+        List<SearchResult> results = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            CodeChunk chunk = chunks.get(ordinals[i]);
+            results.add(SearchResult.of(chunk, similarities[i], chunk.getArtifact()));
+        }
+        return results;
+    }
+    
     private long estimateSizeBytes() {
-        long vectorBytes = (long) chunks.size() * config.dimensions() * 4;
-        long hnswOverhead = (long) chunks.size() * DEFAULT_M * 8; // Approximate graph overhead
-        long chunkEstimate = chunks.stream()
-            .mapToLong(c -> c.code().length() + c.name().length() + c.file().length() + 100)
-            .sum();
-        return vectorBytes + hnswOverhead + chunkEstimate;
+        long graphBytes = graph.sizeBytes();
+        return graphBytes + EncodedChunkList.estimateSizeBytes(chunks);
     }
     
-    // ==================== HNSW Item Implementation ====================
+    // ==================== Legacy Format ====================
     
     /**
-     * Item wrapper for HNSW index.
+     * Item stored by the hnswlib-based index of format version 1.
+     * Kept under its original name and serialVersionUID so those files still deserialize.
      */
     private static class CodeVectorItem implements Item<String, float[]>, Serializable {
         private static final long serialVersionUID = 1L;
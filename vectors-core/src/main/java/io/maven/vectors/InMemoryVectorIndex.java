@@ -7,37 +7,122 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
 
 /**
  * In-memory implementation of VectorIndex using brute-force search.
  * 
  * <p>This implementation is suitable for small to medium indexes (up to ~100k vectors).
  * For larger indexes, consider using the HNSW-based implementation.</p>
+ * 
+ * <p>With {@link Quantization#INT8} vectors are kept as int8 codes, a quarter of the
+ * float32 size in memory and on disk. If {@link IndexConfig#rerank()} is set the
+ * float vectors are kept too, and the best quantized candidates are re-scored
+ * against them.</p>
+ * 
+ * <p>With {@link IndexConfig#binaryCodes()} the index also keeps 1-bit sign codes
+ * for {@link SearchMode#BINARY}: a Hamming-distance scan over 1/32 of the float32
+ * data, followed by exact re-ranking of the best candidates.</p>
  */
 public class InMemoryVectorIndex implements VectorIndex {
     
     private static final Logger log = LoggerFactory.getLogger(InMemoryVectorIndex.class);
     
     // Format constants
-    private static final byte[] MAGIC = "MVEC".getBytes();
-    private static final short FORMAT_VERSION = 1;
+    static final byte[] MAGIC = "MVEC".getBytes();
+    static final short FORMAT_VERSION = 4;
+    
+    // Sections of a version 4 file in file order, see SectionedFile and IndexWriter
+    static final int SECTION_INFO = 1;           // model id
+    static final int SECTION_CHUNKS = 2;         // binary chunk records, see ChunkCodec
+    static final int SECTION_CHUNK_OFFSETS = 3;  // count + 1 record offsets within SECTION_CHUNKS
+    static final int SECTION_STATS = 7;          // file count and chunk counts by type
+    static final int SECTION_INT8 = 4;           // per-vector scales, then the packed codes
+    static final int SECTION_BINARY = 5;         // 1-bit sign codes
+    static final int SECTION_VECTORS = 6;        // full-precision vectors
+    
+    // Header flags (format version 4)
+    private static final int FLAG_NORMALIZED = 1;
+    private static final int FLAG_INT8 = 2;    // int8 codes follow the chunk table
+    private static final int FLAG_RERANK = 4;  // full-precision vectors kept next to the codes
+    private static final int FLAG_BINARY = 8;  // 1-bit sign codes follow the int8 codes
+    private static final int KNOWN_FLAGS = FLAG_NORMALIZED | FLAG_INT8 | FLAG_RERANK | FLAG_BINARY;
+    
+    // Candidates scored on quantized codes per result before re-ranking
+    private static final int RERANK_OVERSAMPLE = 4;
+    
+    // Candidates kept by the Hamming pass per result before exact re-ranking
+    private static final int BINARY_OVERSAMPLE = 10;
+    
+    /** Default minimum index size before a search pool is used. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+    
+    // Smallest slice a parallel scan will split off
+    private static final int MIN_PARTITION_SIZE = 2_048;
+    
+    // Bytes of vector data scored against every query of a batch before moving on,
+    // sized to stay resident in L2
+    private static final int BATCH_BLOCK_BYTES = 256 * 1024;
+    
+    // Share of stored entries that may be removed before the stores are compacted
+    private static final double COMPACTION_THRESHOLD = 0.25;
     
     private final IndexConfig config;
-    private final List<CodeChunk> chunks;
-    private final List<float[]> vectors;
+    private List<CodeChunk> chunks;
+    private final FlatVectorStore vectors;   // stays empty unless config.storesFullPrecision()
+    private final Int8VectorStore codes;     // null unless quantized
+    private final BinaryVectorStore bits;    // null unless config.binaryCodes()
     private final Map<String, Integer> idToIndex;
+    private MetadataBitmaps bitmaps = new MetadataBitmaps();
+    
+    // Ordinals of removed entries, skipped by searches until the next compaction
+    private OrdinalBitmap removed = new OrdinalBitmap();
+    
+    // Full-precision vectors mapped from the index file by loadMapped; replaces the heap store
+    private MappedVectorStore mapped;
     
     // Embedding model for query-time embedding (optional)
     private EmbeddingProvider embeddingProvider;
     
+    private SimilarityKernel kernel = SimilarityKernel.defaultKernel();
+    
+    // Parallel brute-force search (disabled while searchPool is null)
+    private ForkJoinPool searchPool;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    
     public InMemoryVectorIndex(IndexConfig config) {
+        this(config, 0);
+    }
+    
+    /**
+     * Creates an index with room for {@code expectedSize} vectors before the store has to grow.
+     */
+    public InMemoryVectorIndex(IndexConfig config, int expectedSize) {
+        this(config, expectedSize, new ArrayList<>(expectedSize), false);
+    }
+    
+    /**
+     * @param mapsVectors Whether full-precision vectors will be mapped, leaving the heap store empty
+     */
+    private InMemoryVectorIndex(IndexConfig config, int expectedSize, List<CodeChunk> chunks, boolean mapsVectors) {
         this.config = config;
-        this.chunks = new ArrayList<>();
-        this.vectors = new ArrayList<>();
+        this.chunks = chunks;
+        this.vectors = new FlatVectorStore(config.dimensions(),
+            config.storesFullPrecision() && !mapsVectors ? expectedSize : 1);
+        this.codes = config.quantization() == Quantization.INT8
+            ? new Int8VectorStore(config.dimensions(), expectedSize)
+            : null;
+        this.bits = config.binaryCodes() ? new BinaryVectorStore(config.dimensions(), expectedSize) : null;
         this.idToIndex = new HashMap<>();
     }
     
@@ -48,6 +133,36 @@ public class InMemoryVectorIndex implements VectorIndex {
         this.embeddingProvider = provider;
     }
     
+    /**
+     * Sets the kernel used by brute-force scans. Defaults to
+     * {@link SimilarityKernel#defaultKernel()}.
+     */
+    public void setSimilarityKernel(SimilarityKernel kernel) {
+        this.kernel = Objects.requireNonNull(kernel, "kernel cannot be null");
+    }
+    
+    /**
+     * Enables parallel brute-force search on the given pool, e.g.
+     * {@link ForkJoinPool#commonPool()}. The vector range is split into
+     * partitions that each keep their own top-K, merged at the end.
+     * Pass null (the default) to always scan on the calling thread.
+     */
+    public void setSearchPool(ForkJoinPool pool) {
+        this.searchPool = pool;
+    }
+    
+    /**
+     * Sets the minimum number of vectors before searches use the search pool.
+     * Smaller indexes are scanned on the calling thread, where fork/join
+     * overhead would outweigh the speed-up.
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must be >= 0: " + threshold);
+        }
+        this.parallelThreshold = threshold;
+    }
+    
     // ==================== Modification ====================
     
     @Override
@@ -59,14 +174,47 @@ public class InMemoryVectorIndex implements VectorIndex {
             ));
         }
         
+        append(chunk, config.normalized() ? VectorMath.normalize(embedding.clone()) : embedding);
+    }
+    
+    /**
+     * Stores a chunk and its already-prepared vector.
+     */
+    private void append(CodeChunk chunk, float[] vector) {
+        if (mapped != null) {
+            throw new UnsupportedOperationException("Index is read-only: its vectors are memory-mapped");
+        }
+        if (config.storesFullPrecision()) {
+            vectors.add(vector);
+        }
+        if (codes != null) {
+            codes.add(vector);
+        }
+        if (bits != null) {
+            bits.add(vector);
+        }
+        register(chunk);
+    }
+    
+    /**
+     * Records a chunk whose vector has already been stored at the next ordinal.
+     */
+    private void register(CodeChunk chunk) {
         int index = chunks.size();
         chunks.add(chunk);
-        vectors.add(embedding.clone());
-        idToIndex.put(chunk.id(), index);
+        indexChunk(index, chunk);
         
         log.debug("Added chunk: {} (index={})", chunk.name(), index);
     }
     
+    /**
+     * Adds a stored chunk to the id lookup and the metadata bitmaps.
+     */
+    private void indexChunk(int ordinal, CodeChunk chunk) {
+        idToIndex.put(chunk.id(), ordinal);
+        bitmaps.add(ordinal, chunk);
+    }
+    
     @Override
     public void addAll(List<VectorEntry> entries) {
         for (VectorEntry entry : entries) {
@@ -83,8 +231,11 @@ public class InMemoryVectorIndex implements VectorIndex {
         
         if (other instanceof InMemoryVectorIndex otherIndex) {
             for (int i = 0; i < otherIndex.chunks.size(); i++) {
+                if (otherIndex.removed.contains(i)) {
+                    continue;
+                }
                 CodeChunk chunk = otherIndex.chunks.get(i);
-                float[] vector = otherIndex.vectors.get(i);
+                float[] vector = otherIndex.vectorAt(i);
                 
                 // Skip duplicates
                 if (!idToIndex.containsKey(chunk.id())) {
@@ -96,6 +247,56 @@ public class InMemoryVectorIndex implements VectorIndex {
         }
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The entry is marked removed in a tombstone bitmap that scans skip.
+     * Once removed entries make up a quarter of the stores, they are compacted:
+     * the remaining vectors move down and the chunks are renumbered.</p>
+     */
+    @Override
+    public boolean remove(String id) {
+        if (mapped != null) {
+            throw new UnsupportedOperationException("Index is read-only: its vectors are memory-mapped");
+        }
+        Integer ordinal = idToIndex.remove(id);
+        if (ordinal == null) {
+            return false;
+        }
+        removed.add(ordinal);
+        if (removed.cardinality() > chunks.size() * COMPACTION_THRESHOLD) {
+            compact();
+        }
+        
+        log.debug("Removed chunk: {} (index={})", id, ordinal);
+        return true;
+    }
+    
+    /**
+     * Drops removed entries from the stores, then rebuilds the id lookup and
+     * metadata bitmaps for the new ordinals.
+     */
+    private void compact() {
+        if (removed.cardinality() == 0) {
+            return;
+        }
+        vectors.removeAll(removed);
+        if (codes != null) {
+            codes.removeAll(removed);
+        }
+        if (bits != null) {
+            bits.removeAll(removed);
+        }
+        chunks = EncodedChunkList.removeAll(chunks, removed);
+        removed = new OrdinalBitmap();
+        
+        idToIndex.clear();
+        bitmaps = new MetadataBitmaps();
+        for (int i = 0; i < chunks.size(); i++) {
+            indexChunk(i, EncodedChunkList.keys(chunks, i));
+        }
+    }
+    
     // ==================== Search ====================
     
     @Override
@@ -110,23 +311,7 @@ public class InMemoryVectorIndex implements VectorIndex {
     
     @Override
     public List<SearchResult> search(float[] queryVector, int topK) {
-        if (chunks.isEmpty()) {
-            return List.of();
-        }
-
-        // Compute similarities
-        List<SearchResult> results = new ArrayList<>();
-        for (int i = 0; i < chunks.size(); i++) {
-            CodeChunk chunk = chunks.get(i);
-            float similarity = cosineSimilarity(queryVector, vectors.get(i));
-            results.add(SearchResult.of(chunk, similarity, chunk.getArtifact()));
-        }
-        
-        // Sort and return top-K (compareTo sorts by similarity descending)
-        results.sort(Comparator.naturalOrder());
-        return results.stream()
-            .limit(topK)
-            .collect(Collectors.toList());
+        return search(queryVector, topK, (ChunkFilter) null);
     }
     
     @Override
@@ -136,42 +321,324 @@ public class InMemoryVectorIndex implements VectorIndex {
         }
         
         float[] queryVector = embeddingProvider.embed(query);
+        return search(queryVector, topK, ChunkFilter.ofType(type));
+    }
+    
+    /**
+     * Brute-force scan that keeps only the best {@code topK} candidates.
+     * 
+     * @param filter Chunks to consider, or null for all
+     */
+    private List<SearchResult> search(float[] queryVector, int topK, ChunkFilter filter) {
+        return search(queryVector, topK, filter, RERANK_OVERSAMPLE);
+    }
+    
+    /**
+     * @param oversample Candidates kept per result for re-ranking quantized scores
+     */
+    private List<SearchResult> search(float[] queryVector, int topK, ChunkFilter filter, int oversample) {
+        if (chunks.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        checkQueryDimensions(queryVector);
         
-        // Filter by type, then search
-        List<SearchResult> results = new ArrayList<>();
-        for (int i = 0; i < chunks.size(); i++) {
-            CodeChunk chunk = chunks.get(i);
-            if (chunk.type() == type) {
-                float similarity = cosineSimilarity(queryVector, vectors.get(i));
-                results.add(SearchResult.of(chunk, similarity, chunk.getArtifact()));
+        float[] query = prepareQuery(queryVector);
+        int k = Math.min(topK, chunks.size());
+        TopKCollector collector = collect(scorer(query, false), candidateCount(k, oversample), filter);
+        return toResults(rerank(query, collector, k));
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>{@link SearchMode#BINARY} needs an index built with
+     * {@link IndexConfig#withBinaryCodes(boolean)}.</p>
+     */
+    @Override
+    public List<SearchResult> search(float[] queryVector, int topK, SearchMode mode) {
+        return search(queryVector, topK, SearchOptions.defaults().withMode(mode));
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Every vector is scanned, so only the mode and the oversampling factor
+     * apply: it sets how many quantized or binary candidates are re-ranked.
+     * The filter is applied during the scan.</p>
+     */
+    @Override
+    public List<SearchResult> search(float[] queryVector, int topK, SearchOptions options) {
+        ChunkFilter filter = options.filter();
+        if (options.mode() == SearchMode.BINARY) {
+            int oversample = options.oversample() > 0 ? options.oversample() : BINARY_OVERSAMPLE;
+            return binarySearch(queryVector, topK, filter, oversample);
+        }
+        int oversample = options.oversample() > 0 ? options.oversample() : RERANK_OVERSAMPLE;
+        return search(queryVector, topK, filter, oversample);
+    }
+    
+    /**
+     * Ranks all vectors by Hamming distance between sign codes, then re-scores
+     * the best {@code topK * oversample} exactly.
+     */
+    private List<SearchResult> binarySearch(float[] queryVector, int topK, ChunkFilter filter, int oversample) {
+        if (bits == null) {
+            throw new IllegalStateException(
+                "Index has no binary codes; create it with IndexConfig.withBinaryCodes(true)");
+        }
+        if (chunks.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        checkQueryDimensions(queryVector);
+        
+        float[] query = prepareQuery(queryVector);
+        int k = Math.min(topK, chunks.size());
+        long[] queryBits = new long[bits.words()];
+        BinaryVectorStore.encode(query, queryBits, 0);
+        
+        // Fewer differing bits ranks higher
+        QueryScorer hamming = ordinal -> -bits.hamming(queryBits, ordinal);
+        int candidates = (int) Math.min(chunks.size(), (long) k * oversample);
+        TopKCollector collector = collect(hamming, candidates, filter);
+        return toResults(rescore(scorer(query, true), collector, k));
+    }
+    
+    /**
+     * Scores every chunk accepted by {@code filter}, in parallel on the search
+     * pool when the index is large enough. Filters that resolve to metadata
+     * bitmaps scan only the ordinals set there.
+     */
+    private TopKCollector collect(QueryScorer scorer, int k, ChunkFilter filter) {
+        int[] ordinals = null;
+        IntPredicate residual = null;
+        if (filter != null) {
+            MetadataBitmaps.Candidates candidates = bitmaps.resolve(filter);
+            if (candidates.bitmap() != null) {
+                ordinals = candidates.bitmap().andNot(removed).toArray();
+            }
+            if (!candidates.exact()) {
+                residual = i -> filter.test(chunks.get(i));
+            }
+        }
+        if (ordinals == null && removed.cardinality() > 0) {
+            IntPredicate live = i -> !removed.contains(i);
+            residual = residual != null ? live.and(residual) : live;
+        }
+        
+        int count = ordinals != null ? ordinals.length : chunks.size();
+        if (searchPool != null && count >= parallelThreshold) {
+            int partitionSize = Math.max(MIN_PARTITION_SIZE,
+                (count + searchPool.getParallelism() - 1) / searchPool.getParallelism());
+            return searchPool.invoke(new ScanTask(scorer, k, ordinals, residual, 0, count, partitionSize));
+        }
+        return scan(scorer, k, ordinals, residual, 0, count);
+    }
+    
+    /**
+     * Scores positions {@code [from, to)} into a fresh collector.
+     * 
+     * @param ordinals Ordinals to score by position, or null to score positions as ordinals
+     * @param filter Ordinals to keep, or null for all
+     */
+    private TopKCollector scan(QueryScorer scorer, int k, int[] ordinals, IntPredicate filter, int from, int to) {
+        TopKCollector collector = new TopKCollector(k);
+        for (int i = from; i < to; i++) {
+            int ordinal = ordinals != null ? ordinals[i] : i;
+            if (filter == null || filter.test(ordinal)) {
+                collector.collect(ordinal, scorer.score(ordinal));
+            }
+        }
+        return collector;
+    }
+    
+    /**
+     * Number of candidates the scan keeps for a final top {@code k}: more when
+     * quantized scores are re-ranked against full-precision vectors.
+     */
+    private int candidateCount(int k, int oversample) {
+        return reranks() ? (int) Math.min(chunks.size(), (long) k * oversample) : k;
+    }
+    
+    /**
+     * Re-scores quantized candidates against the full-precision vectors and keeps
+     * the best {@code k}. Returns the collector unchanged when not re-ranking.
+     */
+    private TopKCollector rerank(float[] query, TopKCollector candidates, int k) {
+        return reranks() ? rescore(scorer(query, true), candidates, k) : candidates;
+    }
+    
+    /**
+     * Drains the candidates, scores them again with {@code scorer} and keeps the best {@code k}.
+     */
+    private static TopKCollector rescore(QueryScorer scorer, TopKCollector candidates, int k) {
+        int[] ordinals = new int[candidates.size()];
+        float[] scores = new float[ordinals.length];
+        int count = candidates.drainTo(ordinals, scores);
+        
+        TopKCollector collector = new TopKCollector(k);
+        for (int i = 0; i < count; i++) {
+            collector.collect(ordinals[i], scorer.score(ordinals[i]));
+        }
+        return collector;
+    }
+    
+    /**
+     * Splits a scan range in halves until it fits in one partition, then
+     * merges the per-partition collectors on the way back up.
+     */
+    private final class ScanTask extends RecursiveTask<TopKCollector> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final QueryScorer scorer;
+        private final int k;
+        private final int[] ordinals;
+        private final IntPredicate filter;
+        private final int from;
+        private final int to;
+        private final int partitionSize;
+        
+        ScanTask(QueryScorer scorer, int k, int[] ordinals, IntPredicate filter, int from, int to,
+                 int partitionSize) {
+            this.scorer = scorer;
+            this.k = k;
+            this.ordinals = ordinals;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+            this.partitionSize = partitionSize;
+        }
+        
+        @Override
+        protected TopKCollector compute() {
+            if (to - from <= partitionSize) {
+                return scan(scorer, k, ordinals, filter, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(scorer, k, ordinals, filter, from, mid, partitionSize);
+            ScanTask right = new ScanTask(scorer, k, ordinals, filter, mid, to, partitionSize);
+            left.fork();
+            TopKCollector collector = right.compute();
+            collector.collectAll(left.join());
+            return collector;
+        }
+    }
+    
+    /**
+     * Scores the whole batch block by block: each block of stored vectors is
+     * compared against every query while it is still in cache, rather than
+     * streaming the full store once per query.
+     */
+    @Override
+    public List<List<SearchResult>> searchBatch(float[][] queries, int topK) {
+        List<List<SearchResult>> results = new ArrayList<>(queries.length);
+        if (chunks.isEmpty() || topK <= 0) {
+            for (int q = 0; q < queries.length; q++) {
+                results.add(List.of());
+            }
+            return results;
+        }
+        
+        float[][] prepared = new float[queries.length][];
+        for (int q = 0; q < queries.length; q++) {
+            checkQueryDimensions(queries[q]);
+            prepared[q] = prepareQuery(queries[q]);
+        }
+        
+        int k = Math.min(topK, chunks.size());
+        int candidates = candidateCount(k, RERANK_OVERSAMPLE);
+        QueryScorer[] scorers = new QueryScorer[prepared.length];
+        for (int q = 0; q < prepared.length; q++) {
+            scorers[q] = scorer(prepared[q], false);
+        }
+        TopKCollector[] collectors = new TopKCollector[prepared.length];
+        if (searchPool != null && chunks.size() >= parallelThreshold && prepared.length > 1) {
+            // Each task runs the blocked scan for its own slice of queries
+            int groupSize = (prepared.length + searchPool.getParallelism() - 1) / searchPool.getParallelism();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int from = 0; from < prepared.length; from += groupSize) {
+                int start = from;
+                int end = Math.min(from + groupSize, prepared.length);
+                tasks.add(searchPool.submit(() -> scanBatch(scorers, start, end, candidates, collectors)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
             }
+        } else {
+            scanBatch(scorers, 0, prepared.length, candidates, collectors);
+        }
+        
+        for (int q = 0; q < collectors.length; q++) {
+            results.add(toResults(rerank(prepared[q], collectors[q], k)));
+        }
+        return results;
+    }
+    
+    /**
+     * Blocked scan of queries {@code [from, to)} into {@code collectors}.
+     */
+    private void scanBatch(QueryScorer[] scorers, int from, int to, int k, TopKCollector[] collectors) {
+        for (int q = from; q < to; q++) {
+            collectors[q] = new TopKCollector(k);
         }
         
-        results.sort(Comparator.naturalOrder());
-        return results.stream()
-            .limit(topK)
-            .collect(Collectors.toList());
+        int count = chunks.size();
+        OrdinalBitmap skipped = removed.cardinality() > 0 ? removed : null;
+        int bytesPerVector = codes != null ? config.dimensions() : config.dimensions() * Float.BYTES;
+        int blockSize = Math.max(1, BATCH_BLOCK_BYTES / bytesPerVector);
+        for (int blockStart = 0; blockStart < count; blockStart += blockSize) {
+            int blockEnd = Math.min(blockStart + blockSize, count);
+            for (int q = from; q < to; q++) {
+                QueryScorer scorer = scorers[q];
+                TopKCollector collector = collectors[q];
+                for (int i = blockStart; i < blockEnd; i++) {
+                    if (skipped == null || !skipped.contains(i)) {
+                        collector.collect(i, scorer.score(i));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Builds search results for the collected survivors, best first.
+     */
+    private List<SearchResult> toResults(TopKCollector collector) {
+        int[] ordinals = new int[collector.size()];
+        float[] scores = new float[ordinals.length];
+        int count = collector.drainTo(ordinals, scores);
+        
+        List<SearchResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CodeChunk chunk = chunks.get(ordinals[i]);
+            results.add(SearchResult.of(chunk, scores[i], chunk.getArtifact()));
+        }
+        return results;
     }
     
     // ==================== Analysis ====================
     
     @Override
     public List<CodeChunk> findAnomalies(float threshold) {
-        if (chunks.size() < 5) {
+        if (size() < 5) {
             return List.of();
         }
         
         List<CodeChunk> anomalies = new ArrayList<>();
         
         for (int i = 0; i < chunks.size(); i++) {
+            if (removed.contains(i)) continue;
+            
+            QueryScorer scorer = scorer(vectorAt(i), true);
+            
             // Calculate average similarity to other vectors
             float avgSimilarity = 0;
-            for (int j = 0; j < vectors.size(); j++) {
-                if (i != j) {
-                    avgSimilarity += cosineSimilarity(vectors.get(i), vectors.get(j));
+            for (int j = 0; j < chunks.size(); j++) {
+                if (i != j && !removed.contains(j)) {
+                    avgSimilarity += scorer.score(j);
                 }
             }
-            avgSimilarity /= (vectors.size() - 1);
+            avgSimilarity /= (size() - 1);
             
             // If average similarity is below threshold, it's an anomaly
             if (avgSimilarity < threshold) {
@@ -188,16 +655,18 @@ public class InMemoryVectorIndex implements VectorIndex {
         Set<Integer> processed = new HashSet<>();
         
         for (int i = 0; i < chunks.size(); i++) {
-            if (processed.contains(i)) continue;
+            if (processed.contains(i) || removed.contains(i)) continue;
+            
+            QueryScorer scorer = scorer(vectorAt(i), true);
             
             List<CodeChunk> group = new ArrayList<>();
             group.add(chunks.get(i));
             processed.add(i);
             
             for (int j = i + 1; j < chunks.size(); j++) {
-                if (processed.contains(j)) continue;
+                if (processed.contains(j) || removed.contains(j)) continue;
                 
-                float similarity = cosineSimilarity(vectors.get(i), vectors.get(j));
+                float similarity = scorer.score(j);
                 if (similarity >= threshold) {
                     group.add(chunks.get(j));
                     processed.add(j);
@@ -214,61 +683,109 @@ public class InMemoryVectorIndex implements VectorIndex {
     
     @Override
     public IndexStats getStats() {
-        Map<ChunkType, Integer> byType = new EnumMap<>(ChunkType.class);
-        Set<String> files = new HashSet<>();
-        
-        for (CodeChunk chunk : chunks) {
-            byType.merge(chunk.type(), 1, Integer::sum);
-            files.add(chunk.file());
-        }
-        
-        return new IndexStats(
-            chunks.size(),
-            byType,
-            files.size(),
-            config.modelId(),
-            config.dimensions(),
-            estimateSizeBytes()
-        );
+        return IndexStats.of(chunks, removed, config.modelId(), config.dimensions(), estimateSizeBytes());
     }
     
     // ==================== Persistence ====================
     
     @Override
     public void save(Path path) throws IOException {
-        try (OutputStream os = Files.newOutputStream(path)) {
-            save(os);
+        compact();
+        // Streamed through the writer: no record sizes or section lengths are computed up front
+        try (IndexWriter writer = new IndexWriter(path, config)) {
+            for (int i = 0; i < chunks.size(); i++) {
+                writer.writeChunk(chunks.get(i));
+                if (codes != null) {
+                    writer.writeInt8(codes.codes(), codes.offset(i), codes.scale(i));
+                }
+                if (bits != null) {
+                    writer.writeBinary(bits.codes(), i * bits.words());
+                }
+                if (mapped != null) {
+                    writer.writeVector(mapped.read(i), 0);
+                } else if (config.storesFullPrecision()) {
+                    writer.writeVector(vectors.data(), vectors.offset(i));
+                }
+            }
         }
     }
     
     @Override
     public void save(OutputStream os) throws IOException {
-        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os));
+        compact();
+        int count = chunks.size();
+        int dimensions = config.dimensions();
         
-        // Write header
-        dos.write(MAGIC);
-        dos.writeShort(FORMAT_VERSION);
-        dos.writeInt(config.dimensions());
-        dos.writeInt(chunks.size());
-        dos.writeLong(getModelHash());
+        // Record sizes are needed up front: the section directory precedes the data
+        long[] recordOffsets = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            recordOffsets[i + 1] = recordOffsets[i] + ChunkCodec.encodedSize(chunks.get(i));
+        }
         
-        // Write model ID
-        dos.writeUTF(config.modelId());
+        // Counts for readStats, so printing them doesn't need the chunks
+        IndexStats stats = IndexStats.of(chunks, config.modelId(), dimensions, 0);
         
-        // Write chunks as JSON
-        ObjectMapper mapper = new ObjectMapper();
-        byte[] chunksJson = mapper.writeValueAsBytes(chunks);
-        dos.writeInt(chunksJson.length);
-        dos.write(chunksJson);
-        
-        // Write vectors
-        for (float[] vector : vectors) {
-            for (float v : vector) {
-                dos.writeFloat(v);
+        Map<Integer, Long> lengths = new LinkedHashMap<>();
+        lengths.put(SECTION_INFO, (long) SectionWriter.stringSize(config.modelId()));
+        lengths.put(SECTION_CHUNKS, recordOffsets[count]);
+        lengths.put(SECTION_CHUNK_OFFSETS, (long) recordOffsets.length * Long.BYTES);
+        lengths.put(SECTION_STATS, stats.sectionLength());
+        if (codes != null) {
+            lengths.put(SECTION_INT8, (long) count * (Float.BYTES + dimensions));
+        }
+        if (bits != null) {
+            lengths.put(SECTION_BINARY, (long) count * bits.words() * Long.BYTES);
+        }
+        if (config.storesFullPrecision()) {
+            lengths.put(SECTION_VECTORS, (long) count * dimensions * Float.BYTES);
+        }
+        
+        SectionWriter out = new SectionWriter(Channels.newChannel(os));
+        out.begin(
+            new SectionedFile.Header(MAGIC, FORMAT_VERSION, dimensions, count, getModelHash(), flags(config)),
+            SectionedFile.layout(lengths)
+        );
+        
+        out.startSection(SECTION_INFO);
+        out.putString(config.modelId());
+        
+        out.startSection(SECTION_CHUNKS);
+        for (CodeChunk chunk : chunks) {
+            byte[] record = ChunkCodec.encode(chunk);
+            out.put(record, 0, record.length);
+        }
+        out.startSection(SECTION_CHUNK_OFFSETS);
+        out.putLongs(recordOffsets, 0, recordOffsets.length);
+        
+        out.startSection(SECTION_STATS);
+        stats.writeSection(out);
+        
+        if (codes != null) {
+            out.startSection(SECTION_INT8);
+            for (int i = 0; i < count; i++) {
+                out.putFloat(codes.scale(i));
             }
+            out.put(codes.codes(), 0, count * dimensions);
+        }
+        
+        if (bits != null) {
+            out.startSection(SECTION_BINARY);
+            out.putLongs(bits.codes(), 0, count * bits.words());
         }
         
-        dos.flush();
+        if (config.storesFullPrecision()) {
+            out.startSection(SECTION_VECTORS);
+            if (mapped != null) {
+                for (int i = 0; i < count; i++) {
+                    out.putFloats(mapped.read(i), 0, dimensions);
+                }
+            } else {
+                out.putFloats(vectors.data(), 0, count * dimensions);
+            }
+        }
+        
+        out.finish();
+        os.flush();
     }
     
     @Override
@@ -285,7 +802,72 @@ public class InMemoryVectorIndex implements VectorIndex {
     }
     
     public static InMemoryVectorIndex loadFrom(InputStream is) throws IOException {
-        DataInputStream dis = new DataInputStream(new BufferedInputStream(is));
+        return readFrom(is, null);
+    }
+    
+    /**
+     * Loads an index whose full-precision vectors stay in the file and are
+     * memory-mapped instead of copied onto the heap. Loading skips decoding
+     * the vectors and the OS page cache is shared by every process mapping
+     * the file; the heap holds only chunks and any quantized codes.
+     * 
+     * <p>The returned index is read-only. Adding to it throws
+     * {@link UnsupportedOperationException}, and the file must not be
+     * rewritten in place while the index is in use.</p>
+     * 
+     * @param path Path to a {@code .mvec} file
+     * @return Loaded index
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public static InMemoryVectorIndex loadMapped(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             InputStream is = Files.newInputStream(path)) {
+            return readFrom(is, channel);
+        }
+    }
+    
+    /**
+     * Reads an index's statistics from the file header and stats section
+     * without loading chunks or vectors, so the cost doesn't grow with the
+     * index. {@link IndexStats#sizeBytes()} is the file size. Version 1
+     * files carry no counts and are loaded mapped and counted.
+     * 
+     * @param path Path to a {@code .mvec} file
+     * @return Statistics of the stored index
+     * @throws IOException if the file cannot be read
+     */
+    public static IndexStats readStats(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // A positional read leaves the channel at the start for the section reader
+            ByteBuffer prefix = ByteBuffer.allocate(MAGIC.length + Short.BYTES);
+            channel.read(prefix, 0);
+            short version = prefix.hasRemaining() ? 0 : prefix.getShort(MAGIC.length);
+    
+            if (version == FORMAT_VERSION) {
+                SectionReader in = new SectionReader(channel);
+                SectionedFile.Header header = in.readHeader();
+                SectionedFile.Section statsSection = in.find(SECTION_STATS);
+                if (Arrays.equals(header.magic(), MAGIC) && statsSection != null) {
+                    in.seek(in.require(SECTION_INFO));
+                    String modelId = in.getString();
+                    in.seek(statsSection);
+                    return IndexStats.readSection(in, header, modelId, channel.size());
+                }
+            }
+    
+            InMemoryVectorIndex index = loadMapped(path);
+            return IndexStats.of(index.chunks, index.config.modelId(), index.config.dimensions(), channel.size());
+        }
+    }
+    
+    /**
+     * Reads an index, mapping the full-precision vectors from {@code channel}
+     * when it is given instead of reading them from the stream.
+     */
+    private static InMemoryVectorIndex readFrom(InputStream is, FileChannel channel) throws IOException {
+        BufferedInputStream bis = new BufferedInputStream(is);
+        DataInputStream dis = new DataInputStream(bis);
+        bis.mark(MAGIC.length + Short.BYTES);
         
         // Read and verify header
         byte[] magic = new byte[4];
@@ -295,10 +877,19 @@ public class InMemoryVectorIndex implements VectorIndex {
         }
         
         short version = dis.readShort();
-        if (version != FORMAT_VERSION) {
+        if (version == FORMAT_VERSION) {
+            if (channel != null) {
+                channel.position(0);
+                return readSections(channel, channel);
+            }
+            bis.reset();
+            return readSections(Channels.newChannel(bis), null);
+        }
+        if (version != 1) {
             throw new UnsupportedFormatException(version);
         }
         
+        // Version 1: header fields, then JSON chunks and big-endian vectors
         int dimensions = dis.readInt();
         int chunkCount = dis.readInt();
         long modelHash = dis.readLong();
@@ -314,32 +905,140 @@ public class InMemoryVectorIndex implements VectorIndex {
             mapper.getTypeFactory().constructCollectionType(List.class, CodeChunk.class));
         
         // Create index
-        IndexConfig config = IndexConfig.forModel(modelId, dimensions);
-        InMemoryVectorIndex index = new InMemoryVectorIndex(config);
+        IndexConfig config = configFor(modelId, dimensions, 0);
+        InMemoryVectorIndex index = new InMemoryVectorIndex(config, chunkCount, new ArrayList<>(chunkCount),
+            channel != null);
         
         // Read vectors
-        for (int i = 0; i < chunkCount; i++) {
+        if (channel != null) {
+            // The vectors run to the end of the file
+            long offset = channel.size() - (long) chunkCount * dimensions * Float.BYTES;
+            index.mapped = MappedVectorStore.map(channel, offset, chunkCount, dimensions, ByteOrder.BIG_ENDIAN);
+        } else {
             float[] vector = new float[dimensions];
-            for (int j = 0; j < dimensions; j++) {
-                vector[j] = dis.readFloat();
+            for (int i = 0; i < chunkCount; i++) {
+                for (int j = 0; j < dimensions; j++) {
+                    vector[j] = dis.readFloat();
+                }
+                index.vectors.add(vector);
+            }
+        }
+        
+        for (CodeChunk chunk : chunks) {
+            index.register(chunk);
+        }
+        return index;
+    }
+    
+    /**
+     * Reads a sectioned (version 4) file, mapping the full-precision vectors
+     * from {@code mapFrom} when it is given instead of reading them.
+     */
+    private static InMemoryVectorIndex readSections(ReadableByteChannel channel, FileChannel mapFrom)
+            throws IOException {
+        SectionReader in = new SectionReader(channel);
+        SectionedFile.Header header = in.readHeader();
+        int dimensions = header.dimensions();
+        int chunkCount = header.count();
+        int flags = header.flags();
+        if ((flags & ~KNOWN_FLAGS) != 0) {
+            throw new IOException(String.format("Unsupported index flags: 0x%x", flags));
+        }
+        
+        in.seek(in.require(SECTION_INFO));
+        String modelId = in.getString();
+        
+        // Chunk records stay encoded (mapped along with the vectors) and are decoded on access
+        SectionedFile.Section chunkSection = in.require(SECTION_CHUNKS);
+        ByteBuffer records = mapFrom != null
+            ? SectionedFile.map(mapFrom, chunkSection)
+            : in.readSection(chunkSection);
+        in.seek(in.require(SECTION_CHUNK_OFFSETS));
+        long[] recordOffsets = new long[chunkCount + 1];
+        in.getLongs(recordOffsets, 0, recordOffsets.length);
+        EncodedChunkList chunks = EncodedChunkList.of(records, recordOffsets);
+        
+        IndexConfig config = configFor(modelId, dimensions, flags);
+        InMemoryVectorIndex index = new InMemoryVectorIndex(config, chunkCount, chunks, mapFrom != null);
+        
+        if (index.codes != null) {
+            in.seek(in.require(SECTION_INT8));
+            float[] scales = new float[chunkCount];
+            in.getFloats(scales, 0, chunkCount);
+            byte[] code = new byte[dimensions];
+            for (int i = 0; i < chunkCount; i++) {
+                in.get(code, 0, dimensions);
+                index.codes.add(code, 0, scales[i]);
+            }
+        }
+        
+        if (index.bits != null) {
+            in.seek(in.require(SECTION_BINARY));
+            long[] code = new long[index.bits.words()];
+            for (int i = 0; i < chunkCount; i++) {
+                in.getLongs(code, 0, code.length);
+                index.bits.add(code, 0);
+            }
+        }
+        
+        if (config.storesFullPrecision()) {
+            SectionedFile.Section section = in.require(SECTION_VECTORS);
+            if (mapFrom != null) {
+                index.mapped = MappedVectorStore.map(mapFrom, section.offset(), chunkCount, dimensions,
+                    ByteOrder.LITTLE_ENDIAN);
+            } else {
+                in.seek(section);
+                float[] vector = new float[dimensions];
+                for (int i = 0; i < chunkCount; i++) {
+                    in.getFloats(vector, 0, dimensions);
+                    index.vectors.add(vector);
+                }
             }
-            index.add(chunks.get(i), vector);
         }
         
+        in.finish();
+        for (int i = 0; i < chunkCount; i++) {
+            index.indexChunk(i, chunks.keys(i));
+        }
         return index;
     }
     
+    private static IndexConfig configFor(String modelId, int dimensions, int flags) {
+        return IndexConfig.forModel(modelId, dimensions)
+            .withNormalized((flags & FLAG_NORMALIZED) != 0)
+            .withQuantization((flags & FLAG_INT8) != 0 ? Quantization.INT8 : Quantization.NONE)
+            .withRerank((flags & FLAG_RERANK) != 0)
+            .withBinaryCodes((flags & FLAG_BINARY) != 0);
+    }
+    
     // ==================== Entries ====================
 
     @Override
     public List<VectorEntry> entries() {
-        List<VectorEntry> result = new ArrayList<>(chunks.size());
+        List<VectorEntry> result = new ArrayList<>(size());
         for (int i = 0; i < chunks.size(); i++) {
-            result.add(new VectorEntry(chunks.get(i), vectors.get(i).clone()));
+            if (!removed.contains(i)) {
+                result.add(new VectorEntry(chunks.get(i), vectorAt(i)));
+            }
         }
         return result;
     }
 
+    @Override
+    public List<VectorEntry> entries(ChunkFilter filter) {
+        return bitmaps.entries(filter, chunks, removed, this::vectorAt);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>False when only int8 codes are stored, as their embeddings are dequantized.</p>
+     */
+    @Override
+    public boolean hasExactEmbeddings() {
+        return config.storesFullPrecision();
+    }
+
     // ==================== Metadata ====================
     
     @Override
@@ -347,6 +1046,11 @@ public class InMemoryVectorIndex implements VectorIndex {
         return config.modelId();
     }
     
+    @Override
+    public boolean isNormalized() {
+        return config.normalized();
+    }
+    
     @Override
     public long getModelHash() {
         return config.modelId().hashCode();
@@ -359,7 +1063,7 @@ public class InMemoryVectorIndex implements VectorIndex {
     
     @Override
     public int size() {
-        return chunks.size();
+        return chunks.size() - removed.cardinality();
     }
     
     @Override
@@ -369,27 +1073,109 @@ public class InMemoryVectorIndex implements VectorIndex {
     
     // ==================== Helper Methods ====================
     
-    private float cosineSimilarity(float[] a, float[] b) {
-        float dotProduct = 0;
-        float normA = 0;
-        float normB = 0;
+    private void checkQueryDimensions(float[] queryVector) {
+        if (queryVector.length != config.dimensions()) {
+            throw new IllegalArgumentException(String.format(
+                "Query dimension mismatch: expected %d, got %d",
+                config.dimensions(), queryVector.length
+            ));
+        }
+    }
+    
+    /**
+     * Returns the query in the form the scoring function expects.
+     */
+    private float[] prepareQuery(float[] queryVector) {
+        return config.normalized() ? VectorMath.normalize(queryVector.clone()) : queryVector;
+    }
+    
+    /**
+     * Returns a copy of the stored vector, reconstructed from its codes when
+     * full-precision vectors aren't kept.
+     */
+    private float[] vectorAt(int ordinal) {
+        if (mapped != null) {
+            return mapped.get(ordinal);
+        }
+        return config.storesFullPrecision() ? vectors.get(ordinal) : codes.dequantize(ordinal);
+    }
+    
+    private boolean reranks() {
+        return codes != null && config.rerank();
+    }
+    
+    /**
+     * Returns the header flags for an index with the given configuration.
+     */
+    static int flags(IndexConfig config) {
+        int flags = config.normalized() ? FLAG_NORMALIZED : 0;
+        if (config.quantization() == Quantization.INT8) {
+            flags |= FLAG_INT8;
+            if (config.rerank()) {
+                flags |= FLAG_RERANK;
+            }
+        }
+        if (config.binaryCodes()) {
+            flags |= FLAG_BINARY;
+        }
+        return flags;
+    }
+    
+    /**
+     * Returns a scorer for a prepared query. Quantized indexes score on int8
+     * codes: the query is quantized once, then each vector costs one integer
+     * dot product. With {@code preferFullPrecision}, float vectors are used
+     * whenever they are kept.
+     */
+    private QueryScorer scorer(float[] query, boolean preferFullPrecision) {
+        if (mapped != null && (codes == null || preferFullPrecision)) {
+            return ordinal -> similarity(query, mapped.read(ordinal), 0);
+        }
+        if (codes == null || (preferFullPrecision && config.storesFullPrecision())) {
+            float[] data = vectors.data();
+            return ordinal -> similarity(query, data, vectors.offset(ordinal));
+        }
         
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
+        byte[] queryCodes = new byte[query.length];
+        float queryScale = Int8VectorStore.quantize(query, queryCodes, 0);
+        byte[] data = codes.codes();
+        if (config.normalized()) {
+            return ordinal -> kernel.dot(queryCodes, data, codes.offset(ordinal)) * queryScale * codes.scale(ordinal);
         }
         
-        if (normA == 0 || normB == 0) return 0;
-        return (float) (dotProduct / (Math.sqrt(normA) * Math.sqrt(normB)));
+        // Cosine is scale-invariant, so the per-vector scales cancel out
+        float queryNorm = Int8VectorStore.codeNorm(queryCodes, 0, queryCodes.length);
+        return ordinal -> {
+            float norm = codes.norm(ordinal);
+            if (queryNorm == 0 || norm == 0) return 0;
+            return kernel.dot(queryCodes, data, codes.offset(ordinal)) / (queryNorm * norm);
+        };
+    }
+    
+    /**
+     * Scores a prepared query against a stored vector. Normalized indexes only
+     * need the dot product; otherwise both norms are computed.
+     */
+    private float similarity(float[] query, float[] data, int offset) {
+        return config.normalized()
+            ? kernel.dot(query, data, offset)
+            : kernel.cosine(query, data, offset);
     }
     
     private long estimateSizeBytes() {
-        long vectorBytes = (long) vectors.size() * config.dimensions() * 4;
-        long chunkEstimate = chunks.stream()
-            .mapToLong(c -> c.code().length() + c.name().length() + c.file().length() + 100)
-            .sum();
-        return vectorBytes + chunkEstimate;
+        long vectorBytes = vectors.sizeBytes()
+            + (mapped != null ? mapped.sizeBytes() : 0)
+            + (codes != null ? codes.sizeBytes() : 0)
+            + (bits != null ? bits.sizeBytes() : 0);
+        return vectorBytes + EncodedChunkList.estimateSizeBytes(chunks);
+    }
+    
+    /**
+     * Scores one prepared query against stored ordinals.
+     */
+    @FunctionalInterface
+    private interface QueryScorer {
+        float score(int ordinal);
     }
     
     /**
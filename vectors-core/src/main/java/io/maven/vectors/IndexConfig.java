@@ -1,5 +1,7 @@
 package io.maven.vectors;
 
+import java.util.Objects;
+
 /**
  * Configuration for creating a VectorIndex.
  */
@@ -17,19 +19,100 @@ public record IndexConfig(
     int hnswEfConstruction,
     
     /** HNSW efSearch parameter */
-    int hnswEfSearch
+    int hnswEfSearch,
+    
+    /** Whether vectors are L2-normalized on add and scored by plain dot product */
+    boolean normalized,
+    
+    /** Encoding of stored vectors for brute-force search */
+    Quantization quantization,
+    
+    /** Whether quantized indexes also keep full-precision vectors to re-rank the best candidates */
+    boolean rerank,
+    
+    /** Whether 1-bit sign codes are kept for {@link SearchMode#BINARY} searches */
+    boolean binaryCodes
 ) {
+    public IndexConfig {
+        Objects.requireNonNull(quantization, "quantization cannot be null");
+        if (hnswM < 2) {
+            throw new IllegalArgumentException("hnswM must be >= 2: " + hnswM);
+        }
+        if (hnswEfConstruction < 1 || hnswEfSearch < 1) {
+            throw new IllegalArgumentException(String.format(
+                "hnswEfConstruction and hnswEfSearch must be > 0: %d, %d", hnswEfConstruction, hnswEfSearch
+            ));
+        }
+    }
+    
     public static IndexConfig defaultConfig() {
         return new IndexConfig(
             "microsoft/unixcoder-base",
             768,
             16,
             200,
-            50
+            50,
+            false,
+            Quantization.NONE,
+            false,
+            false
         );
     }
     
     public static IndexConfig forModel(String modelId, int dimensions) {
-        return new IndexConfig(modelId, dimensions, 16, 200, 50);
+        return new IndexConfig(modelId, dimensions, 16, 200, 50, false, Quantization.NONE, false, false);
+    }
+    
+    /**
+     * Returns a copy that normalizes vectors on add. Use this when the embedding
+     * model already emits unit-length vectors, so search can skip norm computation.
+     */
+    public IndexConfig withNormalized(boolean normalized) {
+        return new IndexConfig(modelId, dimensions, hnswM, hnswEfConstruction, hnswEfSearch,
+            normalized, quantization, rerank, binaryCodes);
+    }
+    
+    /**
+     * Returns a copy with the given HNSW graph parameters. Larger {@code m} and
+     * {@code efConstruction} give a better graph (higher recall) at the cost of
+     * build time and memory; {@code efSearch} is the default per-query search breadth.
+     */
+    public IndexConfig withHnsw(int hnswM, int hnswEfConstruction, int hnswEfSearch) {
+        return new IndexConfig(modelId, dimensions, hnswM, hnswEfConstruction, hnswEfSearch,
+            normalized, quantization, rerank, binaryCodes);
+    }
+    
+    /**
+     * Returns a copy that stores vectors with the given quantization.
+     */
+    public IndexConfig withQuantization(Quantization quantization) {
+        return new IndexConfig(modelId, dimensions, hnswM, hnswEfConstruction, hnswEfSearch,
+            normalized, quantization, rerank, binaryCodes);
+    }
+    
+    /**
+     * Returns a copy that keeps (or drops) full-precision vectors next to the
+     * quantized codes. Keeping them improves ranking at the cost of memory and file size.
+     */
+    public IndexConfig withRerank(boolean rerank) {
+        return new IndexConfig(modelId, dimensions, hnswM, hnswEfConstruction, hnswEfSearch,
+            normalized, quantization, rerank, binaryCodes);
+    }
+    
+    /**
+     * Returns a copy that also keeps (or drops) 1-bit sign codes, enabling
+     * {@link SearchMode#BINARY} at a cost of one bit per dimension.
+     */
+    public IndexConfig withBinaryCodes(boolean binaryCodes) {
+        return new IndexConfig(modelId, dimensions, hnswM, hnswEfConstruction, hnswEfSearch,
+            normalized, quantization, rerank, binaryCodes);
+    }
+    
+    /**
+     * Whether full-precision vectors are stored: always for unquantized indexes,
+     * and for quantized ones only when re-ranking.
+     */
+    boolean storesFullPrecision() {
+        return quantization == Quantization.NONE || rerank;
     }
 }
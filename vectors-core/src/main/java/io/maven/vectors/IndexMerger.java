@@ -18,7 +18,8 @@ public class IndexMerger {
      */
     public enum OutputFormat {
         IN_MEMORY,
-        HNSW
+        HNSW,
+        PQ
     }
 
     private final String targetModelId;
@@ -29,13 +30,18 @@ public class IndexMerger {
     private final Set<String> seenIds = new HashSet<>();
     private final List<VectorEntry> pendingEntries = new ArrayList<>();
     private final List<String> skippedArtifacts = new ArrayList<>();
+    private boolean allNormalized = true;
+    private Quantization quantization = Quantization.NONE;
+    private boolean rerank;
+    private boolean binaryCodes;
+    private IndexConfig baseConfig;
 
     /**
      * Creates a new IndexMerger.
      *
      * @param targetModelId The embedding model ID that all merged indexes must match
      * @param dimensions The vector dimensions
-     * @param format Output format (IN_MEMORY or HNSW)
+     * @param format Output format (IN_MEMORY, HNSW or PQ)
      * @param hnswMaxItems Maximum items for HNSW output (ignored for IN_MEMORY)
      */
     public IndexMerger(String targetModelId, int dimensions, OutputFormat format, int hnswMaxItems) {
@@ -43,6 +49,40 @@ public class IndexMerger {
         this.dimensions = dimensions;
         this.outputFormat = format;
         this.hnswMaxItems = hnswMaxItems;
+        this.baseConfig = IndexConfig.forModel(targetModelId, dimensions);
+    }
+
+    /**
+     * Sets the vector quantization of the merged index. Only IN_MEMORY output
+     * is quantized; HNSW output always stores full-precision vectors.
+     *
+     * @param quantization Vector encoding for the merged index
+     * @param rerank Whether to keep full-precision vectors to re-rank quantized results
+     */
+    public void setQuantization(Quantization quantization, boolean rerank) {
+        this.quantization = Objects.requireNonNull(quantization, "quantization cannot be null");
+        this.rerank = rerank;
+    }
+
+    /**
+     * Sets whether the merged index keeps 1-bit sign codes for
+     * {@link SearchMode#BINARY} searches (IN_MEMORY output only).
+     */
+    public void setBinaryCodes(boolean binaryCodes) {
+        this.binaryCodes = binaryCodes;
+    }
+
+    /**
+     * Sets the graph parameters of HNSW output (ignored for other formats).
+     *
+     * @param m Max connections per node
+     * @param efConstruction Build-time search breadth
+     * @param efSearch Default query-time search breadth
+     * @throws IllegalArgumentException if a parameter is out of range
+     * @see IndexConfig#withHnsw(int, int, int)
+     */
+    public void setHnswParameters(int m, int efConstruction, int efSearch) {
+        this.baseConfig = baseConfig.withHnsw(m, efConstruction, efSearch);
     }
 
     /**
@@ -61,6 +101,7 @@ public class IndexMerger {
             return false;
         }
 
+        allNormalized &= index.isNormalized();
         List<VectorEntry> entries = index.entries();
         int added = 0;
         for (VectorEntry entry : entries) {
@@ -78,21 +119,32 @@ public class IndexMerger {
 
     /**
      * Builds the final merged index from all added entries.
+     * The result is normalized only if every merged index was.
      *
      * @return The merged VectorIndex
      */
     public VectorIndex build() {
-        IndexConfig config = IndexConfig.forModel(targetModelId, dimensions);
+        IndexConfig config = baseConfig
+            .withNormalized(allNormalized && !pendingEntries.isEmpty())
+            .withQuantization(quantization)
+            .withRerank(rerank)
+            .withBinaryCodes(binaryCodes);
         VectorIndex target;
 
         if (outputFormat == OutputFormat.HNSW) {
             int maxItems = Math.max(pendingEntries.size() * 2, hnswMaxItems);
             target = VectorIndex.createHnsw(config, maxItems);
+        } else if (outputFormat == OutputFormat.PQ) {
+            target = VectorIndex.createPq(config);
         } else {
             target = VectorIndex.create(config);
         }
 
         target.addAll(pendingEntries);
+        if (target instanceof PqVectorIndex pqIndex) {
+            // Train codebooks on the full merged set
+            pqIndex.train();
+        }
         return target;
     }
 
@@ -1,6 +1,11 @@
 package io.maven.vectors;
 
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Statistics about a VectorIndex.
@@ -23,4 +28,83 @@ public record IndexStats(
     
     /** Index size in bytes */
     long sizeBytes
-) {}
+) {
+    
+    /**
+     * Counts chunks by type and distinct files. Encoded chunks are read
+     * through their keys, so their code is never decoded.
+     */
+    static IndexStats of(List<CodeChunk> chunks, String modelId, int dimensions, long sizeBytes) {
+        return of(chunks, new OrdinalBitmap(), modelId, dimensions, sizeBytes);
+    }
+    
+    /**
+     * Like {@link #of(List, String, int, long)}, leaving out the chunks at
+     * removed ordinals.
+     */
+    static IndexStats of(List<CodeChunk> chunks, OrdinalBitmap removed, String modelId, int dimensions,
+                         long sizeBytes) {
+        Map<ChunkType, Integer> byType = new EnumMap<>(ChunkType.class);
+        Set<String> files = new HashSet<>();
+        
+        for (int i = 0; i < chunks.size(); i++) {
+            if (removed.contains(i)) {
+                continue;
+            }
+            CodeChunk chunk = EncodedChunkList.keys(chunks, i);
+            byType.merge(chunk.type(), 1, Integer::sum);
+            files.add(chunk.file());
+        }
+        
+        return new IndexStats(chunks.size() - removed.cardinality(), byType, files.size(), modelId, dimensions,
+            sizeBytes);
+    }
+    
+    // ==================== Stats Section ====================
+    
+    /**
+     * Returns the length of the section {@link #writeSection} writes.
+     */
+    long sectionLength() {
+        long length = 2 * Integer.BYTES;
+        for (ChunkType type : chunksByType.keySet()) {
+            length += SectionWriter.stringSize(type.name()) + Integer.BYTES;
+        }
+        return length;
+    }
+    
+    /**
+     * Writes the counts an index file keeps for {@link VectorIndex#readStats}:
+     * the file count, then the number of types and each type's name and count.
+     */
+    void writeSection(SectionWriter out) throws IOException {
+        out.putInt(fileCount);
+        out.putInt(chunksByType.size());
+        for (Map.Entry<ChunkType, Integer> entry : chunksByType.entrySet()) {
+            out.putString(entry.getKey().name());
+            out.putInt(entry.getValue());
+        }
+    }
+    
+    /**
+     * Reads a stats section, taking the remaining fields from the file header.
+     */
+    static IndexStats readSection(SectionReader in, SectionedFile.Header header, String modelId, long sizeBytes)
+            throws IOException {
+        int fileCount = in.getInt();
+        int typeCount = in.getInt();
+        if (typeCount < 0 || typeCount > ChunkType.values().length) {
+            throw new IOException("Corrupt stats section: " + typeCount + " chunk types");
+        }
+        Map<ChunkType, Integer> byType = new EnumMap<>(ChunkType.class);
+        for (int i = 0; i < typeCount; i++) {
+            String type = in.getString();
+            try {
+                byType.put(ChunkType.valueOf(type), in.getInt());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IOException("Corrupt stats section: unknown chunk type " + type, e);
+            }
+        }
+        return new IndexStats(header.count(), byType, fileCount, modelId, header.dimensions(), sizeBytes);
+    }
+}
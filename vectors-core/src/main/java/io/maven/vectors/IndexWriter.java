@@ -0,0 +1,306 @@
+package io.maven.vectors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a brute-force index file ({@code .mvec}) entry by entry, without
+ * holding the index in memory.
+ *
+ * <p>Chunk records go straight to the file. Record offsets, codes and vectors
+ * are staged in scratch files next to it and copied in behind the chunks on
+ * {@link #close()}, which then fills in the header and section directory. Memory
+ * use is a few buffers and the set of distinct source files, however many
+ * entries are written, so an index can be larger than the heap. The file loads
+ * like a saved {@link InMemoryVectorIndex}, best through
+ * {@link VectorIndex#loadMapped(Path)}.</p>
+ *
+ * <pre>{@code
+ * try (IndexWriter writer = VectorIndex.writer(path, config)) {
+ *     for (CodeChunk chunk : chunks) {
+ *         writer.add(chunk, provider.embed(chunk.code()));
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>The file is written beside the target and moved into place when the
+ * writer is closed, so it never exists partly written and an index mapped
+ * from the target can be saved back to it.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+public final class IndexWriter implements Closeable {
+
+    private final IndexConfig config;
+    private final Path path;
+    private final Path temp;
+    private final FileChannel channel;
+    private final SectionWriter out;
+    private final List<Scratch> scratches = new ArrayList<>();
+
+    private final Scratch offsets;
+    private final Scratch scales;    // null unless quantized
+    private final Scratch codes;     // null unless quantized
+    private final Scratch binary;    // null unless config.binaryCodes()
+    private final Scratch vectors;   // null unless config.storesFullPrecision()
+
+    // Reused by add
+    private final byte[] code;
+    private final long[] bits;
+
+    private final Map<ChunkType, Integer> chunksByType = new EnumMap<>(ChunkType.class);
+    private final Set<String> files = new HashSet<>();
+    private int count;
+    private long recordBytes;
+    private boolean closed;
+
+    /**
+     * Creates the file beside {@code path} and writes everything up to the chunk records.
+     */
+    IndexWriter(Path path, IndexConfig config) throws IOException {
+        this.config = config;
+        this.path = path;
+        this.temp = SectionedFile.tempFileFor(path);
+        try {
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            boolean int8 = config.quantization() == Quantization.INT8;
+            this.offsets = scratch(directory);
+            this.scales = int8 ? scratch(directory) : null;
+            this.codes = int8 ? scratch(directory) : null;
+            this.binary = config.binaryCodes() ? scratch(directory) : null;
+            this.vectors = config.storesFullPrecision() ? scratch(directory) : null;
+            this.code = int8 ? new byte[config.dimensions()] : null;
+            this.bits = config.binaryCodes() ? new long[BinaryVectorStore.wordsFor(config.dimensions())] : null;
+
+            List<Integer> sectionIds = new ArrayList<>(List.of(
+                InMemoryVectorIndex.SECTION_INFO,
+                InMemoryVectorIndex.SECTION_CHUNKS,
+                InMemoryVectorIndex.SECTION_CHUNK_OFFSETS,
+                InMemoryVectorIndex.SECTION_STATS
+            ));
+            if (int8) {
+                sectionIds.add(InMemoryVectorIndex.SECTION_INT8);
+            }
+            if (binary != null) {
+                sectionIds.add(InMemoryVectorIndex.SECTION_BINARY);
+            }
+            if (vectors != null) {
+                sectionIds.add(InMemoryVectorIndex.SECTION_VECTORS);
+            }
+
+            this.out = new SectionWriter(channel);
+            out.begin(sectionIds);
+            out.startSection(InMemoryVectorIndex.SECTION_INFO);
+            out.putString(config.modelId());
+            out.startSection(InMemoryVectorIndex.SECTION_CHUNKS);
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a chunk with its embedding, normalized and quantized as the
+     * configuration asks.
+     *
+     * @param chunk The code chunk
+     * @param embedding The vector embedding
+     * @throws IOException if writing fails
+     */
+    public void add(CodeChunk chunk, float[] embedding) throws IOException {
+        if (embedding.length != config.dimensions()) {
+            throw new IllegalArgumentException(String.format(
+                "Embedding dimension mismatch: expected %d, got %d",
+                config.dimensions(), embedding.length
+            ));
+        }
+        float[] vector = config.normalized() ? VectorMath.normalize(embedding.clone()) : embedding;
+
+        writeChunk(chunk);
+        if (codes != null) {
+            writeInt8(code, 0, Int8VectorStore.quantize(vector, code, 0));
+        }
+        if (binary != null) {
+            BinaryVectorStore.encode(vector, bits, 0);
+            writeBinary(bits, 0);
+        }
+        if (vectors != null) {
+            writeVector(vector, 0);
+        }
+    }
+
+    /**
+     * Returns the number of entries written so far.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Copies the staged sections in behind the chunks, writes the header and
+     * moves the file into place. A failed close leaves any previous file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            checkWritten(scales, "int8 codes");
+            checkWritten(binary, "binary codes");
+            checkWritten(vectors, "vectors");
+
+            offsets.out.putLong(recordBytes);
+            out.startSection(InMemoryVectorIndex.SECTION_CHUNK_OFFSETS);
+            offsets.copyTo(out);
+
+            out.startSection(InMemoryVectorIndex.SECTION_STATS);
+            new IndexStats(count, chunksByType, files.size(), config.modelId(), config.dimensions(), 0)
+                .writeSection(out);
+
+            if (codes != null) {
+                out.startSection(InMemoryVectorIndex.SECTION_INT8);
+                scales.copyTo(out);
+                codes.copyTo(out);
+            }
+            if (binary != null) {
+                out.startSection(InMemoryVectorIndex.SECTION_BINARY);
+                binary.copyTo(out);
+            }
+            if (vectors != null) {
+                out.startSection(InMemoryVectorIndex.SECTION_VECTORS);
+                vectors.copyTo(out);
+            }
+
+            out.finish(new SectionedFile.Header(
+                InMemoryVectorIndex.MAGIC,
+                InMemoryVectorIndex.FORMAT_VERSION,
+                config.dimensions(),
+                count,
+                config.modelId().hashCode(),
+                InMemoryVectorIndex.flags(config)
+            ));
+            channel.force(false);
+            closeFiles();
+            SectionedFile.replace(temp, path);
+        } finally {
+            closeFiles();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // ==================== Stored Form ====================
+
+    /**
+     * Starts an entry in its stored form, for saving an index without
+     * preparing its vectors again: the chunk is followed by one of the calls
+     * below for each store the configuration keeps, with values already
+     * normalized and quantized.
+     */
+    void writeChunk(CodeChunk chunk) throws IOException {
+        checkOpen();
+        byte[] record = ChunkCodec.encode(chunk);
+        offsets.out.putLong(recordBytes);
+        out.put(record, 0, record.length);
+        recordBytes += record.length;
+        count++;
+        chunksByType.merge(chunk.type(), 1, Integer::sum);
+        files.add(chunk.file());
+    }
+
+    void writeInt8(byte[] source, int offset, float scale) throws IOException {
+        checkOpen();
+        scales.out.putFloat(scale);
+        codes.out.put(source, offset, config.dimensions());
+        scales.written++;
+    }
+
+    void writeBinary(long[] source, int offset) throws IOException {
+        checkOpen();
+        binary.out.putLongs(source, offset, bits.length);
+        binary.written++;
+    }
+
+    void writeVector(float[] source, int offset) throws IOException {
+        checkOpen();
+        vectors.out.putFloats(source, offset, config.dimensions());
+        vectors.written++;
+    }
+
+    // ==================== Internals ====================
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+    }
+
+    private void checkWritten(Scratch scratch, String what) {
+        if (scratch != null && scratch.written != count) {
+            throw new IllegalStateException(String.format(
+                "%d chunks written but %d %s", count, scratch.written, what
+            ));
+        }
+    }
+
+    private Scratch scratch(Path directory) throws IOException {
+        Scratch scratch = new Scratch(Files.createTempFile(directory, ".mvec-", ".tmp"));
+        scratches.add(scratch);
+        return scratch;
+    }
+
+    private void closeFiles() throws IOException {
+        IOException failure = null;
+        for (Scratch scratch : scratches) {
+            try {
+                scratch.channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A section staged in a scratch file, deleted once closed.
+     */
+    private static final class Scratch {
+
+        final FileChannel channel;
+        final SectionWriter out;
+        int written;
+
+        Scratch(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+            this.out = new SectionWriter(channel);
+        }
+
+        void copyTo(SectionWriter target) throws IOException {
+            out.flush();
+            channel.position(0);
+            target.putAll(channel);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Growable store of int8-quantized vectors, packed like {@link FlatVectorStore}.
+ *
+ * <p>Each vector is quantized symmetrically with its own scale:
+ * {@code code[i] = round(x[i] / scale)} where {@code scale = max|x| / 127}.
+ * A per-vector scale (rather than per-dimension min/scale) keeps scoring a pure
+ * integer dot product: {@code dot(x, y) ~= dot(codeX, codeY) * scaleX * scaleY}.
+ * The Euclidean norm of each code vector is cached so cosine similarity needs
+ * no extra pass (the scales cancel out).</p>
+ *
+ * <p>Not thread-safe for concurrent writes.</p>
+ */
+final class Int8VectorStore {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // Largest array most JVMs will allocate
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int dimensions;
+    private byte[] codes;
+    private float[] scales;
+    private float[] norms;
+    private int size;
+
+    Int8VectorStore(int dimensions) {
+        this(dimensions, DEFAULT_CAPACITY);
+    }
+
+    Int8VectorStore(int dimensions, int initialCapacity) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be > 0");
+        }
+        this.dimensions = dimensions;
+        int capacity = Math.min(Math.max(initialCapacity, 1), maxVectors());
+        this.codes = new byte[capacity * dimensions];
+        this.scales = new float[capacity];
+        this.norms = new float[capacity];
+    }
+
+    /**
+     * Quantizes a vector into {@code codes[offset .. offset + vector.length)}.
+     *
+     * @return The scale that maps codes back to values
+     */
+    static float quantize(float[] vector, byte[] codes, int offset) {
+        float maxAbs = 0;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        if (maxAbs == 0) {
+            Arrays.fill(codes, offset, offset + vector.length, (byte) 0);
+            return 0;
+        }
+
+        float scale = maxAbs / 127f;
+        for (int i = 0; i < vector.length; i++) {
+            codes[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    /**
+     * Quantizes and appends a vector, returning its ordinal.
+     */
+    int add(float[] vector) {
+        checkDimensions(vector.length);
+        ensureCapacity(size + 1);
+        scales[size] = quantize(vector, codes, size * dimensions);
+        norms[size] = codeNorm(codes, size * dimensions, dimensions);
+        return size++;
+    }
+
+    /**
+     * Appends already-quantized codes from {@code source[offset .. offset + dimensions)}.
+     */
+    int add(byte[] source, int offset, float scale) {
+        ensureCapacity(size + 1);
+        System.arraycopy(source, offset, codes, size * dimensions, dimensions);
+        scales[size] = scale;
+        norms[size] = codeNorm(codes, size * dimensions, dimensions);
+        return size++;
+    }
+
+    /**
+     * Drops the codes at the given ordinals and moves the rest down, keeping
+     * their order.
+     */
+    void removeAll(OrdinalBitmap ordinals) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!ordinals.contains(i)) {
+                System.arraycopy(codes, i * dimensions, codes, kept * dimensions, dimensions);
+                scales[kept] = scales[i];
+                norms[kept] = norms[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Reconstructs an approximation of the vector at the given ordinal.
+     */
+    float[] dequantize(int ordinal) {
+        checkOrdinal(ordinal);
+        float[] vector = new float[dimensions];
+        int offset = ordinal * dimensions;
+        float scale = scales[ordinal];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = codes[offset + i] * scale;
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the start of the vector in {@link #codes()}.
+     */
+    int offset(int ordinal) {
+        return ordinal * dimensions;
+    }
+
+    /**
+     * Returns the backing code array. Only the first {@code size() * dimensions()}
+     * elements are meaningful, and the reference changes when the store grows.
+     */
+    byte[] codes() {
+        return codes;
+    }
+
+    float scale(int ordinal) {
+        return scales[ordinal];
+    }
+
+    /**
+     * Returns the Euclidean norm of the code vector (not of the original vector).
+     */
+    float norm(int ordinal) {
+        return norms[ordinal];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the number of bytes occupied by codes, scales and cached norms.
+     */
+    long sizeBytes() {
+        return (long) size * dimensions + (long) size * Float.BYTES * 2;
+    }
+
+    static float codeNorm(byte[] codes, int offset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += codes[offset + i] * codes[offset + i];
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private void ensureCapacity(int vectors) {
+        if (vectors <= scales.length) {
+            return;
+        }
+        int maxVectors = maxVectors();
+        if (vectors > maxVectors) {
+            throw new IllegalStateException(String.format(
+                "Vector store full: at most %d vectors of %d dimensions fit in one array",
+                maxVectors, dimensions
+            ));
+        }
+        int grown = (int) Math.min(Math.max((long) scales.length * 2, vectors), maxVectors);
+        codes = Arrays.copyOf(codes, grown * dimensions);
+        scales = Arrays.copyOf(scales, grown);
+        norms = Arrays.copyOf(norms, grown);
+    }
+
+    private int maxVectors() {
+        return MAX_ARRAY_LENGTH / dimensions;
+    }
+
+    private void checkDimensions(int length) {
+        if (length != dimensions) {
+            throw new IllegalArgumentException(String.format(
+                "Vector dimension mismatch: expected %d, got %d", dimensions, length
+            ));
+        }
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("ordinal " + ordinal + " out of range [0, " + size + ")");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.maven.vectors;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only store of fixed-width float vectors memory-mapped from an index file.
+ *
+ * <p>The vectors stay in the OS page cache, which is shared by every process
+ * mapping the same file, and the JVM heap holds only the buffer objects. Files
+ * larger than 2 GB are mapped as several segments, each holding whole vectors.
+ * Vectors are read with bulk copies into a per-thread buffer, which for the
+ * little-endian layout on little-endian CPUs is a plain memory copy, and are
+ * then scored with the regular {@link SimilarityKernel}.</p>
+ *
+ * <p>A mapping stays valid after its channel is closed and is released when the
+ * store is garbage collected.</p>
+ */
+final class MappedVectorStore {
+
+    // Largest region one MappedByteBuffer can address
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    private final int dimensions;
+    private final int size;
+    private final int vectorsPerSegment;
+    private final FloatBuffer[] segments;
+    private final ThreadLocal<float[]> buffer;
+
+    private MappedVectorStore(int dimensions, int size, int vectorsPerSegment, FloatBuffer[] segments) {
+        this.dimensions = dimensions;
+        this.size = size;
+        this.vectorsPerSegment = vectorsPerSegment;
+        this.segments = segments;
+        this.buffer = ThreadLocal.withInitial(() -> new float[dimensions]);
+    }
+
+    /**
+     * Maps {@code count} vectors stored contiguously from {@code offset}.
+     *
+     * @param order Byte order of the stored floats
+     */
+    static MappedVectorStore map(FileChannel channel, long offset, int count, int dimensions, ByteOrder order)
+            throws IOException {
+        long vectorBytes = (long) dimensions * Float.BYTES;
+        long length = count * vectorBytes;
+        if (offset < 0 || offset + length > channel.size()) {
+            throw new IOException(String.format(
+                "Vector section [%d, %d) exceeds file size %d", offset, offset + length, channel.size()
+            ));
+        }
+
+        int vectorsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / vectorBytes);
+        int segmentCount = (int) ((count + (long) vectorsPerSegment - 1) / vectorsPerSegment);
+        FloatBuffer[] segments = new FloatBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            int vectors = Math.min(vectorsPerSegment, count - s * vectorsPerSegment);
+            long start = offset + (long) s * vectorsPerSegment * vectorBytes;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, vectors * vectorBytes)
+                .order(order)
+                .asFloatBuffer();
+        }
+        return new MappedVectorStore(dimensions, count, vectorsPerSegment, segments);
+    }
+
+    /**
+     * Copies the vector at the given ordinal into this thread's buffer and returns
+     * it. The buffer is overwritten by the next read on the same thread.
+     */
+    float[] read(int ordinal) {
+        return read(ordinal, buffer.get());
+    }
+
+    /**
+     * Returns a copy of the vector at the given ordinal.
+     */
+    float[] get(int ordinal) {
+        return read(ordinal, new float[dimensions]);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the number of mapped (off-heap) bytes.
+     */
+    long sizeBytes() {
+        return (long) size * dimensions * Float.BYTES;
+    }
+
+    private float[] read(int ordinal, float[] target) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("ordinal " + ordinal + " out of range [0, " + size + ")");
+        }
+        int segment = ordinal / vectorsPerSegment;
+        int index = (ordinal - segment * vectorsPerSegment) * dimensions;
+        segments[segment].get(index, target, 0, dimensions);
+        return target;
+    }
+}
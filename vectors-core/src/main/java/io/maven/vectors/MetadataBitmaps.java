@@ -0,0 +1,138 @@
+package io.maven.vectors;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Per-value ordinal bitmaps over the filterable chunk fields: one bitmap per
+ * chunk type, per {@code maven.artifact} coordinate, per parent class and per
+ * file, maintained as chunks are added.
+ *
+ * <p>{@link #resolve} turns a {@link ChunkFilter} expression into the ordinals
+ * it can match without touching any chunk. A merged index over hundreds of
+ * dependencies can then score only the chunks of the artifacts asked for.</p>
+ */
+final class MetadataBitmaps {
+
+    /**
+     * Ordinals a filter may match.
+     *
+     * @param bitmap Candidate ordinals, or null for every ordinal; shared, do not modify
+     * @param exact Whether every candidate matches, so the filter need not be tested
+     */
+    record Candidates(OrdinalBitmap bitmap, boolean exact) {
+    }
+
+    private static final Candidates UNRESOLVED = new Candidates(null, false);
+
+    private final Map<ChunkFilters.Field, Map<String, OrdinalBitmap>> bitmaps =
+        new EnumMap<>(ChunkFilters.Field.class);
+    private int size;
+
+    MetadataBitmaps() {
+        for (ChunkFilters.Field field : ChunkFilters.Field.values()) {
+            bitmaps.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Records the field values of the chunk stored at {@code ordinal}.
+     */
+    void add(int ordinal, CodeChunk chunk) {
+        for (Map.Entry<ChunkFilters.Field, Map<String, OrdinalBitmap>> entry : bitmaps.entrySet()) {
+            String value = entry.getKey().valueOf(chunk);
+            if (value != null) {
+                entry.getValue().computeIfAbsent(value, v -> new OrdinalBitmap()).add(ordinal);
+            }
+        }
+        size = Math.max(size, ordinal + 1);
+    }
+
+    /**
+     * Resolves a filter to candidate ordinals. Structured filters from
+     * {@link ChunkFilter}'s factories resolve exactly; other filters leave
+     * every ordinal as a candidate, and narrow an enclosing {@code and} only
+     * through its structured side.
+     */
+    Candidates resolve(ChunkFilter filter) {
+        if (filter instanceof ChunkFilters.Equals equals) {
+            OrdinalBitmap bitmap = bitmaps.get(equals.field()).get(equals.value());
+            return new Candidates(bitmap != null ? bitmap : new OrdinalBitmap(), true);
+        }
+        if (filter instanceof ChunkFilters.Matches matches) {
+            OrdinalBitmap union = new OrdinalBitmap();
+            for (Map.Entry<String, OrdinalBitmap> entry : bitmaps.get(matches.field()).entrySet()) {
+                if (matches.condition().test(entry.getKey())) {
+                    union = union.or(entry.getValue());
+                }
+            }
+            return new Candidates(union, true);
+        }
+        if (filter instanceof ChunkFilters.And and) {
+            Candidates left = resolve(and.left());
+            Candidates right = resolve(and.right());
+            OrdinalBitmap bitmap;
+            if (left.bitmap() == null || right.bitmap() == null) {
+                bitmap = left.bitmap() != null ? left.bitmap() : right.bitmap();
+            } else {
+                bitmap = left.bitmap().and(right.bitmap());
+            }
+            return new Candidates(bitmap, left.exact() && right.exact());
+        }
+        if (filter instanceof ChunkFilters.Or or) {
+            Candidates left = resolve(or.left());
+            Candidates right = resolve(or.right());
+            if (left.bitmap() == null || right.bitmap() == null) {
+                return UNRESOLVED;
+            }
+            return new Candidates(left.bitmap().or(right.bitmap()), left.exact() && right.exact());
+        }
+        if (filter instanceof ChunkFilters.Not not) {
+            Candidates inner = resolve(not.filter());
+            if (!inner.exact()) {
+                return UNRESOLVED;
+            }
+            return new Candidates(OrdinalBitmap.range(size).andNot(inner.bitmap()), true);
+        }
+        return UNRESOLVED;
+    }
+
+    /**
+     * Returns the entries at the live ordinals matching {@code filter}, in
+     * ordinal order. Only the candidates left by the bitmaps are decoded, and
+     * only matching ones have their vector fetched.
+     *
+     * @param removed Ordinals to skip
+     * @param vectors Returns a copy of the vector at an ordinal
+     */
+    List<VectorEntry> entries(ChunkFilter filter, List<CodeChunk> chunks, OrdinalBitmap removed,
+                              IntFunction<float[]> vectors) {
+        Candidates candidates = resolve(filter);
+        OrdinalBitmap bitmap = candidates.bitmap() != null ? candidates.bitmap() : OrdinalBitmap.range(chunks.size());
+        List<VectorEntry> result = new ArrayList<>();
+        for (int ordinal : bitmap.andNot(removed).toArray()) {
+            CodeChunk chunk = chunks.get(ordinal);
+            if (candidates.exact() || filter.test(chunk)) {
+                result.add(new VectorEntry(chunk, vectors.apply(ordinal)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the approximate heap footprint of all bitmaps.
+     */
+    long sizeBytes() {
+        long bytes = 0;
+        for (Map<String, OrdinalBitmap> values : bitmaps.values()) {
+            for (Map.Entry<String, OrdinalBitmap> entry : values.entrySet()) {
+                bytes += entry.getKey().length() * 2L + entry.getValue().sizeBytes();
+            }
+        }
+        return bytes;
+    }
+}
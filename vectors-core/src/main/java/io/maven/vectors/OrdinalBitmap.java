@@ -0,0 +1,357 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of chunk ordinals in the style of a roaring bitmap.
+ *
+ * <p>Ordinals are split by their high 16 bits into containers of up to 65536
+ * values. A container holds a sorted {@code char[]} while it has at most
+ * {@value #ARRAY_MAX} values and switches to a 1024-word bitset beyond that, so a
+ * file with five chunks costs a few bytes while a chunk type covering half the
+ * index costs one bit per ordinal. Containers are looked up by direct index and
+ * membership is a word test or a short binary search.</p>
+ *
+ * <p>Not thread-safe for writes; concurrent reads are safe.</p>
+ */
+final class OrdinalBitmap {
+
+    // Above this many values a container uses a bitset (8 KB either way)
+    private static final int ARRAY_MAX = 4_096;
+    private static final int BITSET_WORDS = 1_024;
+
+    private Container[] containers = new Container[0];
+    private int cardinality;
+
+    /**
+     * Returns a bitmap holding every ordinal in {@code [0, size)}.
+     */
+    static OrdinalBitmap range(int size) {
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        int highs = (size + 0xFFFF) >>> 16;
+        bitmap.containers = new Container[highs];
+        for (int high = 0; high < highs; high++) {
+            int values = Math.min(size - (high << 16), 1 << 16);
+            long[] bits = new long[BITSET_WORDS];
+            Arrays.fill(bits, 0, values >>> 6, -1L);
+            if ((values & 63) != 0) {
+                bits[values >>> 6] = (1L << values) - 1;
+            }
+            bitmap.containers[high] = Container.ofBits(bits, values);
+        }
+        bitmap.cardinality = Math.max(size, 0);
+        return bitmap;
+    }
+
+    /**
+     * Adds an ordinal. Adding in increasing order, as indexes do, is the fast path.
+     */
+    void add(int ordinal) {
+        int high = ordinal >>> 16;
+        if (high >= containers.length) {
+            containers = Arrays.copyOf(containers, Math.max(high + 1, containers.length * 2));
+        }
+        Container container = containers[high];
+        if (container == null) {
+            container = new Container();
+            containers[high] = container;
+        }
+        if (container.add((char) ordinal)) {
+            cardinality++;
+        }
+    }
+
+    boolean contains(int ordinal) {
+        int high = ordinal >>> 16;
+        Container container = high < containers.length ? containers[high] : null;
+        return container != null && container.contains((char) ordinal);
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns the ordinals in both bitmaps.
+     */
+    OrdinalBitmap and(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        int highs = Math.min(containers.length, other.containers.length);
+        result.containers = new Container[highs];
+        for (int high = 0; high < highs; high++) {
+            Container a = containers[high];
+            Container b = other.containers[high];
+            if (a != null && b != null) {
+                result.set(high, Container.and(a, b));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals in either bitmap.
+     */
+    OrdinalBitmap or(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        int highs = Math.max(containers.length, other.containers.length);
+        result.containers = new Container[highs];
+        for (int high = 0; high < highs; high++) {
+            Container a = high < containers.length ? containers[high] : null;
+            Container b = high < other.containers.length ? other.containers[high] : null;
+            if (a == null || b == null) {
+                Container only = a != null ? a : b;
+                result.set(high, only != null ? only.copy() : null);
+            } else {
+                result.set(high, Container.or(a, b));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals in this bitmap but not in {@code other}.
+     */
+    OrdinalBitmap andNot(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        result.containers = new Container[containers.length];
+        for (int high = 0; high < containers.length; high++) {
+            Container a = containers[high];
+            if (a == null) {
+                continue;
+            }
+            Container b = high < other.containers.length ? other.containers[high] : null;
+            result.set(high, b == null ? a.copy() : Container.andNot(a, b));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals in ascending order.
+     */
+    int[] toArray() {
+        int[] ordinals = new int[cardinality];
+        int count = 0;
+        for (int high = 0; high < containers.length; high++) {
+            Container container = containers[high];
+            if (container != null) {
+                count = container.copyTo(high << 16, ordinals, count);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Returns the approximate heap footprint of the containers.
+     */
+    long sizeBytes() {
+        long bytes = (long) containers.length * 8;
+        for (Container container : containers) {
+            if (container != null) {
+                bytes += container.sizeBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void set(int high, Container container) {
+        if (container != null && container.cardinality > 0) {
+            containers[high] = container;
+            cardinality += container.cardinality;
+        }
+    }
+
+    /**
+     * The low 16 bits of the ordinals sharing one high half: a sorted array or a bitset.
+     */
+    private static final class Container {
+        private char[] values;
+        private long[] bits;
+        private int cardinality;
+
+        Container() {
+            this.values = new char[4];
+        }
+
+        static Container ofBits(long[] bits, int cardinality) {
+            Container container = new Container();
+            container.values = null;
+            container.bits = bits;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        boolean add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                int word = low >>> 6;
+                if ((bits[word] & mask) != 0) {
+                    return false;
+                }
+                bits[word] |= mask;
+                cardinality++;
+                return true;
+            }
+            int position = cardinality > 0 && values[cardinality - 1] >= low
+                ? Arrays.binarySearch(values, 0, cardinality, low)
+                : -(cardinality + 1);
+            if (position >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_MAX) {
+                toBits();
+                return add(low);
+            }
+            int insert = -position - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, insert, values, insert + 1, cardinality - insert);
+            values[insert] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean contains(char low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.bits != null && b.bits != null) {
+                long[] words = new long[BITSET_WORDS];
+                int count = 0;
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    words[i] = a.bits[i] & b.bits[i];
+                    count += Long.bitCount(words[i]);
+                }
+                return ofBits(words, count);
+            }
+            // Probe the array side against the other
+            Container array = a.bits == null ? a : b;
+            Container other = array == a ? b : a;
+            Container result = new Container();
+            for (int i = 0; i < array.cardinality; i++) {
+                if (other.contains(array.values[i])) {
+                    result.add(array.values[i]);
+                }
+            }
+            return result;
+        }
+
+        static Container or(Container a, Container b) {
+            if (a.bits == null && b.bits == null && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                // Merge two sorted arrays
+                char[] merged = new char[a.cardinality + b.cardinality];
+                int i = 0;
+                int j = 0;
+                int count = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    char next;
+                    if (j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                        next = a.values[i++];
+                    } else if (i == a.cardinality || b.values[j] < a.values[i]) {
+                        next = b.values[j++];
+                    } else {
+                        next = a.values[i++];
+                        j++;
+                    }
+                    merged[count++] = next;
+                }
+                Container result = new Container();
+                result.values = merged;
+                result.cardinality = count;
+                return result;
+            }
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            int count = 0;
+            for (int i = 0; i < BITSET_WORDS; i++) {
+                words[i] |= other[i];
+                count += Long.bitCount(words[i]);
+            }
+            return ofBits(words, count);
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a.bits != null && b.bits != null) {
+                long[] words = new long[BITSET_WORDS];
+                int count = 0;
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    words[i] = a.bits[i] & ~b.bits[i];
+                    count += Long.bitCount(words[i]);
+                }
+                return ofBits(words, count);
+            }
+            if (a.bits != null) {
+                long[] words = a.bits.clone();
+                for (int i = 0; i < b.cardinality; i++) {
+                    char low = b.values[i];
+                    words[low >>> 6] &= ~(1L << low);
+                }
+                int count = 0;
+                for (long word : words) {
+                    count += Long.bitCount(word);
+                }
+                return ofBits(words, count);
+            }
+            Container result = new Container();
+            for (int i = 0; i < a.cardinality; i++) {
+                if (!b.contains(a.values[i])) {
+                    result.add(a.values[i]);
+                }
+            }
+            return result;
+        }
+
+        Container copy() {
+            Container copy = new Container();
+            copy.values = values != null ? Arrays.copyOf(values, cardinality) : null;
+            copy.bits = bits != null ? bits.clone() : null;
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        /**
+         * Writes {@code base + value} for every value, ascending, and returns the next free slot.
+         */
+        int copyTo(int base, int[] out, int offset) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    out[offset++] = base + values[i];
+                }
+                return offset;
+            }
+            for (int word = 0; word < BITSET_WORDS; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    out[offset++] = base + (word << 6) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                }
+            }
+            return offset;
+        }
+
+        long sizeBytes() {
+            return 32 + (bits != null ? (long) bits.length * 8 : (long) values.length * 2);
+        }
+
+        private long[] toWords() {
+            if (bits != null) {
+                return bits.clone();
+            }
+            long[] words = new long[BITSET_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                char low = values[i];
+                words[low >>> 6] |= 1L << low;
+            }
+            return words;
+        }
+
+        private void toBits() {
+            bits = toWords();
+            values = null;
+        }
+    }
+}
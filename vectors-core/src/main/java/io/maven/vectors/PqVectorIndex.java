@@ -0,0 +1,712 @@
+package io.maven.vectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Product-quantized implementation of VectorIndex for very large indexes.
+ *
+ * <p>Each vector is L2-normalized and stored as one byte per subspace (by default
+ * one byte per 8 dimensions, 1/32 of the float32 size). Search is a brute-force
+ * scan using asymmetric distance computation: the query stays at full precision
+ * and is scored against codes through a per-query lookup table. Scores
+ * approximate cosine similarity.</p>
+ *
+ * <p>Codebooks are trained with k-means over the vectors added before the first
+ * search or save (or an explicit {@link #train()}); until then vectors are held at
+ * full precision. Vectors added after training are encoded with the existing
+ * codebooks, so add a representative set first.</p>
+ */
+public class PqVectorIndex implements VectorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PqVectorIndex.class);
+
+    // Format constants
+    private static final byte[] MAGIC = "MVPQ".getBytes();
+    private static final short FORMAT_VERSION = 1;
+
+    // Sections in file order, see SectionedFile
+    private static final int SECTION_INFO = 1;           // model id, then subspaces and centroids
+    private static final int SECTION_CHUNKS = 2;         // binary chunk records, see ChunkCodec
+    private static final int SECTION_CHUNK_OFFSETS = 3;  // count + 1 record offsets within SECTION_CHUNKS
+    private static final int SECTION_STATS = 7;          // file count and chunk counts by type
+    private static final int SECTION_CODEBOOKS = 4;      // float32 centroids, subspace by subspace
+    private static final int SECTION_CODES = 5;          // `subspaces` code bytes per vector
+
+    private static final int DEFAULT_CAPACITY = 1_024;
+
+    // Share of stored codes that may be removed before they are compacted
+    private static final double COMPACTION_THRESHOLD = 0.25;
+
+    private final IndexConfig config;
+    private final int subspaces;
+    private List<CodeChunk> chunks;
+    private final Map<String, Integer> idToIndex;
+    private MetadataBitmaps bitmaps = new MetadataBitmaps();
+
+    // Ordinals of removed entries, skipped by scans until the next compaction
+    private OrdinalBitmap removed = new OrdinalBitmap();
+
+    // Full-precision vectors waiting for training (null once trained). Training
+    // publishes the codes, then the quantizer, then clears the pending vectors.
+    private volatile FlatVectorStore pending;
+    private volatile ProductQuantizer quantizer;
+    private byte[] codes;
+
+    // Embedding model for query-time embedding (optional)
+    private EmbeddingProvider embeddingProvider;
+
+    public PqVectorIndex(IndexConfig config) {
+        this(config, ProductQuantizer.defaultSubspaces(config.dimensions()));
+    }
+
+    /**
+     * Creates an index that stores {@code subspaces} bytes per vector.
+     *
+     * @param subspaces Number of subspaces; must divide the dimensions
+     */
+    public PqVectorIndex(IndexConfig config, int subspaces) {
+        if (subspaces < 1 || config.dimensions() % subspaces != 0) {
+            throw new IllegalArgumentException(String.format(
+                "subspaces must divide dimensions: %d subspaces for %d dimensions",
+                subspaces, config.dimensions()
+            ));
+        }
+        // Codes approximate unit vectors, so scores are always dot products
+        this.config = config.withNormalized(true);
+        this.subspaces = subspaces;
+        this.chunks = new ArrayList<>();
+        this.idToIndex = new HashMap<>();
+        this.pending = new FlatVectorStore(config.dimensions());
+        this.codes = new byte[0];
+    }
+
+    /**
+     * Sets the embedding provider for query-time text embedding.
+     */
+    public void setEmbeddingProvider(EmbeddingProvider provider) {
+        this.embeddingProvider = provider;
+    }
+
+    /**
+     * Trains the codebooks on the vectors added so far and encodes them.
+     * Does nothing if the index is already trained or empty.
+     */
+    public synchronized void train() {
+        if (quantizer != null || pending.size() == 0) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ProductQuantizer trained = ProductQuantizer.train(pending, subspaces);
+        byte[] encoded = new byte[Math.max(pending.size(), DEFAULT_CAPACITY) * subspaces];
+        float[] vector = new float[config.dimensions()];
+        for (int i = 0; i < pending.size(); i++) {
+            System.arraycopy(pending.data(), pending.offset(i), vector, 0, vector.length);
+            trained.encode(vector, encoded, i * subspaces);
+        }
+        // Codes first: readers that see the quantizer index into them
+        codes = encoded;
+        quantizer = trained;
+        pending = null;
+
+        log.info("Trained PQ codebooks: {} vectors, {} subspaces x {} centroids in {} ms",
+            chunks.size(), subspaces, trained.centroids(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns whether the codebooks have been trained.
+     */
+    public boolean isTrained() {
+        return quantizer != null;
+    }
+
+    // ==================== Modification ====================
+
+    @Override
+    public void add(CodeChunk chunk, float[] embedding) {
+        if (embedding.length != config.dimensions()) {
+            throw new IllegalArgumentException(String.format(
+                "Embedding dimension mismatch: expected %d, got %d",
+                config.dimensions(), embedding.length
+            ));
+        }
+
+        float[] vector = VectorMath.normalize(embedding.clone());
+        int index = chunks.size();
+        if (quantizer == null) {
+            pending.add(vector);
+        } else {
+            ensureCapacity(index + 1);
+            quantizer.encode(vector, codes, index * subspaces);
+        }
+        chunks.add(chunk);
+        idToIndex.put(chunk.id(), index);
+        bitmaps.add(index, chunk);
+
+        log.debug("Added chunk: {} (index={})", chunk.name(), index);
+    }
+
+    @Override
+    public void addAll(List<VectorEntry> entries) {
+        for (VectorEntry entry : entries) {
+            add(entry.chunk(), entry.embedding());
+        }
+    }
+
+    @Override
+    public void merge(VectorIndex other) {
+        // Verify model compatibility
+        if (!Objects.equals(getModelId(), other.getModelId())) {
+            throw new IncompatibleModelException(getModelId(), other.getModelId());
+        }
+
+        for (VectorEntry entry : other.entries()) {
+            // Skip duplicates
+            if (!idToIndex.containsKey(entry.chunk().id())) {
+                add(entry.chunk(), entry.embedding());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The code is marked removed in a tombstone bitmap that scans skip.
+     * Once removed entries make up a quarter of the codes, they are compacted
+     * and the chunks are renumbered.</p>
+     */
+    @Override
+    public boolean remove(String id) {
+        Integer ordinal = idToIndex.remove(id);
+        if (ordinal == null) {
+            return false;
+        }
+        removed.add(ordinal);
+        if (removed.cardinality() > chunks.size() * COMPACTION_THRESHOLD) {
+            compact();
+        }
+
+        log.debug("Removed chunk: {} (index={})", id, ordinal);
+        return true;
+    }
+
+    /**
+     * Drops removed entries from the codes (or the vectors awaiting training),
+     * then rebuilds the id lookup and metadata bitmaps for the new ordinals.
+     */
+    private synchronized void compact() {
+        if (removed.cardinality() == 0) {
+            return;
+        }
+        if (quantizer == null) {
+            pending.removeAll(removed);
+        } else {
+            int kept = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                if (!removed.contains(i)) {
+                    System.arraycopy(codes, i * subspaces, codes, kept * subspaces, subspaces);
+                    kept++;
+                }
+            }
+        }
+        chunks = EncodedChunkList.removeAll(chunks, removed);
+        removed = new OrdinalBitmap();
+
+        idToIndex.clear();
+        bitmaps = new MetadataBitmaps();
+        for (int i = 0; i < chunks.size(); i++) {
+            CodeChunk chunk = chunks.get(i);
+            idToIndex.put(chunk.id(), i);
+            bitmaps.add(i, chunk);
+        }
+    }
+
+    // ==================== Search ====================
+
+    @Override
+    public List<SearchResult> search(String query, int topK) {
+        if (embeddingProvider == null) {
+            throw new IllegalStateException("No embedding provider configured for text queries");
+        }
+
+        float[] queryVector = embeddingProvider.embed(query);
+        return search(queryVector, topK);
+    }
+
+    @Override
+    public List<SearchResult> search(float[] queryVector, int topK) {
+        return search(queryVector, topK, (ChunkFilter) null);
+    }
+
+    @Override
+    public List<SearchResult> searchByType(String query, ChunkType type, int topK) {
+        if (embeddingProvider == null) {
+            throw new IllegalStateException("No embedding provider configured for text queries");
+        }
+
+        float[] queryVector = embeddingProvider.embed(query);
+        return search(queryVector, topK, ChunkFilter.ofType(type));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Every code is scanned, so only the filter applies.</p>
+     */
+    @Override
+    public List<SearchResult> search(float[] queryVector, int topK, SearchOptions options) {
+        if (options.mode() != SearchMode.DEFAULT) {
+            throw new UnsupportedOperationException("PqVectorIndex does not support search mode " + options.mode());
+        }
+        return search(queryVector, topK, options.filter());
+    }
+
+    /**
+     * ADC scan that keeps only the best {@code topK} candidates. Filters that
+     * resolve to metadata bitmaps scan only the ordinals set there.
+     *
+     * @param filter Chunks to consider, or null for all
+     */
+    private List<SearchResult> search(float[] queryVector, int topK, ChunkFilter filter) {
+        if (chunks.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        if (queryVector.length != config.dimensions()) {
+            throw new IllegalArgumentException(String.format(
+                "Query dimension mismatch: expected %d, got %d",
+                config.dimensions(), queryVector.length
+            ));
+        }
+        train();
+
+        float[] table = quantizer.lookupTable(VectorMath.normalize(queryVector.clone()));
+        int[] selected = null;
+        IntPredicate residual = null;
+        if (filter != null) {
+            MetadataBitmaps.Candidates candidates = bitmaps.resolve(filter);
+            if (candidates.bitmap() != null) {
+                selected = candidates.bitmap().andNot(removed).toArray();
+            }
+            if (!candidates.exact()) {
+                residual = i -> filter.test(chunks.get(i));
+            }
+        }
+        if (selected == null && removed.cardinality() > 0) {
+            IntPredicate live = i -> !removed.contains(i);
+            residual = residual != null ? live.and(residual) : live;
+        }
+
+        int count = selected != null ? selected.length : chunks.size();
+        TopKCollector collector = new TopKCollector(Math.min(topK, chunks.size()));
+        for (int i = 0; i < count; i++) {
+            int ordinal = selected != null ? selected[i] : i;
+            if (residual == null || residual.test(ordinal)) {
+                collector.collect(ordinal, quantizer.score(table, codes, ordinal * subspaces));
+            }
+        }
+
+        int[] ordinals = new int[collector.size()];
+        float[] scores = new float[ordinals.length];
+        int found = collector.drainTo(ordinals, scores);
+
+        List<SearchResult> results = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            CodeChunk chunk = chunks.get(ordinals[i]);
+            results.add(SearchResult.of(chunk, scores[i], chunk.getArtifact()));
+        }
+        return results;
+    }
+
+    // ==================== Analysis ====================
+
+    @Override
+    public List<CodeChunk> findAnomalies(float threshold) {
+        if (size() < 5) {
+            return List.of();
+        }
+        train();
+
+        List<CodeChunk> anomalies = new ArrayList<>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            if (removed.contains(i)) continue;
+
+            float[] table = quantizer.lookupTable(quantizer.decode(codes, i * subspaces));
+
+            // Calculate average similarity to other vectors
+            float avgSimilarity = 0;
+            for (int j = 0; j < chunks.size(); j++) {
+                if (i != j && !removed.contains(j)) {
+                    avgSimilarity += quantizer.score(table, codes, j * subspaces);
+                }
+            }
+            avgSimilarity /= (size() - 1);
+
+            // If average similarity is below threshold, it's an anomaly
+            if (avgSimilarity < threshold) {
+                anomalies.add(chunks.get(i));
+            }
+        }
+
+        return anomalies;
+    }
+
+    @Override
+    public List<DuplicateGroup> findDuplicates(float threshold) {
+        List<DuplicateGroup> groups = new ArrayList<>();
+        if (chunks.isEmpty()) {
+            return groups;
+        }
+        train();
+
+        Set<Integer> processed = new HashSet<>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            if (processed.contains(i) || removed.contains(i)) continue;
+
+            float[] table = quantizer.lookupTable(quantizer.decode(codes, i * subspaces));
+
+            List<CodeChunk> group = new ArrayList<>();
+            group.add(chunks.get(i));
+            processed.add(i);
+
+            for (int j = i + 1; j < chunks.size(); j++) {
+                if (processed.contains(j) || removed.contains(j)) continue;
+
+                float similarity = quantizer.score(table, codes, j * subspaces);
+                if (similarity >= threshold) {
+                    group.add(chunks.get(j));
+                    processed.add(j);
+                }
+            }
+
+            if (group.size() > 1) {
+                groups.add(new DuplicateGroup(threshold, group.size(), group));
+            }
+        }
+
+        return groups;
+    }
+
+    @Override
+    public IndexStats getStats() {
+        return IndexStats.of(chunks, removed, config.modelId(), config.dimensions(), estimateSizeBytes());
+    }
+
+    // ==================== Persistence ====================
+
+    /**
+     * Writes the index beside {@code path} and moves it into place, so a
+     * failed save leaves the previous file.
+     */
+    @Override
+    public void save(Path path) throws IOException {
+        Path temp = SectionedFile.tempFileFor(path);
+        try {
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                save(os);
+            }
+            SectionedFile.replace(temp, path);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void save(OutputStream os) throws IOException {
+        compact();
+        train();
+        int count = chunks.size();
+        int dimensions = config.dimensions();
+
+        long[] recordOffsets = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            recordOffsets[i + 1] = recordOffsets[i] + ChunkCodec.encodedSize(chunks.get(i));
+        }
+        IndexStats stats = IndexStats.of(chunks, config.modelId(), dimensions, 0);
+
+        // An empty index has no codebooks
+        int centroids = quantizer != null ? quantizer.centroids() : 0;
+        Map<Integer, Long> lengths = new LinkedHashMap<>();
+        lengths.put(SECTION_INFO, (long) SectionWriter.stringSize(config.modelId()) + 2 * Integer.BYTES);
+        lengths.put(SECTION_CHUNKS, recordOffsets[count]);
+        lengths.put(SECTION_CHUNK_OFFSETS, (long) recordOffsets.length * Long.BYTES);
+        lengths.put(SECTION_STATS, stats.sectionLength());
+        if (quantizer != null) {
+            lengths.put(SECTION_CODEBOOKS, (long) dimensions * centroids * Float.BYTES);
+            lengths.put(SECTION_CODES, (long) count * subspaces);
+        }
+
+        SectionWriter out = new SectionWriter(Channels.newChannel(os));
+        out.begin(
+            new SectionedFile.Header(MAGIC, FORMAT_VERSION, dimensions, count, getModelHash(), 0),
+            SectionedFile.layout(lengths)
+        );
+
+        out.startSection(SECTION_INFO);
+        out.putString(config.modelId());
+        out.putInt(subspaces);
+        out.putInt(centroids);
+
+        out.startSection(SECTION_CHUNKS);
+        for (CodeChunk chunk : chunks) {
+            byte[] record = ChunkCodec.encode(chunk);
+            out.put(record, 0, record.length);
+        }
+        out.startSection(SECTION_CHUNK_OFFSETS);
+        out.putLongs(recordOffsets, 0, recordOffsets.length);
+
+        out.startSection(SECTION_STATS);
+        stats.writeSection(out);
+
+        // Codebooks, then one code of `subspaces` bytes per vector
+        if (quantizer != null) {
+            float[] codebooks = quantizer.codebooks();
+            out.startSection(SECTION_CODEBOOKS);
+            out.putFloats(codebooks, 0, codebooks.length);
+            out.startSection(SECTION_CODES);
+            out.put(codes, 0, count * subspaces);
+        }
+
+        out.finish();
+        os.flush();
+    }
+
+    @Override
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        save(baos);
+        return baos.toByteArray();
+    }
+
+    public static PqVectorIndex loadFrom(Path path) throws IOException {
+        try (InputStream is = Files.newInputStream(path)) {
+            return loadFrom(is);
+        }
+    }
+
+    /**
+     * Reads an index saved by {@link #save(OutputStream)}. Chunk records stay
+     * encoded until they are returned.
+     */
+    public static PqVectorIndex loadFrom(InputStream is) throws IOException {
+        SectionReader in = new SectionReader(Channels.newChannel(is));
+        SectionedFile.Header header = readHeader(in);
+        int dimensions = header.dimensions();
+        int chunkCount = header.count();
+
+        in.seek(in.require(SECTION_INFO));
+        String modelId = in.getString();
+        int subspaces = in.getInt();
+        int centroids = in.getInt();
+        PqVectorIndex index;
+        try {
+            index = new PqVectorIndex(IndexConfig.forModel(modelId, dimensions), subspaces);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt PQ index: " + e.getMessage(), e);
+        }
+
+        // The offset table must hold one record per counted chunk
+        ByteBuffer records = in.readSection(in.require(SECTION_CHUNKS));
+        in.seek(require(in, SECTION_CHUNK_OFFSETS, (chunkCount + 1L) * Long.BYTES));
+        long[] recordOffsets = new long[chunkCount + 1];
+        in.getLongs(recordOffsets, 0, recordOffsets.length);
+        EncodedChunkList chunks = EncodedChunkList.of(records, recordOffsets);
+
+        if (chunkCount > 0) {
+            if (centroids < 1 || centroids > ProductQuantizer.MAX_CENTROIDS) {
+                throw new IOException("Corrupt PQ index: " + centroids + " centroids");
+            }
+            in.seek(require(in, SECTION_CODEBOOKS, (long) dimensions * centroids * Float.BYTES));
+            float[] codebooks = new float[dimensions * centroids];
+            in.getFloats(codebooks, 0, codebooks.length);
+            try {
+                index.quantizer = new ProductQuantizer(dimensions, subspaces, centroids, codebooks);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt PQ index: " + e.getMessage(), e);
+            }
+            index.pending = null;
+
+            in.seek(require(in, SECTION_CODES, (long) chunkCount * subspaces));
+            index.codes = new byte[Math.max(chunkCount, DEFAULT_CAPACITY) * subspaces];
+            in.get(index.codes, 0, chunkCount * subspaces);
+        }
+        in.finish();
+
+        index.chunks = chunks;
+        for (int i = 0; i < chunkCount; i++) {
+            CodeChunk keys = chunks.keys(i);
+            index.idToIndex.put(keys.id(), i);
+            index.bitmaps.add(i, keys);
+        }
+        log.info("Loaded PQ index: {} chunks", chunkCount);
+        return index;
+    }
+
+    /**
+     * Reads an index's statistics from the file header and stats section
+     * without loading chunks or codes. {@link IndexStats#sizeBytes()} is the file size.
+     *
+     * @param path Path to a PQ index file
+     * @return Statistics of the stored index
+     * @throws IOException if the file cannot be read
+     */
+    public static IndexStats readStats(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            SectionReader in = new SectionReader(channel);
+            SectionedFile.Header header = readHeader(in);
+            in.seek(in.require(SECTION_INFO));
+            String modelId = in.getString();
+            in.seek(in.require(SECTION_STATS));
+            return IndexStats.readSection(in, header, modelId, channel.size());
+        }
+    }
+
+    private static SectionedFile.Header readHeader(SectionReader in) throws IOException {
+        SectionedFile.Header header = in.readHeader();
+        if (!Arrays.equals(header.magic(), MAGIC)) {
+            throw new IOException("Invalid PQ file format: bad magic number");
+        }
+        if (header.version() != FORMAT_VERSION) {
+            throw new UnsupportedFormatException(header.version());
+        }
+        if (header.flags() != 0) {
+            throw new IOException(String.format("Unsupported index flags: 0x%x", header.flags()));
+        }
+        return header;
+    }
+
+    private static SectionedFile.Section require(SectionReader in, int id, long length) throws IOException {
+        SectionedFile.Section section = in.require(id);
+        if (section.length() != length) {
+            throw new IOException(String.format(
+                "Corrupt PQ index: section %d has %d bytes, expected %d", id, section.length(), length
+            ));
+        }
+        return section;
+    }
+
+    // ==================== Entries ====================
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Once trained, embeddings are reconstructed from the codes and are only
+     * approximations of the (normalized) vectors that were added.</p>
+     */
+    @Override
+    public List<VectorEntry> entries() {
+        List<VectorEntry> result = new ArrayList<>(size());
+        for (int i = 0; i < chunks.size(); i++) {
+            if (removed.contains(i)) {
+                continue;
+            }
+            result.add(new VectorEntry(chunks.get(i), vectorAt(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<VectorEntry> entries(ChunkFilter filter) {
+        return bitmaps.entries(filter, chunks, removed, this::vectorAt);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Always false: even before training, the vectors are only held until
+     * they are encoded.</p>
+     */
+    @Override
+    public boolean hasExactEmbeddings() {
+        return false;
+    }
+
+    private float[] vectorAt(int ordinal) {
+        // Pending first: it is only cleared once the quantizer is published
+        FlatVectorStore vectors = pending;
+        ProductQuantizer trained = quantizer;
+        return trained != null ? trained.decode(codes, ordinal * subspaces) : vectors.get(ordinal);
+    }
+
+    // ==================== Metadata ====================
+
+    @Override
+    public String getModelId() {
+        return config.modelId();
+    }
+
+    @Override
+    public boolean isNormalized() {
+        return true;
+    }
+
+    @Override
+    public long getModelHash() {
+        return config.modelId().hashCode();
+    }
+
+    @Override
+    public int getDimensions() {
+        return config.dimensions();
+    }
+
+    /**
+     * Returns the number of code bytes per vector.
+     */
+    public int getSubspaces() {
+        return subspaces;
+    }
+
+    @Override
+    public int size() {
+        return chunks.size() - removed.cardinality();
+    }
+
+    @Override
+    public void close() {
+        // No resources to release in memory implementation
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void ensureCapacity(int vectors) {
+        if ((long) vectors * subspaces <= codes.length) {
+            return;
+        }
+        long grown = Math.max((long) codes.length / subspaces * 2, vectors);
+        if (grown * subspaces > Integer.MAX_VALUE - 8) {
+            grown = (Integer.MAX_VALUE - 8) / subspaces;
+            if (grown < vectors) {
+                throw new IllegalStateException("PQ code store full: at most " + grown + " vectors");
+            }
+        }
+        codes = Arrays.copyOf(codes, (int) grown * subspaces);
+    }
+
+    private long estimateSizeBytes() {
+        long vectorBytes = quantizer != null
+            ? (long) chunks.size() * subspaces + (long) quantizer.codebooks().length * Float.BYTES
+            : pending.sizeBytes();
+        return vectorBytes + EncodedChunkList.estimateSizeBytes(chunks);
+    }
+
+    /**
+     * Interface for embedding text queries.
+     */
+    @FunctionalInterface
+    public interface EmbeddingProvider {
+        float[] embed(String text);
+    }
+}
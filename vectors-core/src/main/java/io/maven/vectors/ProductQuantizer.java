@@ -0,0 +1,259 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Product quantizer: splits vectors into {@code subspaces} equal slices and
+ * replaces each slice by the index of its nearest centroid in a per-slice
+ * codebook of at most 256 entries, so a vector is stored in {@code subspaces} bytes.
+ *
+ * <p>Queries are answered with asymmetric distance computation (ADC): the full
+ * precision query is compared once against every centroid to fill a lookup table
+ * of {@code subspaces * centroids} partial dot products, after which scoring a
+ * stored vector is {@code subspaces} table lookups and additions.</p>
+ *
+ * <p>Codebooks are laid out as {@code [subspace][centroid][subDimension]} in one array.</p>
+ */
+final class ProductQuantizer {
+
+    /** Centroids per subspace; codes are unsigned bytes */
+    static final int MAX_CENTROIDS = 256;
+
+    // k-means settings: ~40 samples per centroid is enough for stable codebooks
+    private static final int MAX_TRAINING_VECTORS = MAX_CENTROIDS * 40;
+    private static final int KMEANS_ITERATIONS = 10;
+    private static final long SEED = 42;
+
+    private final int dimensions;
+    private final int subspaces;
+    private final int subDimensions;
+    private final int centroids;
+    private final float[] codebooks;
+
+    ProductQuantizer(int dimensions, int subspaces, int centroids, float[] codebooks) {
+        checkSubspaces(dimensions, subspaces);
+        if (centroids < 1 || centroids > MAX_CENTROIDS) {
+            throw new IllegalArgumentException("centroids must be in [1, " + MAX_CENTROIDS + "]: " + centroids);
+        }
+        if (codebooks.length != subspaces * centroids * (dimensions / subspaces)) {
+            throw new IllegalArgumentException("codebook size does not match dimensions");
+        }
+        this.dimensions = dimensions;
+        this.subspaces = subspaces;
+        this.subDimensions = dimensions / subspaces;
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * Trains one codebook per subspace with k-means over (a sample of) the given vectors.
+     * Subspaces are independent and trained in parallel.
+     */
+    static ProductQuantizer train(FlatVectorStore vectors, int subspaces) {
+        int dimensions = vectors.dimensions();
+        checkSubspaces(dimensions, subspaces);
+        if (vectors.size() == 0) {
+            throw new IllegalArgumentException("Cannot train a product quantizer without vectors");
+        }
+
+        int[] sample = sample(vectors.size(), MAX_TRAINING_VECTORS, new Random(SEED));
+        int centroids = Math.min(MAX_CENTROIDS, sample.length);
+        int subDimensions = dimensions / subspaces;
+        float[] codebooks = new float[subspaces * centroids * subDimensions];
+
+        IntStream.range(0, subspaces).parallel().forEach(s ->
+            kMeans(vectors, sample, s * subDimensions, subDimensions, centroids,
+                codebooks, s * centroids * subDimensions, new Random(SEED + s)));
+
+        return new ProductQuantizer(dimensions, subspaces, centroids, codebooks);
+    }
+
+    /**
+     * Returns a subspace count for the given dimensions: 8 dimensions per byte
+     * where possible (a 32x reduction from float32), else the nearest smaller divisor.
+     */
+    static int defaultSubspaces(int dimensions) {
+        int subspaces = Math.max(1, dimensions / 8);
+        while (dimensions % subspaces != 0) {
+            subspaces--;
+        }
+        return subspaces;
+    }
+
+    /**
+     * Writes the code of {@code vector} into {@code codes[offset .. offset + subspaces)}.
+     */
+    void encode(float[] vector, byte[] codes, int offset) {
+        for (int s = 0; s < subspaces; s++) {
+            codes[offset + s] = (byte) nearest(vector, s * subDimensions, s);
+        }
+    }
+
+    /**
+     * Reconstructs an approximation of the vector coded at {@code codes[offset ..]}.
+     */
+    float[] decode(byte[] codes, int offset) {
+        float[] vector = new float[dimensions];
+        for (int s = 0; s < subspaces; s++) {
+            int centroid = codes[offset + s] & 0xFF;
+            System.arraycopy(codebooks, (s * centroids + centroid) * subDimensions,
+                vector, s * subDimensions, subDimensions);
+        }
+        return vector;
+    }
+
+    /**
+     * Builds the ADC lookup table of partial dot products between the query and every centroid.
+     */
+    float[] lookupTable(float[] query) {
+        float[] table = new float[subspaces * centroids];
+        for (int s = 0; s < subspaces; s++) {
+            int queryOffset = s * subDimensions;
+            for (int c = 0; c < centroids; c++) {
+                int centroidOffset = (s * centroids + c) * subDimensions;
+                float dot = 0;
+                for (int d = 0; d < subDimensions; d++) {
+                    dot += query[queryOffset + d] * codebooks[centroidOffset + d];
+                }
+                table[s * centroids + c] = dot;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Approximate dot product between the table's query and the code at {@code codes[offset ..]}.
+     */
+    float score(float[] table, byte[] codes, int offset) {
+        float score = 0;
+        for (int s = 0; s < subspaces; s++) {
+            score += table[s * centroids + (codes[offset + s] & 0xFF)];
+        }
+        return score;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int subspaces() {
+        return subspaces;
+    }
+
+    int centroids() {
+        return centroids;
+    }
+
+    /**
+     * Returns the backing codebook array (not a copy).
+     */
+    float[] codebooks() {
+        return codebooks;
+    }
+
+    // ==================== Training ====================
+
+    /**
+     * Lloyd's k-means on one subspace of the sampled vectors, writing the
+     * centroids to {@code out[outOffset ..]}.
+     */
+    private static void kMeans(FlatVectorStore vectors, int[] sample, int subOffset, int subDimensions,
+                               int centroids, float[] out, int outOffset, Random random) {
+        float[] data = vectors.data();
+
+        // Initialize from distinct samples (the sample is already shuffled)
+        for (int c = 0; c < centroids; c++) {
+            System.arraycopy(data, vectors.offset(sample[c]) + subOffset,
+                out, outOffset + c * subDimensions, subDimensions);
+        }
+
+        int[] assignment = new int[sample.length];
+        float[] sums = new float[centroids * subDimensions];
+        int[] counts = new int[centroids];
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS; iteration++) {
+            for (int i = 0; i < sample.length; i++) {
+                assignment[i] = nearest(data, vectors.offset(sample[i]) + subOffset, subDimensions,
+                    out, outOffset, centroids);
+            }
+
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < sample.length; i++) {
+                int base = vectors.offset(sample[i]) + subOffset;
+                int c = assignment[i];
+                counts[c]++;
+                for (int d = 0; d < subDimensions; d++) {
+                    sums[c * subDimensions + d] += data[base + d];
+                }
+            }
+
+            for (int c = 0; c < centroids; c++) {
+                int target = outOffset + c * subDimensions;
+                if (counts[c] == 0) {
+                    // Re-seed empty clusters from a random sample
+                    int base = vectors.offset(sample[random.nextInt(sample.length)]) + subOffset;
+                    System.arraycopy(data, base, out, target, subDimensions);
+                } else {
+                    for (int d = 0; d < subDimensions; d++) {
+                        out[target + d] = sums[c * subDimensions + d] / counts[c];
+                    }
+                }
+            }
+        }
+    }
+
+    private int nearest(float[] vector, int vectorOffset, int subspace) {
+        return nearest(vector, vectorOffset, subDimensions, codebooks, subspace * centroids * subDimensions, centroids);
+    }
+
+    /**
+     * Index of the centroid closest (L2) to {@code vector[vectorOffset .. + subDimensions)}.
+     */
+    private static int nearest(float[] vector, int vectorOffset, int subDimensions,
+                               float[] codebook, int codebookOffset, int centroids) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centroids; c++) {
+            int centroidOffset = codebookOffset + c * subDimensions;
+            float distance = 0;
+            for (int d = 0; d < subDimensions; d++) {
+                float diff = vector[vectorOffset + d] - codebook[centroidOffset + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns up to {@code max} distinct ordinals from {@code [0, size)} in random order.
+     */
+    private static int[] sample(int size, int max, Random random) {
+        int[] ordinals = new int[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = i;
+        }
+        int count = Math.min(size, max);
+        // Partial Fisher-Yates shuffle of the first count slots
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(size - i);
+            int tmp = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = tmp;
+        }
+        return Arrays.copyOf(ordinals, count);
+    }
+
+    private static void checkSubspaces(int dimensions, int subspaces) {
+        if (subspaces < 1 || subspaces > dimensions || dimensions % subspaces != 0) {
+            throw new IllegalArgumentException(String.format(
+                "subspaces must divide dimensions: %d subspaces for %d dimensions", subspaces, dimensions
+            ));
+        }
+    }
+}
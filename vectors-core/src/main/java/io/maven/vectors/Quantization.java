@@ -0,0 +1,30 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How stored vectors are encoded for the brute-force scan.
+ */
+public enum Quantization {
+
+    /** Full-precision float32 vectors */
+    NONE,
+
+    /** One signed byte per dimension plus a per-vector scale (4x smaller than float32) */
+    INT8;
+
+    /**
+     * Parses a quantization name case-insensitively (e.g. "none", "int8").
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Quantization fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown quantization '" + name + "', expected one of "
+                + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.maven.vectors;
+
+/**
+ * Portable scalar implementation of {@link SimilarityKernel}.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    static final ScalarSimilarityKernel INSTANCE = new ScalarSimilarityKernel();
+
+    private ScalarSimilarityKernel() {
+    }
+
+    @Override
+    public float dot(float[] a, float[] data, int offset) {
+        float dotProduct = 0;
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * data[offset + i];
+        }
+        return dotProduct;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] data, int offset) {
+        float dotProduct = 0;
+        float normA = 0;
+        float normB = 0;
+
+        for (int i = 0; i < a.length; i++) {
+            float b = data[offset + i];
+            dotProduct += a[i] * b;
+            normA += a[i] * a[i];
+            normB += b * b;
+        }
+
+        if (normA == 0 || normB == 0) return 0;
+        return (float) (dotProduct / (Math.sqrt(normA) * Math.sqrt(normB)));
+    }
+
+    @Override
+    public float squareL2(float[] a, float[] data, int offset) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - data[offset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
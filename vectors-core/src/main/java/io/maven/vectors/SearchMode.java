@@ -0,0 +1,30 @@
+package io.maven.vectors;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Strategy used to answer a single vector search.
+ */
+public enum SearchMode {
+
+    /** The index's regular search (full scan for brute-force indexes, graph walk for HNSW) */
+    DEFAULT,
+
+    /** Hamming-distance pass over 1-bit sign codes, then exact re-ranking of the best candidates */
+    BINARY;
+
+    /**
+     * Parses a search mode name case-insensitively (e.g. "default", "binary").
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static SearchMode fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown search mode '" + name + "', expected one of "
+                + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
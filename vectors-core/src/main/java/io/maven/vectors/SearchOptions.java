@@ -0,0 +1,110 @@
+package io.maven.vectors;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Per-query search settings.
+ *
+ * <p>Zero values mean "use the index default", so {@link #defaults()} behaves
+ * exactly like {@link VectorIndex#search(float[], int)}. Settings an index has
+ * no use for are ignored: brute-force indexes always scan every vector, so
+ * {@code ef} and {@code timeout} only affect HNSW graph traversal. A
+ * {@link #filter()} is honored by every index.</p>
+ *
+ * <pre>{@code
+ * // Interactive lookup: narrow graph walk, bounded latency
+ * index.search(query, 10, SearchOptions.defaults().withEf(16).withTimeout(Duration.ofMillis(1)));
+ *
+ * // Offline report: wide graph walk for better recall
+ * index.search(query, 10, SearchOptions.defaults().withEf(400));
+ *
+ * // Only records
+ * index.search(query, 10, SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.RECORD)));
+ * }</pre>
+ */
+public record SearchOptions(
+    /** Search strategy */
+    SearchMode mode,
+
+    /** HNSW candidate list size (search breadth); 0 uses the index default */
+    int ef,
+
+    /** Candidates fetched per requested result before exact re-ranking; 0 uses the index default */
+    int oversample,
+
+    /** Time budget for one query, or null for none. When it runs out, the best results found so far are returned */
+    Duration timeout,
+
+    /** Chunks that may appear in the results, or null for all */
+    ChunkFilter filter
+) {
+    private static final Duration MAX_TIMEOUT = Duration.ofDays(365);
+
+    public SearchOptions {
+        Objects.requireNonNull(mode, "mode cannot be null");
+        if (ef < 0) {
+            throw new IllegalArgumentException("ef must be >= 0: " + ef);
+        }
+        if (oversample < 0) {
+            throw new IllegalArgumentException("oversample must be >= 0: " + oversample);
+        }
+        if (timeout != null && timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        }
+    }
+
+    public static SearchOptions defaults() {
+        return new SearchOptions(SearchMode.DEFAULT, 0, 0, null, null);
+    }
+
+    /**
+     * Returns a copy with the given search strategy.
+     */
+    public SearchOptions withMode(SearchMode mode) {
+        return new SearchOptions(mode, ef, oversample, timeout, filter);
+    }
+
+    /**
+     * Returns a copy with the given HNSW search breadth. Higher values improve
+     * recall at the cost of latency; values below {@code topK} are raised to it.
+     */
+    public SearchOptions withEf(int ef) {
+        return new SearchOptions(mode, ef, oversample, timeout, filter);
+    }
+
+    /**
+     * Returns a copy that fetches {@code oversample * topK} candidates before re-ranking
+     * (quantized and binary brute-force search, HNSW candidate list).
+     */
+    public SearchOptions withOversample(int oversample) {
+        return new SearchOptions(mode, ef, oversample, timeout, filter);
+    }
+
+    /**
+     * Returns a copy with a per-query time budget, or none for null.
+     */
+    public SearchOptions withTimeout(Duration timeout) {
+        return new SearchOptions(mode, ef, oversample, timeout, filter);
+    }
+
+    /**
+     * Returns a copy that only returns chunks accepted by {@code filter}, or all for null.
+     */
+    public SearchOptions withFilter(ChunkFilter filter) {
+        return new SearchOptions(mode, ef, oversample, timeout, filter);
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} deadline for a query starting now, or 0 for none.
+     */
+    long deadlineNanos() {
+        if (timeout == null) {
+            return 0;
+        }
+        // Clamp so huge budgets cannot overflow; avoid 0, which means "no deadline"
+        long nanos = timeout.compareTo(MAX_TIMEOUT) > 0 ? MAX_TIMEOUT.toNanos() : timeout.toNanos();
+        long deadline = System.nanoTime() + nanos;
+        return deadline == 0 ? 1 : deadline;
+    }
+}
@@ -0,0 +1,316 @@
+package io.maven.vectors;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads a {@link SectionedFile} front to back from a channel.
+ *
+ * <p>Sections are visited with {@link #seek} in file order. The footer
+ * checksum is verified by {@link #finish()} when every data byte was read;
+ * skipping over part of a seekable channel (e.g. a section that is
+ * memory-mapped instead) leaves it unverified. The header and directory are
+ * always verified. The channel is not closed.</p>
+ */
+final class SectionReader {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    // Sanity bound on the directory size of a corrupt file
+    private static final int MAX_SECTIONS = 1_024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C checksum = new CRC32C();
+
+    private SectionedFile.Header header;
+    private List<SectionedFile.Section> sections;
+    private long position;       // file offset of buffer.position()
+    private long dataStart = Long.MAX_VALUE;
+    private long dataEnd = Long.MAX_VALUE;
+    private boolean verifiable = true;
+
+    /**
+     * @param channel Channel positioned at the start of the file
+     */
+    SectionReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    /**
+     * Reads and verifies the header and section directory.
+     *
+     * @throws IOException if the header is truncated or fails its checksum
+     */
+    SectionedFile.Header readHeader() throws IOException {
+        byte[] head = new byte[SectionedFile.HEADER_BYTES];
+        get(head, 0, head.length);
+        ByteBuffer fields = ByteBuffer.wrap(head).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = Arrays.copyOf(head, 4);
+        short version = fields.order(ByteOrder.BIG_ENDIAN).getShort(4);
+        fields.order(ByteOrder.LITTLE_ENDIAN).position(8);
+        int dimensions = fields.getInt();
+        int count = fields.getInt();
+        long modelHash = fields.getLong();
+        int flags = fields.getInt();
+        int sectionCount = fields.getInt();
+        if (sectionCount < 0 || sectionCount > MAX_SECTIONS) {
+            throw new IOException("Corrupt index header: " + sectionCount + " sections");
+        }
+
+        byte[] entries = new byte[sectionCount * SectionedFile.DIRECTORY_ENTRY_BYTES];
+        get(entries, 0, entries.length);
+        CRC32C headerChecksum = new CRC32C();
+        headerChecksum.update(head);
+        headerChecksum.update(entries);
+        if (getInt() != (int) headerChecksum.getValue()) {
+            throw new IOException("Corrupt index header: checksum mismatch");
+        }
+
+        ByteBuffer directory = ByteBuffer.wrap(entries).order(ByteOrder.LITTLE_ENDIAN);
+        List<SectionedFile.Section> list = new ArrayList<>(sectionCount);
+        long end = SectionedFile.dataStart(sectionCount);
+        for (int i = 0; i < sectionCount; i++) {
+            int id = directory.getInt();
+            directory.getInt();
+            SectionedFile.Section section = new SectionedFile.Section(id, directory.getLong(), directory.getLong());
+            if (section.offset() < end || section.length() < 0) {
+                throw new IOException("Corrupt section directory: overlapping section " + id);
+            }
+            list.add(section);
+            end = section.end();
+        }
+        header = new SectionedFile.Header(magic, version, dimensions, count, modelHash, flags);
+        sections = List.copyOf(list);
+
+        // Bytes already buffered past the directory count towards the data checksum
+        dataStart = SectionedFile.dataStart(sectionCount);
+        dataEnd = end;
+        checksum(buffer.duplicate(), position);
+        return header;
+    }
+
+    List<SectionedFile.Section> sections() {
+        return sections;
+    }
+
+    /**
+     * Returns the section with the given id, or null if the file has none.
+     */
+    SectionedFile.Section find(int id) {
+        for (SectionedFile.Section section : sections) {
+            if (section.id() == id) {
+                return section;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the section with the given id.
+     *
+     * @throws IOException if the file has no such section
+     */
+    SectionedFile.Section require(int id) throws IOException {
+        SectionedFile.Section section = find(id);
+        if (section == null) {
+            throw new IOException("Index file is missing section " + id);
+        }
+        return section;
+    }
+
+    /**
+     * Moves forward to the start of a section.
+     */
+    void seek(SectionedFile.Section section) throws IOException {
+        if (section.offset() < position) {
+            throw new IOException("Section " + section.id() + " is out of order");
+        }
+        skip(section.offset() - position);
+    }
+
+    /**
+     * Reads the footer and verifies the data checksum, unless bytes were skipped.
+     *
+     * @throws IOException if the file is truncated or the checksum doesn't match
+     */
+    void finish() throws IOException {
+        skip(dataEnd - position);
+        fill(SectionedFile.FOOTER_BYTES);
+        int expected = buffer.getInt();
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        position += SectionedFile.FOOTER_BYTES;
+        if (!Arrays.equals(magic, header.magic())) {
+            throw new IOException("Corrupt index file: bad footer");
+        }
+        if (verifiable && expected != (int) checksum.getValue()) {
+            throw new IOException("Corrupt index file: checksum mismatch");
+        }
+    }
+
+    // ==================== Values ====================
+
+    int getInt() throws IOException {
+        fill(Integer.BYTES);
+        position += Integer.BYTES;
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        fill(Long.BYTES);
+        position += Long.BYTES;
+        return buffer.getLong();
+    }
+
+    float getFloat() throws IOException {
+        fill(Float.BYTES);
+        position += Float.BYTES;
+        return buffer.getFloat();
+    }
+
+    /**
+     * Reads a string written by {@link SectionWriter#putString(String)}.
+     */
+    String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        get(bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void get(byte[] target, int offset, int length) throws IOException {
+        while (length > 0) {
+            fill(1);
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, n);
+            offset += n;
+            length -= n;
+            position += n;
+        }
+    }
+
+    void getFloats(float[] target, int offset, int length) throws IOException {
+        while (length > 0) {
+            fill(Float.BYTES);
+            int n = Math.min(length, buffer.remaining() / Float.BYTES);
+            buffer.asFloatBuffer().get(target, offset, n);
+            buffer.position(buffer.position() + n * Float.BYTES);
+            offset += n;
+            length -= n;
+            position += (long) n * Float.BYTES;
+        }
+    }
+
+    void getInts(int[] target, int offset, int length) throws IOException {
+        while (length > 0) {
+            fill(Integer.BYTES);
+            int n = Math.min(length, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(target, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+            length -= n;
+            position += (long) n * Integer.BYTES;
+        }
+    }
+
+    void getLongs(long[] target, int offset, int length) throws IOException {
+        while (length > 0) {
+            fill(Long.BYTES);
+            int n = Math.min(length, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().get(target, offset, n);
+            buffer.position(buffer.position() + n * Long.BYTES);
+            offset += n;
+            length -= n;
+            position += (long) n * Long.BYTES;
+        }
+    }
+
+    /**
+     * Reads a whole section into a little-endian heap buffer.
+     *
+     * @throws IOException if the section is larger than a Java array
+     */
+    ByteBuffer readSection(SectionedFile.Section section) throws IOException {
+        if (section.length() > Integer.MAX_VALUE - 8) {
+            throw new IOException("Section " + section.id() + " too large to load: " + section.length() + " bytes");
+        }
+        seek(section);
+        byte[] bytes = new byte[(int) section.length()];
+        get(bytes, 0, bytes.length);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // ==================== Internals ====================
+
+    private void skip(long bytes) throws IOException {
+        int buffered = (int) Math.min(bytes, buffer.remaining());
+        buffer.position(buffer.position() + buffered);
+        position += buffered;
+        bytes -= buffered;
+        if (bytes == 0) {
+            return;
+        }
+        if (channel instanceof SeekableByteChannel seekable) {
+            seekable.position(position + bytes);
+            position += bytes;
+            verifiable = false;
+            return;
+        }
+        while (bytes > 0) {
+            fill(1);
+            int n = (int) Math.min(bytes, buffer.remaining());
+            buffer.position(buffer.position() + n);
+            position += n;
+            bytes -= n;
+        }
+    }
+
+    /**
+     * Makes at least {@code bytes} (at most the buffer size) available in the buffer.
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        long readFrom = position + buffer.position();
+        while (buffer.position() < bytes) {
+            int start = buffer.position();
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of index file at offset " + (position + buffer.position()));
+            }
+            checksum(buffer.duplicate().flip().position(start), readFrom);
+            readFrom += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Adds the part of {@code bytes}, which start at file offset {@code offset},
+     * that lies in the data region to the running checksum.
+     */
+    private void checksum(ByteBuffer bytes, long offset) {
+        long from = Math.max(offset, dataStart);
+        long to = Math.min(offset + bytes.remaining(), dataEnd);
+        if (from < to) {
+            bytes.position(bytes.position() + (int) (from - offset));
+            bytes.limit(bytes.position() + (int) (to - from));
+            checksum.update(bytes);
+        }
+    }
+}
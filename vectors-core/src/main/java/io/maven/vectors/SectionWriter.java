@@ -0,0 +1,348 @@
+package io.maven.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a {@link SectionedFile} to a channel through a small little-endian
+ * staging buffer.
+ *
+ * <p>Given the section lengths, {@link #begin(SectionedFile.Header, List)} writes
+ * the directory up front and the file is written in one pass to any channel.
+ * Sections are then written in directory order, each opened with
+ * {@link #startSection(int)}; {@link #finish()} checks the last length and
+ * appends the footer. On a seekable channel, {@link #begin(List)} instead only
+ * reserves room for the directory and lengths are taken as sections are written;
+ * {@link #finish(SectionedFile.Header)} goes back to fill in the header. The
+ * channel is not closed.</p>
+ *
+ * <p>Without either {@code begin}, the writer just buffers plain values, e.g.
+ * for a scratch file; see {@link #flush()}.</p>
+ */
+final class SectionWriter {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C checksum = new CRC32C();
+
+    private byte[] magic;
+    private List<SectionedFile.Section> sections;
+    private List<Integer> sectionIds;   // set when lengths are taken as sections are written
+    private int nextSection;
+    private SectionedFile.Section current;
+    private long position;
+    private boolean inData;
+
+    SectionWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the header and the directory for the given sections, as placed by
+     * {@link SectionedFile#layout}.
+     */
+    void begin(SectionedFile.Header header, List<SectionedFile.Section> sections) throws IOException {
+        if (this.sections != null) {
+            throw new IllegalStateException("Header already written");
+        }
+        this.magic = header.magic();
+        this.sections = sections;
+        writeHeader(header);
+        inData = true;
+    }
+
+    /**
+     * Reserves room for the header and a directory of the given sections,
+     * whose lengths are taken as they are written. The channel must be a
+     * {@link SeekableByteChannel} positioned at the start of the file.
+     */
+    void begin(List<Integer> sectionIds) throws IOException {
+        if (this.sections != null) {
+            throw new IllegalStateException("Header already written");
+        }
+        if (!(channel instanceof SeekableByteChannel)) {
+            throw new IllegalStateException("Section lengths can only be filled in on a seekable channel");
+        }
+        this.sections = new ArrayList<>(sectionIds.size());
+        this.sectionIds = List.copyOf(sectionIds);
+        pad(SectionedFile.dataStart(sectionIds.size()));
+        flush();
+        inData = true;
+    }
+
+    /**
+     * Starts the next section in directory order, padding up to its offset.
+     */
+    void startSection(int id) throws IOException {
+        if (sectionIds != null) {
+            closeStreamedSection();
+            if (nextSection >= sectionIds.size() || sectionIds.get(nextSection) != id) {
+                throw new IllegalStateException("Section " + id + " is not next in the directory");
+            }
+            nextSection++;
+            current = new SectionedFile.Section(id, SectionedFile.align(position), -1);
+            pad(current.offset());
+            return;
+        }
+        checkCurrentComplete();
+        if (sections == null || nextSection >= sections.size() || sections.get(nextSection).id() != id) {
+            throw new IllegalStateException("Section " + id + " is not next in the directory");
+        }
+        current = sections.get(nextSection++);
+        pad(current.offset());
+    }
+
+    /**
+     * Checks that every section was written in full and appends the footer.
+     */
+    void finish() throws IOException {
+        if (sectionIds != null) {
+            throw new IllegalStateException("Header not written yet: finish with the header");
+        }
+        checkCurrentComplete();
+        if (sections == null || nextSection != sections.size()) {
+            throw new IllegalStateException("Not all sections were written");
+        }
+        writeFooter();
+    }
+
+    /**
+     * Ends a file started with {@link #begin(List)}: appends the footer, then
+     * writes the header and the directory of the sections as written.
+     */
+    void finish(SectionedFile.Header header) throws IOException {
+        if (sectionIds == null) {
+            throw new IllegalStateException("Header already written");
+        }
+        closeStreamedSection();
+        if (nextSection != sectionIds.size()) {
+            throw new IllegalStateException("Not all sections were written");
+        }
+        magic = header.magic();
+        writeFooter();
+
+        ((SeekableByteChannel) channel).position(0);
+        position = 0;
+        writeHeader(header);
+    }
+
+    // ==================== Values ====================
+
+    void putInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+        position += Integer.BYTES;
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+        position += Long.BYTES;
+    }
+
+    void putFloat(float value) throws IOException {
+        ensure(Float.BYTES);
+        buffer.putFloat(value);
+        position += Float.BYTES;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes; null is written as length -1.
+     */
+    void putString(String value) throws IOException {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        put(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns the number of bytes {@link #putString(String)} writes for a value.
+     */
+    static int stringSize(String value) {
+        if (value == null) {
+            return Integer.BYTES;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;   // unpaired surrogates are encoded as '?'
+            } else {
+                length += 3;
+            }
+        }
+        return Integer.BYTES + length;
+    }
+
+    void put(byte[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(1);
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(values, offset, n);
+            offset += n;
+            length -= n;
+            position += n;
+        }
+    }
+
+    void putFloats(float[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Float.BYTES);
+            int n = Math.min(length, buffer.remaining() / Float.BYTES);
+            buffer.asFloatBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Float.BYTES);
+            offset += n;
+            length -= n;
+            position += (long) n * Float.BYTES;
+        }
+    }
+
+    void putInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Integer.BYTES);
+            int n = Math.min(length, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+            length -= n;
+            position += (long) n * Integer.BYTES;
+        }
+    }
+
+    void putLongs(long[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Long.BYTES);
+            int n = Math.min(length, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Long.BYTES);
+            offset += n;
+            length -= n;
+            position += (long) n * Long.BYTES;
+        }
+    }
+
+    /**
+     * Copies everything left in {@code source}, e.g. a scratch file written earlier.
+     */
+    void putAll(ReadableByteChannel source) throws IOException {
+        while (true) {
+            ensure(1);
+            int n = source.read(buffer);
+            if (n < 0) {
+                return;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * Writes out buffered values; {@link #finish()} does so for a sectioned file.
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        if (inData) {
+            checksum.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // ==================== Internals ====================
+
+    /**
+     * Writes the header, the directory of {@link #sections} and its checksum,
+     * padded up to the first section.
+     */
+    private void writeHeader(SectionedFile.Header header) throws IOException {
+        buffer.put(header.magic());
+        buffer.order(ByteOrder.BIG_ENDIAN).putShort(header.version()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) 0);
+        buffer.putInt(header.dimensions());
+        buffer.putInt(header.count());
+        buffer.putLong(header.modelHash());
+        buffer.putInt(header.flags());
+        buffer.putInt(sections.size());
+        position = buffer.position();
+        pad(SectionedFile.HEADER_BYTES);
+
+        for (SectionedFile.Section section : sections) {
+            ensure(SectionedFile.DIRECTORY_ENTRY_BYTES);
+            buffer.putInt(section.id()).putInt(0).putLong(section.offset()).putLong(section.length());
+            position += SectionedFile.DIRECTORY_ENTRY_BYTES;
+        }
+        if (buffer.position() != position) {
+            throw new IOException("Section directory too large: " + sections.size() + " sections");
+        }
+        CRC32C headerChecksum = new CRC32C();
+        headerChecksum.update(buffer.array(), 0, buffer.position());
+        putInt((int) headerChecksum.getValue());
+        pad(SectionedFile.dataStart(sections.size()));
+        flush();
+    }
+
+    private void writeFooter() throws IOException {
+        flush();
+        inData = false;
+        putInt((int) checksum.getValue());
+        put(magic, 0, magic.length);
+        flush();
+    }
+
+    private void closeStreamedSection() {
+        if (current != null) {
+            sections.add(new SectionedFile.Section(current.id(), current.offset(), position - current.offset()));
+            current = null;
+        }
+    }
+
+    private void checkCurrentComplete() {
+        if (current != null && position != current.end()) {
+            throw new IllegalStateException(String.format(
+                "Section %d declared %d bytes but %d were written",
+                current.id(), current.length(), position - current.offset()
+            ));
+        }
+    }
+
+    private void pad(long target) throws IOException {
+        if (target < position) {
+            throw new IllegalStateException("Cannot pad backwards from " + position + " to " + target);
+        }
+        while (position < target) {
+            ensure(1);
+            int n = (int) Math.min(target - position, buffer.remaining());
+            buffer.put(new byte[n]);
+            position += n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.maven.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Container layout shared by sectioned index files.
+ *
+ * <pre>
+ * Header      64 bytes   magic, version (big-endian, as in the older formats), then
+ *                        dimensions, count, model hash, flags, section count, reserved
+ * Directory   24 bytes   per section: id, reserved, offset, length
+ *             4 bytes    CRC32C of the header and directory
+ * Sections               each at a 64-byte aligned offset, zero padding in between
+ * Footer      8 bytes    CRC32C of everything from the first section up to the footer,
+ *                        then the magic again
+ * </pre>
+ *
+ * <p>Everything after the version is little-endian, so a section can be
+ * memory-mapped and read without byte swapping on common CPUs. The directory
+ * sits in front of the data so a stream can be read in one pass. Readers skip
+ * section ids they don't know, so new sections don't need a version bump.</p>
+ */
+final class SectionedFile {
+
+    static final int HEADER_BYTES = 64;
+    static final int DIRECTORY_ENTRY_BYTES = 24;
+    static final int FOOTER_BYTES = 8;
+    static final int ALIGNMENT = 64;
+
+    private SectionedFile() {
+    }
+
+    /**
+     * Fixed header fields.
+     *
+     * @param magic Four-byte format marker
+     */
+    record Header(byte[] magic, short version, int dimensions, int count, long modelHash, int flags) {
+    }
+
+    /**
+     * One directory entry; {@code offset} is from the start of the file.
+     */
+    record Section(int id, long offset, long length) {
+
+        long end() {
+            return offset + length;
+        }
+    }
+
+    /**
+     * Rounds a position up to the next section boundary.
+     */
+    static long align(long position) {
+        return (position + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Returns the offset of the first section for a directory of the given size.
+     */
+    static long dataStart(int sectionCount) {
+        return align(HEADER_BYTES + (long) sectionCount * DIRECTORY_ENTRY_BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Places sections one after another in the map's iteration order.
+     *
+     * @param lengths Section lengths by id
+     */
+    static List<Section> layout(Map<Integer, Long> lengths) {
+        List<Section> sections = new ArrayList<>(lengths.size());
+        long offset = dataStart(lengths.size());
+        for (Map.Entry<Integer, Long> entry : lengths.entrySet()) {
+            sections.add(new Section(entry.getKey(), offset, entry.getValue()));
+            offset = align(offset + entry.getValue());
+        }
+        return sections;
+    }
+
+    /**
+     * Maps a section read-only as a little-endian buffer.
+     *
+     * @throws IOException if the section is larger than one buffer can address
+     */
+    static ByteBuffer map(FileChannel channel, Section section) throws IOException {
+        if (section.length() > Integer.MAX_VALUE) {
+            throw new IOException("Section " + section.id() + " too large to map: " + section.length() + " bytes");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, section.offset(), section.length())
+            .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates an empty file beside {@code target} to write an index into
+     * before {@link #replace} moves it into place. Writing the target itself
+     * would truncate it first, including when it is the mapped source of
+     * the index being saved, and a failed save would destroy it. Unlike
+     * {@link Files#createTempFile}, the file gets the default permissions.
+     */
+    static Path tempFileFor(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        while (true) {
+            Path temp = absolute.resolveSibling(absolute.getFileName() + "."
+                + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // Taken by a concurrent save; draw another name
+            }
+        }
+    }
+
+    /**
+     * Moves a fully written file over {@code target}, atomically where the
+     * file system allows. Existing mappings of the target keep the old file.
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.maven.vectors;
+
+/**
+ * Low-level vector similarity functions used by the brute-force scans.
+ *
+ * <p>Every function has an array form and a slice form. The slice form reads
+ * the second operand from {@code data[offset .. offset + a.length)}, which lets
+ * callers score against a flat, row-major vector buffer without copying.</p>
+ *
+ * <p>{@link #defaultKernel()} picks a SIMD implementation built on the JDK Vector
+ * API when the {@code jdk.incubator.vector} module is present at runtime (start
+ * the JVM with {@code --add-modules jdk.incubator.vector}), and a portable scalar
+ * implementation otherwise. Set the system property {@code maven.vectors.simd=false}
+ * to force the scalar kernel.</p>
+ */
+public interface SimilarityKernel {
+
+    /**
+     * Dot product of {@code a} and the slice of {@code data} starting at {@code offset}.
+     */
+    float dot(float[] a, float[] data, int offset);
+
+    /**
+     * Cosine similarity of {@code a} and the slice of {@code data} starting at {@code offset}.
+     * Returns 0 if either vector has zero norm.
+     */
+    float cosine(float[] a, float[] data, int offset);
+
+    /**
+     * Squared Euclidean (L2) distance between {@code a} and the slice of {@code data}
+     * starting at {@code offset}.
+     */
+    float squareL2(float[] a, float[] data, int offset);
+
+    /**
+     * Integer dot product of the int8 codes {@code a} and the slice of {@code data}
+     * starting at {@code offset}. Used to score quantized vectors.
+     */
+    default int dot(byte[] a, byte[] data, int offset) {
+        int dotProduct = 0;
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * data[offset + i];
+        }
+        return dotProduct;
+    }
+    
+    /**
+     * Short implementation name for logging (e.g. "scalar", "vector-api").
+     */
+    String name();
+
+    default float dot(float[] a, float[] b) {
+        checkLength(a, b);
+        return dot(a, b, 0);
+    }
+
+    default float cosine(float[] a, float[] b) {
+        checkLength(a, b);
+        return cosine(a, b, 0);
+    }
+
+    default float squareL2(float[] a, float[] b) {
+        checkLength(a, b);
+        return squareL2(a, b, 0);
+    }
+
+    /**
+     * Returns the portable scalar kernel.
+     */
+    static SimilarityKernel scalar() {
+        return ScalarSimilarityKernel.INSTANCE;
+    }
+
+    /**
+     * Returns the fastest kernel available in this JVM.
+     */
+    static SimilarityKernel defaultKernel() {
+        return SimilarityKernels.DEFAULT;
+    }
+
+    private static void checkLength(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException(String.format(
+                "Vector length mismatch: %d vs %d", a.length, b.length
+            ));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.maven.vectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the {@link SimilarityKernel} implementation for this JVM.
+ */
+final class SimilarityKernels {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityKernels.class);
+
+    static final String SIMD_PROPERTY = "maven.vectors.simd";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL_CLASS = "io.maven.vectors.VectorApiSimilarityKernel";
+
+    static final SimilarityKernel DEFAULT = detect();
+
+    private SimilarityKernels() {
+    }
+
+    private static SimilarityKernel detect() {
+        if (!Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"))) {
+            log.debug("SIMD kernel disabled via -D{}=false", SIMD_PROPERTY);
+            return SimilarityKernel.scalar();
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.debug("Module {} not present; using scalar similarity kernel", VECTOR_MODULE);
+            return SimilarityKernel.scalar();
+        }
+
+        // Load reflectively so this class never links against the incubator module
+        // unless it is actually there
+        try {
+            SimilarityKernel kernel = (SimilarityKernel) Class.forName(VECTOR_KERNEL_CLASS)
+                .getDeclaredConstructor()
+                .newInstance();
+            log.debug("Using {} similarity kernel", kernel.name());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Failed to load Vector API similarity kernel, using scalar: {}", e.toString());
+            return SimilarityKernel.scalar();
+        }
+    }
+}
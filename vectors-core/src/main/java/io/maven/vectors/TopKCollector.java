@@ -0,0 +1,131 @@
+package io.maven.vectors;
+
+/**
+ * Keeps the {@code k} best (score, ordinal) pairs seen so far.
+ *
+ * <p>Backed by a fixed-size binary min-heap over primitive arrays, so collecting
+ * {@code n} candidates costs O(n log k) and allocates nothing per candidate.
+ * Callers build {@link SearchResult} objects only for the survivors.</p>
+ *
+ * <p>Higher scores win; equal scores prefer the lower ordinal so results are
+ * deterministic and match insertion order.</p>
+ */
+final class TopKCollector {
+
+    private final int k;
+    private final float[] scores;
+    private final int[] ordinals;
+    private int size;
+
+    TopKCollector(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be > 0");
+        }
+        this.k = k;
+        this.scores = new float[k];
+        this.ordinals = new int[k];
+    }
+
+    /**
+     * Offers a candidate; it is kept only if it ranks among the best {@code k}.
+     */
+    void collect(int ordinal, float score) {
+        if (size < k) {
+            scores[size] = score;
+            ordinals[size] = ordinal;
+            siftUp(size++);
+        } else if (better(score, ordinal, scores[0], ordinals[0])) {
+            scores[0] = score;
+            ordinals[0] = ordinal;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers every entry held by another collector.
+     */
+    void collectAll(TopKCollector other) {
+        for (int i = 0; i < other.size; i++) {
+            collect(other.ordinals[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Returns the score a candidate must beat to be kept, or negative infinity
+     * while the collector is not yet full.
+     */
+    float minScore() {
+        return size < k ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Moves all collected entries into the given arrays, best first, and empties
+     * the collector. Both arrays must hold at least {@link #size()} elements.
+     *
+     * @return the number of entries written
+     */
+    int drainTo(int[] ordinalsOut, float[] scoresOut) {
+        int count = size;
+        // Repeatedly pop the worst entry into the back of the output
+        for (int i = count - 1; i >= 0; i--) {
+            ordinalsOut[i] = ordinals[0];
+            scoresOut[i] = scores[0];
+            size--;
+            if (size > 0) {
+                scores[0] = scores[size];
+                ordinals[0] = ordinals[size];
+                siftDown(0);
+            }
+        }
+        return count;
+    }
+
+    private void siftUp(int i) {
+        float score = scores[i];
+        int ordinal = ordinals[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(scores[parent], ordinals[parent], score, ordinal)) {
+                break;
+            }
+            scores[i] = scores[parent];
+            ordinals[i] = ordinals[parent];
+            i = parent;
+        }
+        scores[i] = score;
+        ordinals[i] = ordinal;
+    }
+
+    private void siftDown(int i) {
+        float score = scores[i];
+        int ordinal = ordinals[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && better(scores[child], ordinals[child], scores[right], ordinals[right])) {
+                child = right;
+            }
+            if (!better(score, ordinal, scores[child], ordinals[child])) {
+                break;
+            }
+            scores[i] = scores[child];
+            ordinals[i] = ordinals[child];
+            i = child;
+        }
+        scores[i] = score;
+        ordinals[i] = ordinal;
+    }
+
+    /**
+     * Returns true if entry a ranks strictly ahead of entry b.
+     */
+    private static boolean better(float scoreA, int ordinalA, float scoreB, int ordinalB) {
+        int cmp = Float.compare(scoreA, scoreB);
+        return cmp > 0 || (cmp == 0 && ordinalA < ordinalB);
+    }
+}
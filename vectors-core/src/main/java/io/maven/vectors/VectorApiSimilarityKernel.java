@@ -0,0 +1,131 @@
+package io.maven.vectors;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of {@link SimilarityKernel} on the JDK Vector API.
+ *
+ * <p>Uses the widest species the CPU supports (e.g. 8 lanes on AVX2, 16 on AVX-512)
+ * and finishes the tail that doesn't fill a full vector with scalar code.
+ * Only loaded reflectively by {@link SimilarityKernels} once the
+ * {@code jdk.incubator.vector} module is known to be present.</p>
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    // Int8 codes widen 4x to ints, so each int vector is fed by a quarter-width
+    // byte vector. Shapes narrower than 64 bits don't exist; such CPUs use scalar code.
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTE_SPECIES = INT_SPECIES.vectorBitSize() >= 256
+        ? VectorSpecies.of(byte.class, VectorShape.forBitSize(INT_SPECIES.vectorBitSize() / 4))
+        : null;
+
+    @Override
+    public float dot(float[] a, float[] data, int offset) {
+        int length = a.length;
+        int bound = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, data, offset + i);
+            acc = acc.add(va.mul(vb));
+        }
+
+        float dotProduct = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            dotProduct += a[i] * data[offset + i];
+        }
+        return dotProduct;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] data, int offset) {
+        int length = a.length;
+        int bound = SPECIES.loopBound(length);
+        FloatVector dotAcc = FloatVector.zero(SPECIES);
+        FloatVector normAAcc = FloatVector.zero(SPECIES);
+        FloatVector normBAcc = FloatVector.zero(SPECIES);
+
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, data, offset + i);
+            dotAcc = dotAcc.add(va.mul(vb));
+            normAAcc = normAAcc.add(va.mul(va));
+            normBAcc = normBAcc.add(vb.mul(vb));
+        }
+
+        float dotProduct = dotAcc.reduceLanes(VectorOperators.ADD);
+        float normA = normAAcc.reduceLanes(VectorOperators.ADD);
+        float normB = normBAcc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float b = data[offset + i];
+            dotProduct += a[i] * b;
+            normA += a[i] * a[i];
+            normB += b * b;
+        }
+
+        if (normA == 0 || normB == 0) return 0;
+        return (float) (dotProduct / (Math.sqrt(normA) * Math.sqrt(normB)));
+    }
+
+    @Override
+    public float squareL2(float[] a, float[] data, int offset) {
+        int length = a.length;
+        int bound = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, a, i)
+                .sub(FloatVector.fromArray(SPECIES, data, offset + i));
+            acc = acc.add(diff.mul(diff));
+        }
+
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float diff = a[i] - data[offset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] data, int offset) {
+        if (BYTE_SPECIES == null) {
+            return SimilarityKernel.super.dot(a, data, offset);
+        }
+
+        int length = a.length;
+        int bound = BYTE_SPECIES.loopBound(length);
+        IntVector acc = IntVector.zero(INT_SPECIES);
+
+        int i = 0;
+        for (; i < bound; i += BYTE_SPECIES.length()) {
+            IntVector va = (IntVector) ByteVector.fromArray(BYTE_SPECIES, a, i)
+                .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            IntVector vb = (IntVector) ByteVector.fromArray(BYTE_SPECIES, data, offset + i)
+                .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            acc = acc.add(va.mul(vb));
+        }
+
+        int dotProduct = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            dotProduct += a[i] * data[offset + i];
+        }
+        return dotProduct;
+    }
+
+    @Override
+    public String name() {
+        return "vector-api(" + SPECIES.vectorBitSize() + "-bit)";
+    }
+}
@@ -6,6 +6,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -57,7 +58,7 @@ public interface VectorIndex extends AutoCloseable {
      * Recommended for indexes with more than 10,000 vectors.
      * 
      * @param config Index configuration
-     * @param maxItems Maximum number of items (pre-allocates graph structure)
+     * @param maxItems Expected number of items (sizes the initial allocation; not a hard limit)
      */
     static VectorIndex createHnsw(IndexConfig config, int maxItems) {
         return new HnswVectorIndex(config, maxItems);
@@ -70,9 +71,19 @@ public interface VectorIndex extends AutoCloseable {
         return new HnswVectorIndex(config);
     }
     
+    /**
+     * Creates a new product-quantized index for very large indexes.
+     * Vectors are stored in about 1/32 of their float32 size; scores are approximate.
+     * 
+     * @param config Index configuration
+     */
+    static VectorIndex createPq(IndexConfig config) {
+        return new PqVectorIndex(config);
+    }
+    
     /**
      * Loads an index from a file, auto-detecting the format.
-     * Supports both brute-force (.mvec) and HNSW formats.
+     * Supports brute-force (.mvec), HNSW and product-quantized formats.
      * 
      * @param path Path to the index file
      * @return Loaded index
@@ -90,12 +101,79 @@ public interface VectorIndex extends AutoCloseable {
                 return HnswVectorIndex.loadFrom(path);
             } else if ("MVEC".equals(magicStr)) {
                 return InMemoryVectorIndex.loadFrom(path);
+            } else if ("MVPQ".equals(magicStr)) {
+                return PqVectorIndex.loadFrom(path);
             } else {
                 throw new IOException("Unknown index format: " + magicStr);
             }
         }
     }
     
+    /**
+     * Loads an index for read-only use, memory-mapping the vectors of brute-force
+     * (.mvec) files and the graph of HNSW files instead of copying them onto the
+     * heap; see {@link InMemoryVectorIndex#loadMapped(Path)} and
+     * {@link HnswVectorIndex#loadMapped(Path)}. Other formats are loaded as
+     * by {@link #load(Path)}.
+     * 
+     * @param path Path to the index file
+     * @return Loaded index
+     * @throws IOException if the file cannot be read
+     */
+    static VectorIndex loadMapped(Path path) throws IOException {
+        byte[] magic = new byte[4];
+        try (InputStream is = Files.newInputStream(path)) {
+            is.read(magic);
+        }
+        String magicStr = new String(magic);
+        if ("MVEC".equals(magicStr)) {
+            return InMemoryVectorIndex.loadMapped(path);
+        } else if ("MHNS".equals(magicStr)) {
+            return HnswVectorIndex.loadMapped(path);
+        }
+        return load(path);
+    }
+    
+    /**
+     * Opens a writer that streams a brute-force (.mvec) index to a file entry
+     * by entry, for indexes too large to build in memory before saving.
+     * 
+     * @param path Path of the index file, replaced if it exists
+     * @param config Index configuration
+     * @return Writer that completes the file when closed
+     * @throws IOException if the file cannot be created
+     */
+    static IndexWriter writer(Path path, IndexConfig config) throws IOException {
+        return new IndexWriter(path, config);
+    }
+    
+    /**
+     * Reads an index's statistics without loading it: the counts are stored
+     * in the file header when the index is saved, so this takes the same time
+     * for any index size. {@link IndexStats#sizeBytes()} is the file size.
+     * Version 1 files, saved before counts were stored, are loaded and counted.
+     * 
+     * @param path Path to the index file
+     * @return Statistics of the stored index
+     * @throws IOException if the file cannot be read
+     */
+    static IndexStats readStats(Path path) throws IOException {
+        byte[] magic = new byte[4];
+        try (InputStream is = Files.newInputStream(path)) {
+            is.read(magic);
+        }
+        String magicStr = new String(magic);
+        if ("MVEC".equals(magicStr)) {
+            return InMemoryVectorIndex.readStats(path);
+        } else if ("MHNS".equals(magicStr)) {
+            return HnswVectorIndex.readStats(path);
+        } else if ("MVPQ".equals(magicStr)) {
+            return PqVectorIndex.readStats(path);
+        } else {
+            throw new IOException("Unknown index format: " + magicStr);
+        }
+    }
+    
     /**
      * Loads an index from an input stream.
      * Note: Stream must be buffered; this method reads magic bytes first.
@@ -118,6 +196,8 @@ public interface VectorIndex extends AutoCloseable {
             return HnswVectorIndex.loadFrom(bis);
         } else if ("MVEC".equals(magicStr)) {
             return InMemoryVectorIndex.loadFrom(bis);
+        } else if ("MVPQ".equals(magicStr)) {
+            return PqVectorIndex.loadFrom(bis);
         } else {
             throw new IOException("Unknown index format: " + magicStr);
         }
@@ -140,6 +220,36 @@ public interface VectorIndex extends AutoCloseable {
      */
     void addAll(List<VectorEntry> entries);
     
+    /**
+     * Removes a chunk and its embedding from the index.
+     * 
+     * <p>Searches skip the chunk right away. Its storage is reclaimed once
+     * enough removals have accumulated, and saved files hold only the chunks
+     * that remain.</p>
+     * 
+     * @param id Id of the chunk to remove
+     * @return true if a chunk was removed, false if the index has no chunk with that id
+     */
+    boolean remove(String id);
+    
+    /**
+     * Replaces the chunk with the same id and its embedding, or adds it if
+     * the index has no chunk with that id.
+     * 
+     * @param chunk The new version of the chunk
+     * @param embedding Its vector embedding
+     */
+    default void update(CodeChunk chunk, float[] embedding) {
+        if (embedding.length != getDimensions()) {
+            throw new IllegalArgumentException(String.format(
+                "Embedding dimension mismatch: expected %d, got %d",
+                getDimensions(), embedding.length
+            ));
+        }
+        remove(chunk.id());
+        add(chunk, embedding);
+    }
+    
     /**
      * Merges another index into this one.
      * 
@@ -172,6 +282,45 @@ public interface VectorIndex extends AutoCloseable {
      */
     List<SearchResult> search(float[] queryVector, int topK);
     
+    /**
+     * Searches using a pre-computed query vector and an explicit search mode.
+     * 
+     * @param queryVector Query embedding
+     * @param topK Number of results to return
+     * @param mode Search strategy
+     * @return List of search results, sorted by similarity (descending)
+     * @throws UnsupportedOperationException if this index does not support the mode
+     */
+    default List<SearchResult> search(float[] queryVector, int topK, SearchMode mode) {
+        if (mode == SearchMode.DEFAULT) {
+            return search(queryVector, topK);
+        }
+        throw new UnsupportedOperationException(
+            getClass().getSimpleName() + " does not support search mode " + mode);
+    }
+    
+    /**
+     * Searches using a pre-computed query vector with per-query settings
+     * such as search breadth and a time budget.
+     * 
+     * @param queryVector Query embedding
+     * @param topK Number of results to return
+     * @param options Search settings; settings this index has no use for are ignored
+     * @return List of search results, sorted by similarity (descending)
+     * @throws UnsupportedOperationException if this index does not support the mode
+     */
+    default List<SearchResult> search(float[] queryVector, int topK, SearchOptions options) {
+        ChunkFilter filter = options.filter();
+        if (filter == null) {
+            return search(queryVector, topK, options.mode());
+        }
+        // Generic fallback: rank everything, then filter; implementations filter during the search
+        return search(queryVector, size(), options.mode()).stream()
+            .filter(r -> filter.test(r.chunk()))
+            .limit(topK)
+            .toList();
+    }
+    
     /**
      * Searches for code chunks of a specific type.
      * 
@@ -182,6 +331,41 @@ public interface VectorIndex extends AutoCloseable {
      */
     List<SearchResult> searchByType(String query, ChunkType type, int topK);
     
+    /**
+     * Searches only the chunks of the given dependencies, as stamped by
+     * {@link IndexMerger}. The scope resolves to per-artifact ordinal bitmaps,
+     * so the cost follows the size of the scoped subset rather than the index.
+     * 
+     * @param queryVector Query embedding
+     * @param artifactPattern Exact {@code groupId:artifactId:version} or a
+     *                        {@code groupId[:artifactId[:version]]} glob, see
+     *                        {@link ChunkFilter#fromArtifacts(String)}
+     * @param topK Number of results to return
+     * @return Search results from matching artifacts, sorted by similarity (descending)
+     */
+    default List<SearchResult> searchByArtifact(float[] queryVector, String artifactPattern, int topK) {
+        return search(queryVector, topK, SearchOptions.defaults().withFilter(ChunkFilter.fromArtifacts(artifactPattern)));
+    }
+    
+    /**
+     * Searches with many pre-computed query vectors at once.
+     * 
+     * <p>Implementations may share work across the batch (e.g. scan each block
+     * of stored vectors once for all queries); the default runs the queries
+     * one after another.</p>
+     * 
+     * @param queries Query embeddings
+     * @param topK Number of results to return per query
+     * @return One result list per query, in query order
+     */
+    default List<List<SearchResult>> searchBatch(float[][] queries, int topK) {
+        List<List<SearchResult>> results = new ArrayList<>(queries.length);
+        for (float[] query : queries) {
+            results.add(search(query, topK));
+        }
+        return results;
+    }
+    
     // ==================== Analysis ====================
     
     /**
@@ -238,6 +422,27 @@ public interface VectorIndex extends AutoCloseable {
      */
     List<VectorEntry> entries();
 
+    /**
+     * Returns the entries whose chunk matches {@code filter}. Indexes resolve
+     * structured filters from their metadata bitmaps, so only the matching
+     * chunks are decoded and only their vectors copied.
+     *
+     * @param filter Chunks to return
+     * @return Matching vector entries, in index order
+     */
+    default List<VectorEntry> entries(ChunkFilter filter) {
+        return entries().stream().filter(entry -> filter.test(entry.chunk())).toList();
+    }
+
+    /**
+     * Returns whether {@link #entries()} gives back the embeddings that were
+     * added (normalized, for normalized indexes), rather than approximations
+     * reconstructed from quantized codes.
+     */
+    default boolean hasExactEmbeddings() {
+        return true;
+    }
+
     // ==================== Metadata ====================
     
     /**
@@ -255,6 +460,11 @@ public interface VectorIndex extends AutoCloseable {
      */
     int getDimensions();
     
+    /**
+     * Returns whether stored vectors are L2-normalized, so similarity is a plain dot product.
+     */
+    boolean isNormalized();
+    
     /**
      * Returns the number of indexed chunks.
      */
@@ -0,0 +1,28 @@
+package io.maven.vectors;
+
+/**
+ * Small vector helpers shared by the index implementations.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    /**
+     * Scales {@code vector} to unit length in place and returns it.
+     * Zero vectors are left unchanged.
+     */
+    static float[] normalize(float[] vector) {
+        float norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,216 @@
+package io.maven.vectors.parser;
+
+import io.maven.vectors.ChunkFilter;
+import io.maven.vectors.CodeChunk;
+import io.maven.vectors.VectorEntry;
+import io.maven.vectors.VectorIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds an index from source directories, re-embedding only what changed
+ * since the last build.
+ *
+ * <p>Each build leaves an {@link IndexManifest} beside the index with the
+ * SHA-256 of every source file. The next build loads the previous index and
+ * compares hashes: chunks of changed and deleted files are removed, changed
+ * and new files are parsed, and only chunks whose code is not already in the
+ * index are sent to the embedder. Unchanged files are neither parsed nor
+ * embedded, and their chunks are not decoded from the index. Embeddings are
+ * not reused from indexes that hold only approximations of them, such as
+ * product-quantized ones. Without a usable manifest and index, or when the settings differ
+ * from the last build, the index is built from scratch.</p>
+ *
+ * <pre>{@code
+ * IncrementalIndexer indexer = new IncrementalIndexer(chunker, indexConfig.toString());
+ * IncrementalIndexer.Result result = indexer.index(sourceRoots, indexPath,
+ *     () -> VectorIndex.create(indexConfig), model::embedBatch);
+ * result.save(indexPath);
+ * }</pre>
+ */
+public class IncrementalIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalIndexer.class);
+
+    private final JavaCodeChunker chunker;
+    private final String settings;
+
+    /**
+     * @param chunker Chunker that parses changed files
+     * @param settings Everything else the index depends on, such as its
+     *                 configuration and embedding model; a change rebuilds
+     *                 the index from scratch
+     */
+    public IncrementalIndexer(JavaCodeChunker chunker, String settings) {
+        this.chunker = Objects.requireNonNull(chunker, "chunker cannot be null");
+        this.settings = settings + "; " + chunker.getConfig();
+    }
+
+    /**
+     * Brings the index at {@code indexPath} up to date with the sources. The
+     * index and manifest are not written; see {@link Result#save(Path)}.
+     *
+     * @param sourceRoots Directories to index; missing ones are skipped
+     * @param indexPath Index file of the previous build, which may not exist
+     * @param newIndex Creates the empty index of a full build
+     * @param embedder Embeds chunk code, one vector per string in order
+     * @return The updated index with the manifest describing it
+     * @throws IOException if a source file cannot be read
+     */
+    public Result index(List<Path> sourceRoots, Path indexPath, Supplier<VectorIndex> newIndex,
+                        Function<List<String>, List<float[]>> embedder) throws IOException {
+        IndexManifest previous = readManifest(indexPath);
+        VectorIndex index = previous != null ? loadPrevious(indexPath) : null;
+        boolean rebuilt = index == null;
+        Map<String, String> previousHashes = rebuilt ? Map.of() : previous.files();
+
+        // Files are read once: hashed, and kept to be parsed if they changed
+        Map<String, String> hashes = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+
+        for (Path root : sourceRoots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            for (Path path : chunker.listSources(root)) {
+                byte[] content = Files.readAllBytes(path);
+                String file = path.toString();
+                String hash = IndexManifest.hash(content);
+                hashes.put(file, hash);
+                if (!hash.equals(previousHashes.get(file))) {
+                    sources.put(file, new String(content, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        Set<String> stale = new HashSet<>(sources.keySet());
+        Map<String, float[]> reusable = new HashMap<>();
+        int removedFiles = 0;
+        if (rebuilt) {
+            index = newIndex.get();
+        } else {
+            for (String file : previousHashes.keySet()) {
+                if (!hashes.containsKey(file)) {
+                    stale.add(file);
+                    removedFiles++;
+                }
+            }
+            // Keep the embeddings of removed chunks, as most code in a changed file is
+            // unchanged, unless the index only holds approximations of them
+            boolean exact = index.hasExactEmbeddings();
+            List<String> removedIds = new ArrayList<>();
+            for (VectorEntry entry : index.entries(ChunkFilter.inFiles(stale))) {
+                removedIds.add(entry.chunk().id());
+                if (exact) {
+                    reusable.put(entry.chunk().code(), entry.embedding());
+                }
+            }
+            for (String id : removedIds) {
+                index.remove(id);
+            }
+        }
+
+        List<CodeChunk> chunks = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            chunks.addAll(chunker.parseSource(source.getValue(), source.getKey()));
+        }
+        List<String> codes = new ArrayList<>();
+        for (CodeChunk chunk : chunks) {
+            if (!reusable.containsKey(chunk.code())) {
+                codes.add(chunk.code());
+            }
+        }
+        List<float[]> embeddings = codes.isEmpty() ? List.of() : embedder.apply(codes);
+        if (embeddings.size() != codes.size()) {
+            throw new IllegalStateException("Embedder returned " + embeddings.size()
+                + " vectors for " + codes.size() + " chunks");
+        }
+
+        List<VectorEntry> entries = new ArrayList<>(chunks.size());
+        int next = 0;
+        for (CodeChunk chunk : chunks) {
+            float[] embedding = reusable.get(chunk.code());
+            entries.add(new VectorEntry(chunk, embedding != null ? embedding : embeddings.get(next++)));
+        }
+        index.addAll(entries);
+
+        log.debug("Indexed {} changed and {} removed of {} files: {} chunks embedded, {} reused",
+            sources.size(), removedFiles, hashes.size(), codes.size(), chunks.size() - codes.size());
+        return new Result(index, new IndexManifest(settings, hashes), rebuilt, sources.size(), removedFiles,
+            codes.size(), chunks.size() - codes.size());
+    }
+
+    private IndexManifest readManifest(Path indexPath) {
+        try {
+            IndexManifest manifest = IndexManifest.read(IndexManifest.pathFor(indexPath));
+            if (manifest != null && manifest.settings().equals(settings) && Files.exists(indexPath)) {
+                return manifest;
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable manifest of {}: {}", indexPath, e.getMessage());
+        }
+        return null;
+    }
+
+    private VectorIndex loadPrevious(Path indexPath) {
+        try {
+            return VectorIndex.load(indexPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rebuilding {}: previous index cannot be loaded: {}", indexPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Outcome of {@link #index}.
+     *
+     * @param index The updated index
+     * @param manifest Manifest describing the index
+     * @param rebuilt Whether the index was built from scratch
+     * @param changedFiles Files parsed because they are new or changed
+     * @param removedFiles Files whose chunks were removed because they were deleted
+     * @param embeddedChunks Chunks sent to the embedder
+     * @param reusedChunks Chunks of changed files whose embedding was kept
+     */
+    public record Result(
+        VectorIndex index,
+        IndexManifest manifest,
+        boolean rebuilt,
+        int changedFiles,
+        int removedFiles,
+        int embeddedChunks,
+        int reusedChunks
+    ) {
+        /**
+         * Whether the index differs from the one on disk.
+         */
+        public boolean isModified() {
+            return rebuilt || changedFiles > 0 || removedFiles > 0;
+        }
+
+        /**
+         * Saves the index, unless it is unchanged and already there, then its manifest.
+         */
+        public void save(Path indexPath) throws IOException {
+            if (isModified() || !Files.exists(indexPath)) {
+                index.save(indexPath);
+            }
+            manifest.write(IndexManifest.pathFor(indexPath));
+        }
+    }
+}
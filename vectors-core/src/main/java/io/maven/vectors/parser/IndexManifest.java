@@ -0,0 +1,77 @@
+package io.maven.vectors.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content hashes of the source files an index was built from, saved as JSON
+ * next to the index so the next build can tell which files changed; see
+ * {@link IncrementalIndexer}.
+ *
+ * @param version Manifest format version
+ * @param settings Chunker and index settings the index was built with
+ * @param files SHA-256 of each source file, keyed by the file name its chunks record
+ */
+public record IndexManifest(int version, String settings, Map<String, String> files) {
+
+    static final int VERSION = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    public IndexManifest {
+        files = Collections.unmodifiableMap(new TreeMap<>(files));
+    }
+
+    public IndexManifest(String settings, Map<String, String> files) {
+        this(VERSION, settings, files);
+    }
+
+    /**
+     * Returns where the manifest of an index file is kept: beside it, with
+     * {@code .manifest.json} appended to its name.
+     */
+    public static Path pathFor(Path indexPath) {
+        return indexPath.resolveSibling(indexPath.getFileName() + ".manifest.json");
+    }
+
+    /**
+     * Reads a manifest, or returns null if there is none or it was written in
+     * another format version.
+     *
+     * @throws IOException if the file exists but cannot be read or parsed
+     */
+    public static IndexManifest read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        IndexManifest manifest = MAPPER.readValue(path.toFile(), IndexManifest.class);
+        return manifest.version() == VERSION ? manifest : null;
+    }
+
+    public void write(Path path) throws IOException {
+        MAPPER.writeValue(path.toFile(), this);
+    }
+
+    /**
+     * Returns the hex SHA-256 of a file's content.
+     */
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -88,21 +88,36 @@ public class JavaCodeChunker {
     public List<CodeChunk> parseDirectory(Path directory) throws IOException {
         List<CodeChunk> allChunks = new ArrayList<>();
         
-        try (Stream<Path> paths = Files.walk(directory)) {
-            paths.filter(p -> p.toString().endsWith(".java"))
-                 .filter(p -> !isExcluded(p))
-                 .forEach(path -> {
-                     try {
-                         allChunks.addAll(parseFile(path));
-                     } catch (IOException e) {
-                         log.warn("Failed to parse {}: {}", path, e.getMessage());
-                     }
-                 });
+        for (Path path : listSources(directory)) {
+            try {
+                allChunks.addAll(parseFile(path));
+            } catch (IOException e) {
+                log.warn("Failed to parse {}: {}", path, e.getMessage());
+            }
         }
         
         return allChunks;
     }
     
+    /**
+     * Lists the Java files in a directory (recursively) that
+     * {@link #parseDirectory(Path)} parses, skipping excluded paths.
+     */
+    public List<Path> listSources(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(p -> p.toString().endsWith(".java"))
+                        .filter(p -> !isExcluded(p))
+                        .toList();
+        }
+    }
+    
+    /**
+     * Returns the configuration chunks are extracted with.
+     */
+    public ChunkerConfig getConfig() {
+        return config;
+    }
+    
     private boolean isExcluded(Path path) {
         String pathStr = path.toString().toLowerCase();
         return config.excludePatterns().stream()
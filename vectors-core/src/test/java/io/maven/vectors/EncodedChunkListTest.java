@@ -0,0 +1,92 @@
+package io.maven.vectors;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for EncodedChunkList - on-demand decoding of binary chunk records.
+ */
+class EncodedChunkListTest {
+
+    @Test
+    void testDecodesEachRecordOnDemand() throws IOException {
+        List<CodeChunk> chunks = List.of(
+            CodeChunk.ofMethod("find", "return repo.find(id);", "src/UserService.java", 10, 12, "UserService"),
+            CodeChunk.of("Ünïcode", ChunkType.RECORD, "record R(String s) { /* 日本語 */ }", "R.java", 1, 1)
+                .withArtifact("com.example:lib:1.0"),
+            CodeChunk.of("empty", ChunkType.FIELD, "", "F.java", 3, 3)
+        );
+
+        EncodedChunkList list = of(chunks);
+
+        assertEquals(chunks, list);
+        assertEquals(chunks.get(2), list.get(2));
+    }
+
+    @Test
+    void testKeysSkipNameAndCode() throws IOException {
+        CodeChunk chunk = CodeChunk.ofMethod("find", "return repo.find(id);", "src/UserService.java", 10, 12,
+                "UserService")
+            .withArtifact("com.example:lib:1.0");
+
+        CodeChunk keys = of(List.of(chunk)).keys(0);
+
+        assertEquals(chunk.id(), keys.id());
+        assertEquals(chunk.type(), keys.type());
+        assertEquals(chunk.file(), keys.file());
+        assertEquals(chunk.parentClass(), keys.parentClass());
+        assertEquals(chunk.getArtifact(), keys.getArtifact());
+        assertEquals("", keys.code());
+    }
+
+    @Test
+    void testAddedChunksFollowEncodedOnes() throws IOException {
+        CodeChunk first = CodeChunk.of("a", ChunkType.METHOD, "a()", "A.java", 1, 1);
+        CodeChunk added = CodeChunk.of("b", ChunkType.METHOD, "b()", "B.java", 1, 1);
+        EncodedChunkList list = of(List.of(first));
+
+        list.add(added);
+
+        assertEquals(List.of(first, added), list);
+        assertEquals(added, list.keys(1));
+    }
+
+    @Test
+    void testStoredOffsetsLocateRecords() throws IOException {
+        List<CodeChunk> chunks = List.of(
+            CodeChunk.of("a", ChunkType.METHOD, "a()", "A.java", 1, 1),
+            CodeChunk.of("b", ChunkType.CLASS, "class B { }", "B.java", 1, 1)
+        );
+        byte[] bytes = encode(chunks);
+        long split = ChunkCodec.encode(chunks.get(0)).length;
+        // Records may start past the buffer's position, as in a section read with its neighbours
+        ByteBuffer records = ByteBuffer.allocate(bytes.length + 5).position(5);
+        records.put(bytes).position(5);
+
+        assertEquals(chunks, EncodedChunkList.of(records, new long[] {0, split, bytes.length}));
+        assertThrows(IOException.class, () -> EncodedChunkList.of(records, new long[] {0, split, bytes.length + 1}));
+        assertThrows(IOException.class, () -> EncodedChunkList.of(records, new long[] {0, 0, bytes.length}));
+    }
+
+    private static EncodedChunkList of(List<CodeChunk> chunks) throws IOException {
+        long[] offsets = new long[chunks.size() + 1];
+        for (int i = 0; i < chunks.size(); i++) {
+            offsets[i + 1] = offsets[i] + ChunkCodec.encodedSize(chunks.get(i));
+        }
+        return EncodedChunkList.of(ByteBuffer.wrap(encode(chunks)), offsets);
+    }
+
+    private static byte[] encode(List<CodeChunk> chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (CodeChunk chunk : chunks) {
+            out.writeBytes(ChunkCodec.encode(chunk));
+        }
+        return out.toByteArray();
+    }
+}
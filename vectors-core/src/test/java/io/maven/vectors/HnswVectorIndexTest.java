@@ -7,9 +7,13 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -166,6 +170,140 @@ class HnswVectorIndexTest {
         }
     }
 
+    @Test
+    void testSearchBatchMatchesSingleSearches() {
+        for (int i = 0; i < 200; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[][] queries = new float[20][];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomEmbedding();
+        }
+
+        List<List<SearchResult>> batch = index.searchBatch(queries, 5);
+
+        assertEquals(queries.length, batch.size());
+        for (int q = 0; q < queries.length; q++) {
+            assertEquals(index.search(queries[q], 5), batch.get(q));
+        }
+    }
+
+    @Test
+    void testBinarySearchModeUnsupported() {
+        index.add(createTestChunk("method1"), randomEmbedding());
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> index.search(randomEmbedding(), 5, SearchMode.BINARY));
+        assertEquals(1, index.search(randomEmbedding(), 5, SearchMode.DEFAULT).size());
+    }
+
+    @Test
+    void testDefaultOptionsMatchPlainSearch() {
+        for (int i = 0; i < 100; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+
+        assertEquals(index.search(query, 10), index.search(query, 10, SearchOptions.defaults()));
+    }
+
+    @Test
+    void testFullEfMatchesBruteForce() {
+        InMemoryVectorIndex exact = new InMemoryVectorIndex(config);
+        for (int i = 0; i < 300; i++) {
+            float[] embedding = randomEmbedding();
+            index.add(createTestChunk("method" + i), embedding);
+            exact.add(createTestChunk("method" + i), embedding);
+        }
+
+        // An ef covering the whole graph visits every reachable node
+        SearchOptions options = SearchOptions.defaults().withEf(300);
+        for (int q = 0; q < 5; q++) {
+            float[] query = randomEmbedding();
+            assertEquals(exact.search(query, 10), index.search(query, 10, options));
+        }
+    }
+
+    @Test
+    void testExpiredTimeoutReturnsBestSoFar() {
+        for (int i = 0; i < 500; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+
+        SearchOptions options = SearchOptions.defaults().withEf(500).withTimeout(Duration.ZERO);
+        List<SearchResult> results = index.search(randomEmbedding(), 10, options);
+
+        assertFalse(results.isEmpty());
+        assertTrue(results.size() <= 10);
+    }
+
+    @Test
+    void testSearchByTypeReturnsFullTopKForRareType() {
+        for (int i = 0; i < 2000; i++) {
+            ChunkType type = i % 100 == 0 ? ChunkType.RECORD : ChunkType.METHOD;
+            index.add(createChunkOfType("chunk" + i, type), randomEmbedding());
+        }
+        index.setEmbeddingProvider(text -> randomEmbedding());
+
+        // 20 records among 2000 chunks: over-fetching 10x and post-filtering finds ~1
+        List<SearchResult> results = index.searchByType("query", ChunkType.RECORD, 10);
+
+        assertEquals(10, results.size());
+        for (SearchResult result : results) {
+            assertEquals(ChunkType.RECORD, result.chunk().type());
+        }
+    }
+
+    @Test
+    void testFilteredSearchMatchesFilteredBruteForce() {
+        InMemoryVectorIndex exact = new InMemoryVectorIndex(config);
+        for (int i = 0; i < 1000; i++) {
+            float[] embedding = randomEmbedding();
+            CodeChunk chunk = createTestChunk("method" + i).withArtifact(i % 50 == 0 ? "g:rare:1.0" : "g:common:1.0");
+            index.add(chunk, embedding);
+            exact.add(chunk, embedding);
+        }
+
+        SearchOptions options = SearchOptions.defaults().withFilter(ChunkFilter.inArtifact("g:rare:1.0"));
+        for (int q = 0; q < 5; q++) {
+            float[] query = randomEmbedding();
+            assertEquals(exact.search(query, 10, options), index.search(query, 10, options));
+        }
+    }
+
+    @Test
+    void testBitmapAllowListWalkFindsNearestMatches() {
+        InMemoryVectorIndex exact = new InMemoryVectorIndex(config);
+        for (int i = 0; i < 2000; i++) {
+            float[] embedding = randomEmbedding();
+            CodeChunk chunk = createChunkOfType("chunk" + i, i % 4 == 0 ? ChunkType.FIELD : ChunkType.METHOD);
+            index.add(chunk, embedding);
+            exact.add(chunk, embedding);
+        }
+
+        // 500 matches is too many to score directly, so the graph walk uses the type bitmap
+        SearchOptions options = SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.FIELD));
+        int hits = 0;
+        for (int q = 0; q < 10; q++) {
+            float[] query = randomEmbedding();
+            List<SearchResult> results = index.search(query, 10, options);
+            assertEquals(10, results.size());
+            hits += (int) results.stream().filter(exact.search(query, 10, options)::contains).count();
+        }
+        assertTrue(hits >= 90, "recall@10 " + hits + "/100");
+    }
+
+    @Test
+    void testFilterMatchingNothingReturnsEmpty() {
+        for (int i = 0; i < 200; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+
+        SearchOptions options = SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.ENUM));
+
+        assertTrue(index.search(randomEmbedding(), 10, options).isEmpty());
+    }
+
     // ==================== Analysis Tests ====================
 
     @Test
@@ -314,6 +452,192 @@ class HnswVectorIndexTest {
         assertTrue(results.get(0).similarity() > 0.99f);
     }
 
+    @Test
+    void testLoadedGraphGivesIdenticalResults() throws IOException {
+        for (int i = 0; i < 300; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+
+        HnswVectorIndex loaded = HnswVectorIndex.loadFrom(new ByteArrayInputStream(index.toBytes()));
+
+        // The graph is stored as-is, not rebuilt, so traversal is identical
+        for (int q = 0; q < 10; q++) {
+            float[] query = randomEmbedding();
+            assertEquals(index.search(query, 10), loaded.search(query, 10));
+        }
+    }
+
+    @Test
+    void testLoadedIndexFiltersAndGrows() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            ChunkType type = i % 20 == 0 ? ChunkType.RECORD : ChunkType.METHOD;
+            index.add(createChunkOfType("chunk" + i, type), randomEmbedding());
+        }
+        HnswVectorIndex loaded = HnswVectorIndex.loadFrom(new ByteArrayInputStream(index.toBytes()));
+        float[] added = randomEmbedding();
+
+        loaded.add(createTestChunk("added"), added);
+
+        List<SearchResult> records = loaded.search(randomEmbedding(), 20,
+            SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.RECORD)));
+        assertEquals(10, records.size());
+        records.forEach(r -> assertEquals(ChunkType.RECORD, r.chunk().type()));
+        assertEquals("added", loaded.search(added, 1).get(0).chunk().name());
+        assertEquals(index.entries().get(42).chunk(), loaded.entries().get(42).chunk());
+    }
+
+    @Test
+    void testReadStatsWithoutLoading(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 30; i++) {
+            index.add(createChunkOfType("chunk" + i, i % 3 == 0 ? ChunkType.FIELD : ChunkType.METHOD),
+                randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.hnsw");
+        index.save(path);
+
+        IndexStats stats = VectorIndex.readStats(path);
+
+        assertEquals(30, stats.totalChunks());
+        assertEquals(Map.of(ChunkType.FIELD, 10, ChunkType.METHOD, 20), stats.chunksByType());
+        assertEquals(1, stats.fileCount());
+        assertEquals(MODEL_ID, stats.modelId());
+        assertEquals(DIMENSIONS, stats.dimensions());
+        assertEquals(Files.size(path), stats.sizeBytes());
+    }
+
+    @Test
+    void testGraphIsSavedAsSections(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.hnsw");
+        index.save(path);
+
+        try (FileChannel channel = FileChannel.open(path)) {
+            SectionReader reader = new SectionReader(channel);
+            SectionedFile.Header header = reader.readHeader();
+
+            assertEquals(2, header.version());
+            assertEquals(200, header.count());
+            assertEquals(200L * DIMENSIONS * Float.BYTES, reader.require(HnswGraph.SECTION_VECTORS).length());
+            assertEquals(200L * (2 * 16 + 1) * Integer.BYTES, reader.require(HnswGraph.SECTION_LAYER0).length());
+            for (SectionedFile.Section section : reader.sections()) {
+                assertEquals(0, section.offset() % SectionedFile.ALIGNMENT);
+            }
+            reader.finish();
+        }
+        float[] query = randomEmbedding();
+        assertEquals(index.search(query, 10), HnswVectorIndex.loadFrom(path).search(query, 10));
+    }
+
+    @Test
+    void testLoadMappedSearchesLikeLoaded(@TempDir Path tempDir) throws IOException {
+        HnswVectorIndex unnormalized = new HnswVectorIndex(config.withNormalized(false).withHnsw(4, 100, 50), 1000);
+        for (int i = 0; i < 1000; i++) {
+            unnormalized.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.hnsw");
+        unnormalized.save(path);
+
+        HnswVectorIndex loaded = HnswVectorIndex.loadFrom(path);
+        VectorIndex mapped = VectorIndex.loadMapped(path);
+
+        assertInstanceOf(HnswVectorIndex.class, mapped);
+        assertEquals(loaded.size(), mapped.size());
+        for (int i = 0; i < 20; i++) {
+            float[] query = randomEmbedding();
+            assertEquals(loaded.search(query, 10), mapped.search(query, 10));
+        }
+        List<VectorEntry> loadedEntries = loaded.entries();
+        List<VectorEntry> mappedEntries = mapped.entries();
+        for (int i = 0; i < loadedEntries.size(); i += 97) {
+            assertEquals(loadedEntries.get(i).chunk(), mappedEntries.get(i).chunk());
+            assertArrayEquals(loadedEntries.get(i).embedding(), mappedEntries.get(i).embedding());
+        }
+        assertArrayEquals(Files.readAllBytes(path), mapped.toBytes());
+    }
+
+    @Test
+    void testMappedIndexSavesOverItsOwnFile(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.hnsw");
+        index.save(path);
+        byte[] saved = Files.readAllBytes(path);
+
+        HnswVectorIndex mapped = HnswVectorIndex.loadMapped(path);
+        mapped.save(path);
+
+        float[] query = randomEmbedding();
+        assertEquals(index.search(query, 10), mapped.search(query, 10));
+        assertEquals(index.search(query, 10), HnswVectorIndex.loadFrom(path).search(query, 10));
+        assertArrayEquals(saved, Files.readAllBytes(path));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void testMappedIndexIsReadOnly(@TempDir Path tempDir) throws IOException {
+        index.add(createTestChunk("method"), randomEmbedding());
+        Path path = tempDir.resolve("index.hnsw");
+        index.save(path);
+
+        HnswVectorIndex mapped = HnswVectorIndex.loadMapped(path);
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> mapped.add(createTestChunk("other"), randomEmbedding()));
+        assertThrows(UnsupportedOperationException.class,
+            () -> mapped.addAll(List.of(new VectorEntry(createTestChunk("other"), randomEmbedding()))));
+        assertEquals(1, mapped.size());
+    }
+
+    @Test
+    void testHnswParametersSurviveSaveAndLoad() throws IOException {
+        HnswVectorIndex tuned = new HnswVectorIndex(config.withHnsw(8, 64, 24), 1000);
+        for (int i = 0; i < 100; i++) {
+            tuned.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+
+        HnswVectorIndex loaded = HnswVectorIndex.loadFrom(new ByteArrayInputStream(tuned.toBytes()));
+
+        assertEquals(8, loaded.getConfig().hnswM());
+        assertEquals(64, loaded.getConfig().hnswEfConstruction());
+        assertEquals(24, loaded.getConfig().hnswEfSearch());
+        assertEquals(tuned.search(query, 10), loaded.search(query, 10));
+    }
+
+    @Test
+    void testInvalidHnswParametersRejected() {
+        assertThrows(IllegalArgumentException.class, () -> config.withHnsw(1, 200, 50));
+        assertThrows(IllegalArgumentException.class, () -> config.withHnsw(16, 0, 50));
+        assertThrows(IllegalArgumentException.class, () -> config.withHnsw(16, 200, 0));
+    }
+
+    @Test
+    void testNormalizedIndexSurvivesSaveAndLoad(@TempDir Path tempDir) throws IOException {
+        HnswVectorIndex normalized = new HnswVectorIndex(config.withNormalized(true), 1000);
+        float[] known = randomEmbedding();
+        for (int i = 0; i < known.length; i++) {
+            known[i] *= 5; // Not unit length on input
+        }
+        normalized.add(createTestChunk("known.method"), known);
+        for (int i = 0; i < 10; i++) {
+            normalized.add(createTestChunk("other.method" + i), randomEmbedding());
+        }
+
+        Path indexPath = tempDir.resolve("normalized.mvec");
+        normalized.save(indexPath);
+        HnswVectorIndex loaded = HnswVectorIndex.loadFrom(indexPath);
+
+        assertTrue(loaded.isNormalized());
+        List<SearchResult> results = loaded.search(known, 1);
+        assertEquals("known.method", results.get(0).chunk().name());
+        assertTrue(results.get(0).similarity() > 0.99f);
+    }
+
     // ==================== Merge Tests ====================
 
     @Test
@@ -364,6 +688,78 @@ class HnswVectorIndexTest {
         assertEquals(2, index.size());
     }
 
+    // ==================== Remove Tests ====================
+
+    @Test
+    void testRemovedNodesAreNeverReturned() throws IOException {
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            float[] embedding = randomEmbedding();
+            embeddings.add(embedding);
+            index.add(createTestChunk("method" + i), embedding);
+        }
+        // Every fifth node stays below the compaction threshold
+        for (int i = 0; i < 1000; i += 5) {
+            assertTrue(index.remove(createTestChunk("method" + i).id()));
+        }
+        assertFalse(index.remove(createTestChunk("method0").id()));
+        assertEquals(800, index.size());
+        assertEquals(800, index.getStats().totalChunks());
+
+        int found = 0;
+        for (int i = 0; i < 1000; i++) {
+            List<SearchResult> results = index.search(embeddings.get(i), 5);
+            assertTrue(results.stream().noneMatch(r -> Integer.parseInt(r.chunk().name().substring(6)) % 5 == 0));
+            if (i % 5 != 0 && results.get(0).chunk().name().equals("method" + i)) {
+                found++;
+            }
+        }
+        // Live nodes stay reachable through the relinked neighbors
+        assertTrue(found >= 790, "self-recall after removal: " + found);
+
+        HnswVectorIndex loaded = HnswVectorIndex.loadFrom(new ByteArrayInputStream(index.toBytes()));
+        assertEquals(800, loaded.size());
+        assertEquals(index.search(embeddings.get(1), 10), loaded.search(embeddings.get(1), 10));
+    }
+
+    @Test
+    void testRemovePastThresholdCompacts() {
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            float[] embedding = randomEmbedding();
+            embeddings.add(embedding);
+            index.add(createTestChunk("method" + i), embedding);
+        }
+        for (int i = 0; i < 200; i++) {
+            index.remove(createTestChunk("method" + i).id());
+        }
+
+        assertEquals(200, index.size());
+        assertEquals(200, index.entries().size());
+        for (int i = 200; i < 400; i += 10) {
+            assertEquals("method" + i, index.search(embeddings.get(i), 1).get(0).chunk().name());
+        }
+        // Removed ids can be added again after compaction
+        index.add(createTestChunk("method0"), embeddings.get(0));
+        assertEquals("method0", index.search(embeddings.get(0), 1).get(0).chunk().name());
+    }
+
+    @Test
+    void testUpdateMovesChunk() {
+        for (int i = 0; i < 100; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        CodeChunk chunk = createTestChunk("method7");
+        float[] embedding = randomEmbedding();
+
+        index.update(chunk, embedding);
+
+        assertEquals(100, index.size());
+        List<SearchResult> results = index.search(embedding, 1);
+        assertEquals(chunk, results.get(0).chunk());
+        assertEquals(1.0f, results.get(0).similarity(), 1e-5f);
+    }
+
     // ==================== Edge Cases ====================
 
     @Test
@@ -381,6 +777,34 @@ class HnswVectorIndexTest {
         assertEquals(10, results.size());
     }
 
+    @Test
+    void testParallelBatchBuildFindsStoredVectors() {
+        // Large enough for addAll to link nodes in parallel
+        List<VectorEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            entries.add(new VectorEntry(createTestChunk("Batch.method" + i), randomEmbedding()));
+        }
+        index.addAll(entries);
+
+        for (int i = 0; i < entries.size(); i += 40) {
+            List<SearchResult> results = index.search(entries.get(i).embedding(), 1);
+            assertEquals("Batch.method" + i, results.get(0).chunk().name());
+        }
+    }
+
+    @Test
+    void testGrowsPastMaxItems() {
+        HnswVectorIndex small = new HnswVectorIndex(config, 10);
+        float[] last = null;
+        for (int i = 0; i < 50; i++) {
+            last = randomEmbedding();
+            small.add(createTestChunk("method" + i), last);
+        }
+
+        assertEquals(50, small.size());
+        assertEquals("method49", small.search(last, 1).get(0).chunk().name());
+    }
+
     @Test
     void testSearchTopKGreaterThanSize() {
         // Add only 3 items
@@ -0,0 +1,905 @@
+package io.maven.vectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InMemoryVectorIndex - exact brute-force search.
+ */
+class InMemoryVectorIndexTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final String MODEL_ID = "test-model";
+
+    private IndexConfig config;
+    private InMemoryVectorIndex index;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        config = IndexConfig.forModel(MODEL_ID, DIMENSIONS);
+        index = new InMemoryVectorIndex(config);
+        random = new Random(42);
+    }
+
+    // ==================== Storage Tests ====================
+
+    @Test
+    void testVectorsSurviveStoreGrowth() {
+        InMemoryVectorIndex small = new InMemoryVectorIndex(config, 2);
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            float[] embedding = randomEmbedding();
+            embeddings.add(embedding);
+            small.add(createTestChunk("method" + i), embedding);
+        }
+
+        List<VectorEntry> entries = small.entries();
+
+        assertEquals(100, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertArrayEquals(embeddings.get(i), entries.get(i).embedding());
+        }
+    }
+
+    @Test
+    void testAddCopiesEmbedding() {
+        float[] embedding = randomEmbedding();
+        float[] original = embedding.clone();
+        index.add(createTestChunk("method1"), embedding);
+
+        embedding[0] += 1.0f;
+
+        assertArrayEquals(original, index.entries().get(0).embedding());
+    }
+
+    @Test
+    void testAddWithDimensionMismatch() {
+        assertThrows(IllegalArgumentException.class, () ->
+            index.add(createTestChunk("method1"), new float[DIMENSIONS + 1]));
+    }
+
+    // ==================== Search Tests ====================
+
+    @Test
+    void testSearchFindsExactMatchFirst() {
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            float[] embedding = randomEmbedding();
+            embeddings.add(embedding);
+            index.add(createTestChunk("method" + i), embedding);
+        }
+
+        List<SearchResult> results = index.search(embeddings.get(123), 5);
+
+        assertEquals(5, results.size());
+        assertEquals("method123", results.get(0).chunk().name());
+        assertTrue(results.get(0).similarity() > 0.99f);
+    }
+
+    @Test
+    void testSearchMatchesFullSort() {
+        for (int i = 0; i < 300; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+
+        List<SearchResult> topTen = index.search(query, 10);
+        List<SearchResult> all = index.search(query, index.size());
+
+        assertEquals(10, topTen.size());
+        assertEquals(index.size(), all.size());
+        for (int i = 0; i < topTen.size(); i++) {
+            assertEquals(all.get(i).chunk(), topTen.get(i).chunk());
+        }
+        for (int i = 0; i < all.size() - 1; i++) {
+            assertTrue(all.get(i).similarity() >= all.get(i + 1).similarity());
+        }
+    }
+
+    @Test
+    void testSearchByTypeReturnsOnlyThatType() {
+        for (int i = 0; i < 50; i++) {
+            ChunkType type = i % 10 == 0 ? ChunkType.RECORD : ChunkType.METHOD;
+            index.add(CodeChunk.of("chunk" + i, type, "code" + i, "TestFile.java", 1, 3), randomEmbedding());
+        }
+        index.setEmbeddingProvider(text -> randomEmbedding());
+
+        List<SearchResult> results = index.searchByType("query", ChunkType.RECORD, 10);
+
+        assertEquals(5, results.size());
+        for (SearchResult result : results) {
+            assertEquals(ChunkType.RECORD, result.chunk().type());
+        }
+    }
+
+    @Test
+    void testSearchWithNonPositiveTopK() {
+        index.add(createTestChunk("method1"), randomEmbedding());
+
+        assertTrue(index.search(randomEmbedding(), 0).isEmpty());
+    }
+
+    @Test
+    void testSearchEmptyIndex() {
+        assertTrue(index.search(randomEmbedding(), 5).isEmpty());
+    }
+
+    @Test
+    void testNormalizedIndexScoresMatchCosine() {
+        InMemoryVectorIndex normalized = new InMemoryVectorIndex(config.withNormalized(true));
+        for (int i = 0; i < 50; i++) {
+            float[] embedding = scaled(randomEmbedding(), 1 + i);
+            index.add(createTestChunk("method" + i), embedding);
+            normalized.add(createTestChunk("method" + i), embedding);
+        }
+        float[] query = scaled(randomEmbedding(), 3.5f);
+
+        List<SearchResult> expected = index.search(query, 10);
+        List<SearchResult> actual = normalized.search(query, 10);
+
+        assertTrue(normalized.isNormalized());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).chunk(), actual.get(i).chunk());
+            assertEquals(expected.get(i).similarity(), actual.get(i).similarity(), 1e-5f);
+        }
+    }
+
+    @Test
+    void testParallelSearchMatchesSequential() {
+        for (int i = 0; i < 10_000; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+        List<SearchResult> expected = index.search(query, 25);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            index.setSearchPool(pool);
+            index.setParallelThreshold(0);
+
+            List<SearchResult> actual = index.search(query, 25);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).chunk(), actual.get(i).chunk());
+                assertEquals(expected.get(i).similarity(), actual.get(i).similarity());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelSearchRespectsFilter() {
+        for (int i = 0; i < 5_000; i++) {
+            ChunkType type = i % 100 == 0 ? ChunkType.RECORD : ChunkType.METHOD;
+            index.add(CodeChunk.of("chunk" + i, type, "code" + i, "TestFile.java", 1, 3), randomEmbedding());
+        }
+        index.setEmbeddingProvider(text -> randomEmbedding());
+        index.setSearchPool(ForkJoinPool.commonPool());
+        index.setParallelThreshold(0);
+
+        List<SearchResult> results = index.searchByType("query", ChunkType.RECORD, 100);
+
+        assertEquals(50, results.size());
+        for (SearchResult result : results) {
+            assertEquals(ChunkType.RECORD, result.chunk().type());
+        }
+    }
+
+    @Test
+    void testSearchBatchMatchesSingleSearches() {
+        // Enough vectors for several scan blocks
+        for (int i = 0; i < 3_000; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[][] queries = new float[7][];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomEmbedding();
+        }
+
+        List<List<SearchResult>> batch = index.searchBatch(queries, 10);
+
+        assertEquals(queries.length, batch.size());
+        for (int q = 0; q < queries.length; q++) {
+            assertEquals(index.search(queries[q], 10), batch.get(q));
+        }
+    }
+
+    @Test
+    void testParallelSearchBatchMatchesSingleSearches() {
+        for (int i = 0; i < 500; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[][] queries = new float[9][];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomEmbedding();
+        }
+        index.setSearchPool(ForkJoinPool.commonPool());
+        index.setParallelThreshold(0);
+
+        List<List<SearchResult>> batch = index.searchBatch(queries, 10);
+
+        for (int q = 0; q < queries.length; q++) {
+            assertEquals(index.search(queries[q], 10), batch.get(q));
+        }
+    }
+
+    @Test
+    void testSearchBatchOnEmptyIndex() {
+        List<List<SearchResult>> batch = index.searchBatch(new float[][]{randomEmbedding(), randomEmbedding()}, 5);
+
+        assertEquals(2, batch.size());
+        assertTrue(batch.get(0).isEmpty());
+    }
+
+    // ==================== Persistence Tests ====================
+
+    @Test
+    void testSaveAndLoadPreservesVectors(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 30; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(path);
+
+        assertEquals(index.size(), loaded.size());
+        List<VectorEntry> expected = index.entries();
+        List<VectorEntry> actual = loaded.entries();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).chunk(), actual.get(i).chunk());
+            assertArrayEquals(expected.get(i).embedding(), actual.get(i).embedding());
+        }
+    }
+
+    @Test
+    void testNormalizedFlagSurvivesSaveAndLoad(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex normalized = new InMemoryVectorIndex(config.withNormalized(true));
+        normalized.add(createTestChunk("method1"), scaled(randomEmbedding(), 4));
+
+        Path path = tempDir.resolve("normalized.mvec");
+        normalized.save(path);
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(path);
+
+        assertTrue(loaded.isNormalized());
+        assertArrayEquals(normalized.entries().get(0).embedding(), loaded.entries().get(0).embedding());
+    }
+
+    @Test
+    void testLoadsVersion1Files() throws IOException {
+        CodeChunk chunk = createTestChunk("legacy");
+        float[] embedding = randomEmbedding();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.write("MVEC".getBytes());
+        dos.writeShort(1);
+        dos.writeInt(DIMENSIONS);
+        dos.writeInt(1);
+        dos.writeLong(MODEL_ID.hashCode());
+        dos.writeUTF(MODEL_ID);
+        byte[] json = new ObjectMapper().writeValueAsBytes(List.of(chunk));
+        dos.writeInt(json.length);
+        dos.write(json);
+        for (float v : embedding) {
+            dos.writeFloat(v);
+        }
+
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(new ByteArrayInputStream(baos.toByteArray()));
+
+        assertEquals(1, loaded.size());
+        assertFalse(loaded.isNormalized());
+        assertEquals(chunk, loaded.entries().get(0).chunk());
+        assertArrayEquals(embedding, loaded.entries().get(0).embedding());
+    }
+
+    @Test
+    void testSectionsAreAlignedAndChecksummed(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(
+            config.withQuantization(Quantization.INT8).withRerank(true).withBinaryCodes(true));
+        for (int i = 0; i < 50; i++) {
+            quantized.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+        quantized.save(path);
+
+        try (FileChannel channel = FileChannel.open(path)) {
+            SectionReader reader = new SectionReader(channel);
+            SectionedFile.Header header = reader.readHeader();
+
+            assertEquals(4, header.version());
+            assertEquals(50, header.count());
+            assertEquals(7, reader.sections().size());
+            for (SectionedFile.Section section : reader.sections()) {
+                assertEquals(0, section.offset() % SectionedFile.ALIGNMENT);
+            }
+            reader.finish();
+        }
+    }
+
+    @Test
+    void testBinaryChunkRecordsRoundTrip() throws IOException {
+        CodeChunk plain = createTestChunk("plain");
+        CodeChunk rich = CodeChunk.ofMethod("naïve", "String s = \"日本語 \uD83D\uDE00\";",
+                "src/Ünïcode.java", 4, 9, "Outer")
+            .withArtifact("com.example:lib:1.0");
+        index.add(plain, randomEmbedding());
+        index.add(rich, randomEmbedding());
+
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(new ByteArrayInputStream(index.toBytes()));
+
+        assertEquals(plain, loaded.entries().get(0).chunk());
+        assertEquals(rich, loaded.entries().get(1).chunk());
+    }
+
+    @Test
+    void testLoadRejectsCorruptData() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        byte[] bytes = index.toBytes();
+
+        byte[] corruptVector = bytes.clone();
+        corruptVector[bytes.length - 20] ^= 1;
+        byte[] corruptHeader = bytes.clone();
+        corruptHeader[10] ^= 1;
+
+        IOException data = assertThrows(IOException.class,
+            () -> InMemoryVectorIndex.loadFrom(new ByteArrayInputStream(corruptVector)));
+        IOException header = assertThrows(IOException.class,
+            () -> InMemoryVectorIndex.loadFrom(new ByteArrayInputStream(corruptHeader)));
+        assertTrue(data.getMessage().contains("checksum"));
+        assertTrue(header.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testLoadedIndexFiltersAndGrows(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            ChunkType type = i % 20 == 0 ? ChunkType.RECORD : ChunkType.METHOD;
+            index.add(CodeChunk.of("chunk" + i, type, "code" + i, "TestFile.java", 1, 3), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+        float[] query = randomEmbedding();
+        SearchOptions records = SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.RECORD));
+
+        for (InMemoryVectorIndex loaded : List.of(InMemoryVectorIndex.loadFrom(path), InMemoryVectorIndex.loadMapped(path))) {
+            assertEquals(index.search(query, 20, records), loaded.search(query, 20, records));
+            assertEquals(index.entries().get(42).chunk(), loaded.entries().get(42).chunk());
+        }
+
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(path);
+        loaded.add(createTestChunk("added"), query);
+        loaded.merge(index);
+
+        assertEquals(201, loaded.size());
+        assertEquals("added", loaded.search(query, 1).get(0).chunk().name());
+    }
+
+    @Test
+    void testReadStatsWithoutLoading(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 100; i++) {
+            ChunkType type = i % 10 == 0 ? ChunkType.CLASS : ChunkType.METHOD;
+            index.add(CodeChunk.of("chunk" + i, type, "code" + i, "File" + (i % 7) + ".java", 1, 3),
+                randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+        // Vector data is never read, so damage there goes unnoticed
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 100] ^= 0x5A;
+        Files.write(path, bytes);
+
+        IndexStats stats = InMemoryVectorIndex.readStats(path);
+
+        IndexStats expected = index.getStats();
+        assertEquals(100, stats.totalChunks());
+        assertEquals(Map.of(ChunkType.CLASS, 10, ChunkType.METHOD, 90), stats.chunksByType());
+        assertEquals(expected.fileCount(), stats.fileCount());
+        assertEquals(MODEL_ID, stats.modelId());
+        assertEquals(DIMENSIONS, stats.dimensions());
+        assertEquals(bytes.length, stats.sizeBytes());
+    }
+
+    @Test
+    void testReadStatsCountsOlderFiles(@TempDir Path tempDir) throws IOException {
+        CodeChunk chunk = createTestChunk("legacy");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.write("MVEC".getBytes());
+        dos.writeShort(1);
+        dos.writeInt(DIMENSIONS);
+        dos.writeInt(1);
+        dos.writeLong(MODEL_ID.hashCode());
+        dos.writeUTF(MODEL_ID);
+        byte[] json = new ObjectMapper().writeValueAsBytes(List.of(chunk));
+        dos.writeInt(json.length);
+        dos.write(json);
+        for (float value : randomEmbedding()) {
+            dos.writeFloat(value);
+        }
+        Path path = tempDir.resolve("legacy.mvec");
+        Files.write(path, baos.toByteArray());
+
+        IndexStats stats = VectorIndex.readStats(path);
+
+        assertEquals(1, stats.totalChunks());
+        assertEquals(Map.of(ChunkType.METHOD, 1), stats.chunksByType());
+        assertEquals(1, stats.fileCount());
+        assertEquals(Files.size(path), stats.sizeBytes());
+    }
+
+    @Test
+    void testMappedLoadMatchesHeapLoad(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 300; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+
+        InMemoryVectorIndex heap = InMemoryVectorIndex.loadFrom(path);
+        InMemoryVectorIndex mapped = InMemoryVectorIndex.loadMapped(path);
+
+        assertEquals(heap.size(), mapped.size());
+        for (int i = 0; i < 300; i++) {
+            assertArrayEquals(heap.entries().get(i).embedding(), mapped.entries().get(i).embedding());
+        }
+        for (int q = 0; q < 10; q++) {
+            float[] query = randomEmbedding();
+            assertEquals(heap.search(query, 10), mapped.search(query, 10));
+        }
+    }
+
+    @Test
+    void testMappedLoadWithInt8Rerank(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(
+            config.withQuantization(Quantization.INT8).withRerank(true));
+        for (int i = 0; i < 200; i++) {
+            quantized.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("int8.mvec");
+        quantized.save(path);
+
+        InMemoryVectorIndex mapped = InMemoryVectorIndex.loadMapped(path);
+
+        float[] query = randomEmbedding();
+        assertEquals(quantized.search(query, 10), mapped.search(query, 10));
+    }
+
+    @Test
+    void testMappedLoadReadsBigEndianVersion1Files(@TempDir Path tempDir) throws IOException {
+        CodeChunk chunk = createTestChunk("legacy");
+        float[] embedding = randomEmbedding();
+
+        Path path = tempDir.resolve("legacy.mvec");
+        try (DataOutputStream dos = new DataOutputStream(Files.newOutputStream(path))) {
+            dos.write("MVEC".getBytes());
+            dos.writeShort(1);
+            dos.writeInt(DIMENSIONS);
+            dos.writeInt(1);
+            dos.writeLong(MODEL_ID.hashCode());
+            dos.writeUTF(MODEL_ID);
+            byte[] json = new ObjectMapper().writeValueAsBytes(List.of(chunk));
+            dos.writeInt(json.length);
+            dos.write(json);
+            for (float v : embedding) {
+                dos.writeFloat(v);
+            }
+        }
+
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadMapped(path);
+
+        assertEquals(chunk, loaded.entries().get(0).chunk());
+        assertArrayEquals(embedding, loaded.entries().get(0).embedding());
+    }
+
+    @Test
+    void testMappedIndexIsReadOnly(@TempDir Path tempDir) throws IOException {
+        index.add(createTestChunk("method1"), randomEmbedding());
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+
+        InMemoryVectorIndex mapped = InMemoryVectorIndex.loadMapped(path);
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> mapped.add(createTestChunk("method2"), randomEmbedding()));
+        assertEquals(1, mapped.size());
+        assertThrows(UnsupportedOperationException.class, () -> mapped.remove(createTestChunk("method1").id()));
+    }
+
+    // ==================== Remove Tests ====================
+
+    @Test
+    void testRemoveHidesChunk() {
+        CodeChunk kept = createTestChunk("kept");
+        CodeChunk removed = createTestChunk("removed");
+        float[] embedding = randomEmbedding();
+        index.add(kept, randomEmbedding());
+        index.add(removed, embedding);
+
+        assertTrue(index.remove(removed.id()));
+        assertFalse(index.remove(removed.id()));
+
+        assertEquals(1, index.size());
+        assertEquals(1, index.getStats().totalChunks());
+        assertEquals(List.of(kept), index.entries().stream().map(VectorEntry::chunk).toList());
+        assertTrue(index.search(embedding, 5).stream().noneMatch(r -> r.chunk().equals(removed)));
+        assertTrue(index.search(embedding, 5, SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.METHOD)))
+            .stream().noneMatch(r -> r.chunk().equals(removed)));
+    }
+
+    @Test
+    void testEntriesMatchingFilter(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 30; i++) {
+            index.add(CodeChunk.of("chunk" + i, ChunkType.METHOD, "code" + i, "File" + (i % 3) + ".java", 1, 3),
+                randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+        VectorIndex loaded = VectorIndex.load(path);
+        loaded.remove(CodeChunk.of("chunk4", ChunkType.METHOD, "code4", "File1.java", 1, 3).id());
+
+        List<VectorEntry> entries = loaded.entries(ChunkFilter.inFiles(List.of("File1.java", "File2.java")));
+
+        List<VectorEntry> expected = loaded.entries().stream()
+            .filter(e -> !e.chunk().file().equals("File0.java"))
+            .toList();
+        assertEquals(19, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(expected.get(i).chunk(), entries.get(i).chunk());
+            assertArrayEquals(expected.get(i).embedding(), entries.get(i).embedding());
+        }
+        assertEquals(expected.size(), loaded.entries(chunk -> !chunk.file().equals("File0.java")).size());
+    }
+
+    @Test
+    void testUpdateReplacesEmbedding() {
+        CodeChunk chunk = createTestChunk("method");
+        index.add(chunk, randomEmbedding());
+        float[] embedding = randomEmbedding();
+
+        index.update(chunk, embedding);
+
+        assertEquals(1, index.size());
+        assertEquals(chunk, index.entries().get(0).chunk());
+        assertArrayEquals(embedding, index.entries().get(0).embedding());
+    }
+
+    @Test
+    void testSaveAfterRemoveMatchesFreshIndex() throws IOException {
+        IndexConfig quantized = config.withQuantization(Quantization.INT8).withRerank(true).withBinaryCodes(true);
+        // 10 removals stay under the compaction threshold, 40 cross it
+        for (int removals : new int[] {10, 40}) {
+            InMemoryVectorIndex full = new InMemoryVectorIndex(quantized);
+            InMemoryVectorIndex fresh = new InMemoryVectorIndex(quantized);
+            for (int i = 0; i < 100; i++) {
+                CodeChunk chunk = createTestChunk("method" + i);
+                float[] embedding = randomEmbedding();
+                full.add(chunk, embedding);
+                if (i % (100 / removals) != 0 || i / (100 / removals) >= removals) {
+                    fresh.add(chunk, embedding);
+                }
+            }
+            for (int i = 0; i < removals; i++) {
+                assertTrue(full.remove(createTestChunk("method" + i * (100 / removals)).id()));
+            }
+
+            assertEquals(fresh.size(), full.size());
+            float[] query = randomEmbedding();
+            assertEquals(fresh.search(query, 10), full.search(query, 10));
+            assertArrayEquals(fresh.toBytes(), full.toBytes());
+        }
+    }
+
+    // ==================== Quantization Tests ====================
+
+    @Test
+    void testInt8SearchFindsExactMatchFirst() {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(config.withQuantization(Quantization.INT8));
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            float[] embedding = randomEmbedding();
+            embeddings.add(embedding);
+            quantized.add(createTestChunk("method" + i), embedding);
+        }
+
+        for (int i = 0; i < 200; i += 17) {
+            List<SearchResult> results = quantized.search(embeddings.get(i), 1);
+            assertEquals("method" + i, results.get(0).chunk().name());
+            assertEquals(1.0f, results.get(0).similarity(), 0.01f);
+        }
+    }
+
+    @Test
+    void testInt8ScoresApproximateFloatScores() {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(config.withQuantization(Quantization.INT8));
+        for (int i = 0; i < 100; i++) {
+            float[] embedding = scaled(randomEmbedding(), 1 + i);
+            index.add(createTestChunk("method" + i), embedding);
+            quantized.add(createTestChunk("method" + i), embedding);
+        }
+        float[] query = randomEmbedding();
+
+        List<SearchResult> expected = index.search(query, 10);
+        List<SearchResult> actual = quantized.search(query, 100);
+
+        // Every exact top-10 hit is still found, with a close score
+        for (SearchResult hit : expected) {
+            SearchResult match = actual.stream()
+                .filter(r -> r.chunk().equals(hit.chunk()))
+                .findFirst()
+                .orElseThrow();
+            assertEquals(hit.similarity(), match.similarity(), 0.02f);
+        }
+    }
+
+    @Test
+    void testInt8RerankReturnsFullPrecisionScores() {
+        IndexConfig rerankConfig = config.withNormalized(true)
+            .withQuantization(Quantization.INT8)
+            .withRerank(true);
+        InMemoryVectorIndex exact = new InMemoryVectorIndex(config.withNormalized(true));
+        InMemoryVectorIndex reranked = new InMemoryVectorIndex(rerankConfig);
+        for (int i = 0; i < 500; i++) {
+            float[] embedding = randomEmbedding();
+            exact.add(createTestChunk("method" + i), embedding);
+            reranked.add(createTestChunk("method" + i), embedding);
+        }
+        float[] query = randomEmbedding();
+
+        List<SearchResult> expected = exact.search(query, 5);
+        List<SearchResult> actual = reranked.search(query, 5);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testInt8FileIsAboutFourTimesSmaller() throws IOException {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(config.withQuantization(Quantization.INT8));
+        for (int i = 0; i < 100; i++) {
+            float[] embedding = randomEmbedding();
+            index.add(createTestChunk("m"), embedding);
+            quantized.add(createTestChunk("m"), embedding);
+        }
+
+        // Same header, chunk table and section count; only the vector section differs
+        long floatBytes = index.toBytes().length;
+        long int8Bytes = quantized.toBytes().length;
+
+        // One byte per dimension plus one float scale per vector, instead of a float per dimension
+        assertEquals(100L * DIMENSIONS * Float.BYTES - 100L * (DIMENSIONS + Float.BYTES), floatBytes - int8Bytes);
+    }
+
+    @Test
+    void testInt8SaveAndLoad(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(
+            config.withQuantization(Quantization.INT8).withRerank(true));
+        for (int i = 0; i < 50; i++) {
+            quantized.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+        Path path = tempDir.resolve("int8.mvec");
+
+        quantized.save(path);
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(path);
+
+        assertEquals(quantized.search(query, 10), loaded.search(query, 10));
+        assertArrayEquals(quantized.entries().get(7).embedding(), loaded.entries().get(7).embedding());
+    }
+
+    @Test
+    void testInt8EntriesAreDequantized() {
+        InMemoryVectorIndex quantized = new InMemoryVectorIndex(config.withQuantization(Quantization.INT8));
+        float[] embedding = randomEmbedding();
+        quantized.add(createTestChunk("method"), embedding);
+
+        float[] restored = quantized.entries().get(0).embedding();
+
+        for (int i = 0; i < DIMENSIONS; i++) {
+            assertEquals(embedding[i], restored[i], 0.01f);
+        }
+    }
+
+    @Test
+    void testLoadRejectsUnknownFlags() throws IOException {
+        index.add(createTestChunk("method"), randomEmbedding());
+        byte[] bytes = index.toBytes();
+        // Flags follow magic(4) + version(2) + dimensions(4) + count(4) + model hash(8)
+        bytes[22] = 0x40;
+
+        assertThrows(IOException.class,
+            () -> InMemoryVectorIndex.loadFrom(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void testOversampleOptionWidensRerank() {
+        InMemoryVectorIndex exact = new InMemoryVectorIndex(config);
+        InMemoryVectorIndex reranked = new InMemoryVectorIndex(
+            config.withQuantization(Quantization.INT8).withRerank(true));
+        for (int i = 0; i < 200; i++) {
+            float[] embedding = randomEmbedding();
+            exact.add(createTestChunk("method" + i), embedding);
+            reranked.add(createTestChunk("method" + i), embedding);
+        }
+        float[] query = randomEmbedding();
+
+        // Re-ranking every vector is an exact search
+        SearchOptions options = SearchOptions.defaults().withOversample(40);
+        assertEquals(exact.search(query, 5), reranked.search(query, 5, options));
+    }
+
+    @Test
+    void testSearchOptionsRejectNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.defaults().withEf(-1));
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.defaults().withOversample(-1));
+        assertThrows(IllegalArgumentException.class,
+            () -> SearchOptions.defaults().withTimeout(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    void testFilterOptionCombinesConditions() {
+        for (int i = 0; i < 200; i++) {
+            String file = (i % 2 == 0 ? "src/main/java/" : "src/test/java/") + "File" + i + ".java";
+            CodeChunk chunk = CodeChunk.of("chunk" + i, ChunkType.METHOD, "code" + i, file, 1, 3)
+                .withArtifact(i % 4 == 0 ? "g:a:1.0" : "g:b:1.0");
+            index.add(chunk, randomEmbedding());
+        }
+        ChunkFilter filter = ChunkFilter.fileStartsWith("src/main/")
+            .and(ChunkFilter.metadata("maven.artifact", coords -> coords.startsWith("g:b:")).negate());
+
+        List<SearchResult> results = index.search(randomEmbedding(), 100, SearchOptions.defaults().withFilter(filter));
+
+        // Even ordinals are main files; of those, multiples of 4 are in g:a
+        assertEquals(50, results.size());
+        for (SearchResult result : results) {
+            assertEquals("g:a:1.0", result.chunk().getArtifact());
+        }
+    }
+
+    @Test
+    void testBitmapFilterMatchesPredicateFilter() {
+        ChunkType[] types = {ChunkType.CLASS, ChunkType.METHOD, ChunkType.FIELD, ChunkType.RECORD};
+        for (int i = 0; i < 400; i++) {
+            CodeChunk chunk = CodeChunk.ofMethod("m" + i, "code" + i, "File" + (i % 7) + ".java", 1, 3, "Owner" + (i % 5));
+            chunk = new CodeChunk(chunk.id(), chunk.name(), types[i % types.length], chunk.code(), chunk.file(),
+                1, 3, chunk.parentClass(), chunk.metadata()).withArtifact("g:lib" + (i % 3) + ":1.0");
+            index.add(chunk, randomEmbedding());
+        }
+        ChunkFilter expression = ChunkFilter.ofType(ChunkType.METHOD).or(ChunkFilter.inClass("Owner2"))
+            .and(ChunkFilter.inArtifact("g:lib1:1.0").negate())
+            .and(ChunkFilter.inFile("File3.java").negate());
+        // The same expression wrapped in a lambda is tested chunk by chunk
+        ChunkFilter opaque = expression::test;
+
+        for (int q = 0; q < 5; q++) {
+            float[] query = randomEmbedding();
+            List<SearchResult> expected = index.search(query, 20, SearchOptions.defaults().withFilter(opaque));
+            assertEquals(expected, index.search(query, 20, SearchOptions.defaults().withFilter(expression)));
+            assertEquals(20, expected.size());
+        }
+    }
+
+    // ==================== Binary Search Tests ====================
+
+    @Test
+    void testBinarySearchFindsExactMatchFirst() {
+        InMemoryVectorIndex binary = new InMemoryVectorIndex(config.withBinaryCodes(true));
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            float[] embedding = randomEmbedding();
+            embeddings.add(embedding);
+            binary.add(createTestChunk("method" + i), embedding);
+        }
+
+        for (int i = 0; i < 1_000; i += 97) {
+            List<SearchResult> results = binary.search(embeddings.get(i), 3, SearchMode.BINARY);
+            assertEquals("method" + i, results.get(0).chunk().name());
+            // Re-ranked scores are exact cosine similarities
+            assertEquals(1.0f, results.get(0).similarity(), 1e-5f);
+        }
+    }
+
+    @Test
+    void testBinarySearchFindsNearbyVector() {
+        InMemoryVectorIndex binary = new InMemoryVectorIndex(config.withBinaryCodes(true));
+        for (int i = 0; i < 2_000; i++) {
+            binary.add(createTestChunk("method" + i), randomEmbedding());
+        }
+
+        for (int q = 0; q < 20; q++) {
+            // Query close to a stored vector, like a real lookup
+            float[] query = binary.entries().get(q * 50).embedding();
+            for (int i = 0; i < DIMENSIONS; i++) {
+                query[i] += (float) random.nextGaussian() * 0.05f;
+            }
+
+            List<SearchResult> expected = binary.search(query, 1);
+            List<SearchResult> actual = binary.search(query, 1, SearchMode.BINARY);
+
+            assertEquals("method" + (q * 50), actual.get(0).chunk().name());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testBinarySearchWithoutCodesFails() {
+        index.add(createTestChunk("method"), randomEmbedding());
+
+        assertThrows(IllegalStateException.class,
+            () -> index.search(randomEmbedding(), 5, SearchMode.BINARY));
+    }
+
+    @Test
+    void testBinaryCodesSurviveSaveAndLoad(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex binary = new InMemoryVectorIndex(
+            config.withQuantization(Quantization.INT8).withBinaryCodes(true));
+        for (int i = 0; i < 100; i++) {
+            binary.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+        Path path = tempDir.resolve("binary.mvec");
+
+        binary.save(path);
+        InMemoryVectorIndex loaded = InMemoryVectorIndex.loadFrom(path);
+
+        assertEquals(binary.search(query, 5, SearchMode.BINARY), loaded.search(query, 5, SearchMode.BINARY));
+        assertEquals(binary.search(query, 5), loaded.search(query, 5));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private CodeChunk createTestChunk(String name) {
+        return CodeChunk.of(
+            name,
+            ChunkType.METHOD,
+            "public void " + name + "() { }",
+            "TestFile.java",
+            1,
+            3
+        );
+    }
+
+    private static float[] scaled(float[] vector, float factor) {
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= factor;
+        }
+        return vector;
+    }
+
+    private float[] randomEmbedding() {
+        float[] embedding = new float[DIMENSIONS];
+        float norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] = (float) random.nextGaussian();
+            norm += embedding[i] * embedding[i];
+        }
+        norm = (float) Math.sqrt(norm);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] /= norm;
+        }
+        return embedding;
+    }
+}
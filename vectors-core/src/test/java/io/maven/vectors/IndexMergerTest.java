@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +72,25 @@ class IndexMergerTest {
         assertInstanceOf(HnswVectorIndex.class, merged);
     }
 
+    @Test
+    void testMergerAppliesHnswParameters() {
+        InMemoryVectorIndex source = new InMemoryVectorIndex(config);
+        source.add(createChunk("method1"), randomEmbedding());
+        source.add(createChunk("method2"), randomEmbedding());
+
+        IndexMerger merger = new IndexMerger(MODEL_ID, DIMENSIONS,
+            IndexMerger.OutputFormat.HNSW, 1000);
+        merger.setHnswParameters(32, 400, 100);
+        merger.addIndex(source, "group:lib1:1.0");
+
+        IndexConfig merged = ((HnswVectorIndex) merger.build()).getConfig();
+
+        assertEquals(32, merged.hnswM());
+        assertEquals(400, merged.hnswEfConstruction());
+        assertEquals(100, merged.hnswEfSearch());
+        assertThrows(IllegalArgumentException.class, () -> merger.setHnswParameters(0, 400, 100));
+    }
+
     // ==================== Cross-Format Merge Tests ====================
 
     @Test
@@ -223,6 +244,44 @@ class IndexMergerTest {
         assertEquals("com.example:my-lib:1.0", results.get(0).artifactId());
     }
 
+    @Test
+    void testSearchByArtifactScopesMergedIndex() {
+        String[] artifacts = {
+            "org.springframework.data:spring-data-jpa:3.2.0",
+            "org.springframework.data:spring-data-commons:3.2.0",
+            "org.springframework:spring-core:6.1.0",
+            "com.fasterxml.jackson.core:jackson-databind:2.17.0"
+        };
+        for (IndexMerger.OutputFormat format : List.of(IndexMerger.OutputFormat.IN_MEMORY,
+                IndexMerger.OutputFormat.HNSW)) {
+            IndexMerger merger = new IndexMerger(MODEL_ID, DIMENSIONS, format, 1000);
+            for (String artifact : artifacts) {
+                InMemoryVectorIndex index = new InMemoryVectorIndex(config);
+                for (int i = 0; i < 50; i++) {
+                    index.add(createChunk(artifact + ".method" + i), randomEmbedding());
+                }
+                merger.addIndex(index, artifact);
+            }
+            VectorIndex merged = merger.build();
+            float[] query = randomEmbedding();
+
+            assertArtifacts(merged.searchByArtifact(query, "org.springframework.data*", 100),
+                artifacts[0], artifacts[1]);
+            assertArtifacts(merged.searchByArtifact(query, "org.springframework:spring-core:6.1.0", 100),
+                artifacts[2]);
+            assertArtifacts(merged.searchByArtifact(query, "com.fasterxml.jackson.core:jackson-databind", 100),
+                artifacts[3]);
+            assertArtifacts(merged.searchByArtifact(query, "*:spring-data-jpa:3.?.0", 100),
+                artifacts[0]);
+            assertTrue(merged.searchByArtifact(query, "org.springframework:spring-core:5.0.0", 10).isEmpty());
+        }
+    }
+
+    @Test
+    void testBlankArtifactPatternRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ChunkFilter.fromArtifacts(" "));
+    }
+
     // ==================== Edge Cases ====================
 
     @Test
@@ -372,6 +431,14 @@ class IndexMergerTest {
         );
     }
 
+    /**
+     * Asserts the results cover all 50 chunks of each expected artifact and nothing else.
+     */
+    private static void assertArtifacts(List<SearchResult> results, String... expected) {
+        assertEquals(50 * expected.length, results.size());
+        assertEquals(Set.of(expected), results.stream().map(SearchResult::artifactId).collect(Collectors.toSet()));
+    }
+
     private float[] randomEmbedding() {
         float[] embedding = new float[DIMENSIONS];
         float norm = 0;
@@ -0,0 +1,150 @@
+package io.maven.vectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IndexWriter - streaming .mvec files entry by entry.
+ */
+class IndexWriterTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final String MODEL_ID = "test-model";
+
+    private IndexConfig config;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        config = IndexConfig.forModel(MODEL_ID, DIMENSIONS);
+        random = new Random(42);
+    }
+
+    @Test
+    void testWrittenIndexMatchesBuiltIndex(@TempDir Path tempDir) throws IOException {
+        IndexConfig quantized = config.withNormalized(true).withQuantization(Quantization.INT8).withRerank(true)
+            .withBinaryCodes(true);
+        InMemoryVectorIndex built = new InMemoryVectorIndex(quantized);
+        Path path = tempDir.resolve("index.mvec");
+
+        try (IndexWriter writer = VectorIndex.writer(path, quantized)) {
+            for (int i = 0; i < 300; i++) {
+                ChunkType type = i % 3 == 0 ? ChunkType.CLASS : ChunkType.METHOD;
+                CodeChunk chunk = CodeChunk.of("chunk" + i, type, "code" + i, "File" + (i % 5) + ".java", 1, 3);
+                float[] embedding = randomEmbedding();
+                built.add(chunk, embedding);
+                writer.add(chunk, embedding);
+            }
+            assertEquals(300, writer.size());
+        }
+
+        assertArrayEquals(built.toBytes(), Files.readAllBytes(path));
+        VectorIndex loaded = VectorIndex.loadMapped(path);
+        float[] query = randomEmbedding();
+        assertEquals(built.search(query, 10), loaded.search(query, 10));
+        assertEquals(Map.of(ChunkType.CLASS, 100, ChunkType.METHOD, 200), VectorIndex.readStats(path).chunksByType());
+    }
+
+    @Test
+    void testSaveStreamsSameBytesAsOutputStream(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex index = new InMemoryVectorIndex(config.withQuantization(Quantization.INT8));
+        for (int i = 0; i < 100; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+
+        index.save(path);
+
+        assertArrayEquals(index.toBytes(), Files.readAllBytes(path));
+    }
+
+    @Test
+    void testEmptyWriterLeavesOnlyTheIndex(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("empty.mvec");
+
+        VectorIndex.writer(path, config).close();
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(path), files.toList());
+        }
+        assertEquals(0, VectorIndex.load(path).size());
+    }
+
+    @Test
+    void testMappedIndexSavesOverItsOwnFile(@TempDir Path tempDir) throws IOException {
+        InMemoryVectorIndex index = new InMemoryVectorIndex(config.withQuantization(Quantization.INT8));
+        for (int i = 0; i < 100; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvec");
+        index.save(path);
+
+        InMemoryVectorIndex mapped = InMemoryVectorIndex.loadMapped(path);
+        mapped.save(path);
+
+        float[] query = randomEmbedding();
+        assertEquals(index.search(query, 10), mapped.search(query, 10));
+        assertEquals(index.search(query, 10), VectorIndex.load(path).search(query, 10));
+        assertArrayEquals(index.toBytes(), Files.readAllBytes(path));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void testIndexIsReplacedOnlyOnClose(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("index.mvec");
+        InMemoryVectorIndex previous = new InMemoryVectorIndex(config);
+        previous.add(createTestChunk("previous"), randomEmbedding());
+        previous.save(path);
+
+        try (IndexWriter writer = VectorIndex.writer(path, config)) {
+            writer.add(createTestChunk("method1"), randomEmbedding());
+            writer.add(createTestChunk("method2"), randomEmbedding());
+
+            assertEquals(1, VectorIndex.load(path).size());
+        }
+        assertEquals(2, VectorIndex.load(path).size());
+    }
+
+    @Test
+    void testClosedWriterRejectsEntries(@TempDir Path tempDir) throws IOException {
+        IndexWriter writer = VectorIndex.writer(tempDir.resolve("index.mvec"), config);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> writer.add(createTestChunk("method"), new float[DIMENSIONS + 1]));
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.add(createTestChunk("method"), randomEmbedding()));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private CodeChunk createTestChunk(String name) {
+        return CodeChunk.of(
+            name,
+            ChunkType.METHOD,
+            "public void " + name + "() { }",
+            "TestFile.java",
+            1,
+            3
+        );
+    }
+
+    private float[] randomEmbedding() {
+        float[] embedding = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] = (float) random.nextGaussian();
+        }
+        return embedding;
+    }
+}
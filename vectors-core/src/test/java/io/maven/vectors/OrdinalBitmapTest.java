@@ -0,0 +1,113 @@
+package io.maven.vectors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for OrdinalBitmap - array and bitset containers, set algebra.
+ */
+class OrdinalBitmapTest {
+
+    private static final int UNIVERSE = 200_000;
+
+    @Test
+    void testAddAndContainsAcrossContainers() {
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        int[] ordinals = {0, 5, 65_535, 65_536, 131_073, 199_999};
+        for (int ordinal : ordinals) {
+            bitmap.add(ordinal);
+        }
+        bitmap.add(5);
+
+        assertEquals(ordinals.length, bitmap.cardinality());
+        assertArrayEquals(ordinals, bitmap.toArray());
+        assertTrue(bitmap.contains(65_536));
+        assertFalse(bitmap.contains(6));
+        assertFalse(bitmap.contains(10_000_000));
+    }
+
+    @Test
+    void testDenseContainerSwitchesToBitset() {
+        OrdinalBitmap sparse = new OrdinalBitmap();
+        OrdinalBitmap dense = new OrdinalBitmap();
+        for (int i = 0; i < 60_000; i++) {
+            dense.add(i);
+            if (i % 1000 == 0) {
+                sparse.add(i);
+            }
+        }
+
+        assertEquals(60_000, dense.cardinality());
+        assertTrue(dense.contains(59_999));
+        // 60 values as chars versus a fixed 8 KB bitset
+        assertTrue(sparse.sizeBytes() < 1_000);
+        assertTrue(dense.sizeBytes() < 60_000 * 2);
+    }
+
+    @Test
+    void testOutOfOrderAddsStaySorted() {
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        bitmap.add(30);
+        bitmap.add(10);
+        bitmap.add(20);
+
+        assertArrayEquals(new int[] {10, 20, 30}, bitmap.toArray());
+    }
+
+    @Test
+    void testSetAlgebraMatchesBitSet() {
+        Random random = new Random(42);
+        // Mix sparse and dense halves so every container pairing is exercised
+        for (int round = 0; round < 5; round++) {
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            OrdinalBitmap a = randomBitmap(random, expectedA, round % 2 == 0 ? 0.3 : 0.01);
+            OrdinalBitmap b = randomBitmap(random, expectedB, round % 3 == 0 ? 0.01 : 0.5);
+
+            BitSet and = (BitSet) expectedA.clone();
+            and.and(expectedB);
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+            BitSet andNot = (BitSet) expectedA.clone();
+            andNot.andNot(expectedB);
+
+            assertBitmapEquals(and, a.and(b));
+            assertBitmapEquals(or, a.or(b));
+            assertBitmapEquals(andNot, a.andNot(b));
+        }
+    }
+
+    @Test
+    void testRange() {
+        OrdinalBitmap range = OrdinalBitmap.range(70_000);
+
+        assertEquals(70_000, range.cardinality());
+        assertTrue(range.contains(69_999));
+        assertFalse(range.contains(70_000));
+        assertEquals(0, OrdinalBitmap.range(0).cardinality());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static OrdinalBitmap randomBitmap(Random random, BitSet expected, double density) {
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        for (int i = 0; i < UNIVERSE; i++) {
+            // Second half flips density so containers differ in kind
+            double p = i < UNIVERSE / 2 ? density : 0.2 - density / 2;
+            if (random.nextDouble() < p) {
+                bitmap.add(i);
+                expected.set(i);
+            }
+        }
+        return bitmap;
+    }
+
+    private static void assertBitmapEquals(BitSet expected, OrdinalBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    }
+}
@@ -0,0 +1,305 @@
+package io.maven.vectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PqVectorIndex - product-quantized search with ADC lookup tables.
+ */
+class PqVectorIndexTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final String MODEL_ID = "test-model";
+
+    private IndexConfig config;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        config = IndexConfig.forModel(MODEL_ID, DIMENSIONS);
+        random = new Random(42);
+    }
+
+    // ==================== Training Tests ====================
+
+    @Test
+    void testTrainsLazilyOnFirstSearch() {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 20; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        assertFalse(index.isTrained());
+
+        index.search(randomEmbedding(), 5);
+
+        assertTrue(index.isTrained());
+        assertEquals(DIMENSIONS / 8, index.getSubspaces());
+        assertTrue(index.isNormalized());
+    }
+
+    @Test
+    void testAddAfterTrainingIsSearchable() {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 300; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        index.train();
+
+        float[] late = randomEmbedding();
+        index.add(createTestChunk("late"), late);
+
+        assertEquals(301, index.size());
+        assertEquals("late", index.search(late, 1).get(0).chunk().name());
+    }
+
+    @Test
+    void testSubspacesMustDivideDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new PqVectorIndex(config, 7));
+    }
+
+    // ==================== Search Tests ====================
+
+    @Test
+    void testExactMatchRanksFirst() {
+        PqVectorIndex index = new PqVectorIndex(config);
+        float[][] embeddings = new float[500][];
+        for (int i = 0; i < embeddings.length; i++) {
+            embeddings[i] = randomEmbedding();
+            index.add(createTestChunk("method" + i), embeddings[i]);
+        }
+
+        for (int i = 0; i < embeddings.length; i += 50) {
+            List<SearchResult> results = index.search(embeddings[i], 1);
+            assertEquals("method" + i, results.get(0).chunk().name());
+        }
+    }
+
+    @Test
+    void testScoresApproximateCosine() {
+        PqVectorIndex pq = new PqVectorIndex(config);
+        InMemoryVectorIndex exact = new InMemoryVectorIndex(config);
+        for (int i = 0; i < 500; i++) {
+            CodeChunk chunk = createTestChunk("method" + i);
+            float[] embedding = randomEmbedding();
+            pq.add(chunk, embedding);
+            exact.add(chunk, embedding);
+        }
+        float[] query = randomEmbedding();
+
+        // Random vectors are the worst case for PQ; real embeddings cluster far better
+        float totalError = 0;
+        List<SearchResult> approximate = pq.search(query, 10);
+        for (SearchResult result : approximate) {
+            float expected = exact.search(query, 500).stream()
+                .filter(r -> r.chunk().id().equals(result.chunk().id()))
+                .findFirst().orElseThrow().similarity();
+            totalError += Math.abs(expected - result.similarity());
+        }
+        assertTrue(totalError / approximate.size() < 0.1f, "mean error " + totalError / approximate.size());
+    }
+
+    @Test
+    void testUnnormalizedQueryGivesSameRanking() {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 100; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+
+        assertEquals(names(index.search(query, 5)), names(index.search(scaled(query.clone(), 3f), 5)));
+    }
+
+    // ==================== Persistence Tests ====================
+
+    @Test
+    void testSaveAndLoad(@TempDir Path tempDir) throws IOException {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 300; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        float[] query = randomEmbedding();
+        Path path = tempDir.resolve("index.mvec");
+
+        index.save(path);
+        VectorIndex loaded = VectorIndex.load(path);
+
+        assertInstanceOf(PqVectorIndex.class, loaded);
+        assertEquals(300, loaded.size());
+        assertEquals(MODEL_ID, loaded.getModelId());
+        assertEquals(index.search(query, 10), loaded.search(query, 10));
+    }
+
+    @Test
+    void testSaveAndLoadEmpty(@TempDir Path tempDir) throws IOException {
+        PqVectorIndex index = new PqVectorIndex(config);
+        Path path = tempDir.resolve("empty.mvec");
+
+        index.save(path);
+        PqVectorIndex loaded = PqVectorIndex.loadFrom(path);
+
+        assertEquals(0, loaded.size());
+        assertFalse(loaded.isTrained());
+        assertTrue(loaded.search(randomEmbedding(), 5).isEmpty());
+    }
+
+    @Test
+    void testLoadedIndexKeepsFiltersAndRemovals(@TempDir Path tempDir) throws IOException {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 100; i++) {
+            ChunkType type = i % 10 == 0 ? ChunkType.CLASS : ChunkType.METHOD;
+            index.add(CodeChunk.of("chunk" + i, type, "code" + i, "File" + (i % 7) + ".java", 1, 3),
+                randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvpq");
+        index.save(path);
+        float[] query = randomEmbedding();
+        SearchOptions classes = SearchOptions.defaults().withFilter(ChunkFilter.ofType(ChunkType.CLASS));
+
+        PqVectorIndex loaded = PqVectorIndex.loadFrom(path);
+        assertEquals(index.search(query, 5, classes), loaded.search(query, 5, classes));
+        assertEquals("code42", loaded.entries().get(42).chunk().code());
+
+        assertTrue(loaded.remove(index.entries().get(0).chunk().id()));
+        loaded.save(path);
+        PqVectorIndex reloaded = PqVectorIndex.loadFrom(path);
+        assertEquals(99, reloaded.size());
+        assertEquals(9, reloaded.search(query, 20, classes).size());
+    }
+
+    @Test
+    void testReadStatsWithoutLoading(@TempDir Path tempDir) throws IOException {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 100; i++) {
+            ChunkType type = i % 10 == 0 ? ChunkType.CLASS : ChunkType.METHOD;
+            index.add(CodeChunk.of("chunk" + i, type, "code" + i, "File" + (i % 7) + ".java", 1, 3),
+                randomEmbedding());
+        }
+        Path path = tempDir.resolve("index.mvpq");
+        index.save(path);
+        // Codes are never read, so damage there goes unnoticed
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 20] ^= 0x5A;
+        Files.write(path, bytes);
+
+        IndexStats stats = VectorIndex.readStats(path);
+
+        assertEquals(100, stats.totalChunks());
+        assertEquals(Map.of(ChunkType.CLASS, 10, ChunkType.METHOD, 90), stats.chunksByType());
+        assertEquals(7, stats.fileCount());
+        assertEquals(MODEL_ID, stats.modelId());
+        assertEquals(bytes.length, stats.sizeBytes());
+    }
+
+    @Test
+    void testLoadRejectsCorruptData() throws IOException {
+        PqVectorIndex index = new PqVectorIndex(config);
+        for (int i = 0; i < 20; i++) {
+            index.add(createTestChunk("method" + i), randomEmbedding());
+        }
+        byte[] bytes = index.toBytes();
+        bytes[bytes.length - 20] ^= 1;
+
+        IOException e = assertThrows(IOException.class,
+            () -> PqVectorIndex.loadFrom(new ByteArrayInputStream(bytes)));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testLoadRejectsChunkCountMismatch() throws IOException {
+        // The header counts three chunks, the offset table holds two
+        byte[] record = ChunkCodec.encode(createTestChunk("method"));
+        long[] offsets = {0, record.length, 2L * record.length};
+        Map<Integer, Long> lengths = new LinkedHashMap<>();
+        lengths.put(1, (long) SectionWriter.stringSize(MODEL_ID) + 2 * Integer.BYTES);
+        lengths.put(2, 2L * record.length);
+        lengths.put(3, (long) offsets.length * Long.BYTES);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SectionWriter out = new SectionWriter(Channels.newChannel(baos));
+        out.begin(
+            new SectionedFile.Header("MVPQ".getBytes(), (short) 1, DIMENSIONS, 3, MODEL_ID.hashCode(), 0),
+            SectionedFile.layout(lengths)
+        );
+        out.startSection(1);
+        out.putString(MODEL_ID);
+        out.putInt(8);
+        out.putInt(0);
+        out.startSection(2);
+        out.put(record, 0, record.length);
+        out.put(record, 0, record.length);
+        out.startSection(3);
+        out.putLongs(offsets, 0, offsets.length);
+        out.finish();
+
+        IOException e = assertThrows(IOException.class,
+            () -> PqVectorIndex.loadFrom(new ByteArrayInputStream(baos.toByteArray())));
+        assertTrue(e.getMessage().contains("section 3"));
+    }
+
+    @Test
+    void testMergerBuildsTrainedPqIndex() {
+        InMemoryVectorIndex source = new InMemoryVectorIndex(config);
+        for (int i = 0; i < 50; i++) {
+            source.add(createTestChunk("method" + i), randomEmbedding());
+        }
+
+        IndexMerger merger = new IndexMerger(MODEL_ID, DIMENSIONS, IndexMerger.OutputFormat.PQ, 1000);
+        merger.addIndex(source, "group:lib:1.0");
+        VectorIndex merged = merger.build();
+
+        assertInstanceOf(PqVectorIndex.class, merged);
+        assertTrue(((PqVectorIndex) merged).isTrained());
+        assertEquals(50, merged.size());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private CodeChunk createTestChunk(String name) {
+        return CodeChunk.of(
+            name,
+            ChunkType.METHOD,
+            "public void " + name + "() { }",
+            "TestFile.java",
+            1,
+            3
+        );
+    }
+
+    private static List<String> names(List<SearchResult> results) {
+        return results.stream().map(r -> r.chunk().name()).toList();
+    }
+
+    private static float[] scaled(float[] vector, float factor) {
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= factor;
+        }
+        return vector;
+    }
+
+    private float[] randomEmbedding() {
+        float[] embedding = new float[DIMENSIONS];
+        float norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] = (float) random.nextGaussian();
+            norm += embedding[i] * embedding[i];
+        }
+        norm = (float) Math.sqrt(norm);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] /= norm;
+        }
+        return embedding;
+    }
+}
@@ -0,0 +1,111 @@
+package io.maven.vectors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityKernelTest {
+
+    private static final SimilarityKernel SCALAR = SimilarityKernel.scalar();
+    private static final SimilarityKernel SIMD = new VectorApiSimilarityKernel();
+
+    // ==================== Scalar Tests ====================
+
+    @Test
+    void testScalarKnownValues() {
+        float[] a = {1, 2, 3};
+        float[] b = {4, 5, 6};
+
+        assertEquals(32f, SCALAR.dot(a, b), 1e-6f);
+        assertEquals(27f, SCALAR.squareL2(a, b), 1e-6f);
+        assertEquals(32 / (Math.sqrt(14) * Math.sqrt(77)), SCALAR.cosine(a, b), 1e-6);
+    }
+
+    @Test
+    void testCosineOfZeroVectorIsZero() {
+        float[] zero = new float[17];
+        float[] other = randomVector(new Random(42), 17);
+
+        assertEquals(0f, SCALAR.cosine(zero, other));
+        assertEquals(0f, SIMD.cosine(zero, other));
+    }
+
+    @Test
+    void testLengthMismatchRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> SCALAR.dot(new float[3], new float[4]));
+    }
+
+    @Test
+    void testSliceReadsAtOffset() {
+        float[] query = {1, 0};
+        float[] data = {9, 9, 3, 4, 9, 9};
+
+        assertEquals(3f, SCALAR.dot(query, data, 2), 1e-6f);
+        assertEquals(3f, SIMD.dot(query, data, 2), 1e-6f);
+    }
+
+    // ==================== Vector API Tests ====================
+
+    @Test
+    void testVectorApiMatchesScalar() {
+        Random random = new Random(42);
+        // Lengths straddling common lane counts exercise both the vector body and the tail
+        int[] lengths = {1, 3, 7, 8, 15, 16, 17, 33, 384, 385};
+
+        for (int length : lengths) {
+            float[] a = randomVector(random, length);
+            int offset = 5;
+            float[] data = randomVector(random, length + 2 * offset);
+
+            assertEquals(SCALAR.dot(a, data, offset), SIMD.dot(a, data, offset), 1e-3f,
+                "dot, length " + length);
+            assertEquals(SCALAR.cosine(a, data, offset), SIMD.cosine(a, data, offset), 1e-5f,
+                "cosine, length " + length);
+            assertEquals(SCALAR.squareL2(a, data, offset), SIMD.squareL2(a, data, offset), 1e-3f,
+                "squareL2, length " + length);
+        }
+    }
+
+    @Test
+    void testVectorApiInt8DotMatchesScalar() {
+        Random random = new Random(42);
+        int[] lengths = {1, 7, 8, 9, 31, 32, 33, 64, 385};
+
+        for (int length : lengths) {
+            byte[] a = randomCodes(random, length);
+            int offset = 3;
+            byte[] data = randomCodes(random, length + 2 * offset);
+
+            assertEquals(SCALAR.dot(a, data, offset), SIMD.dot(a, data, offset), "length " + length);
+        }
+    }
+
+    @Test
+    void testDefaultKernelIsAvailable() {
+        SimilarityKernel kernel = SimilarityKernel.defaultKernel();
+
+        assertNotNull(kernel);
+        assertEquals(32f, kernel.dot(new float[]{1, 2, 3}, new float[]{4, 5, 6}), 1e-6f);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static byte[] randomCodes(Random random, int length) {
+        byte[] codes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            codes[i] = (byte) (random.nextInt(255) - 127);
+        }
+        return codes;
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] v = new float[length];
+        for (int i = 0; i < length; i++) {
+            v[i] = random.nextFloat() * 2 - 1;
+        }
+        return v;
+    }
+}
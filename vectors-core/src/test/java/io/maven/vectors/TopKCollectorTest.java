@@ -0,0 +1,92 @@
+package io.maven.vectors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TopKCollector - bounded min-heap selection.
+ */
+class TopKCollectorTest {
+
+    @Test
+    void testKeepsBestKInDescendingOrder() {
+        Random random = new Random(7);
+        float[] scores = new float[1000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+        }
+
+        TopKCollector collector = new TopKCollector(10);
+        for (int i = 0; i < scores.length; i++) {
+            collector.collect(i, scores[i]);
+        }
+
+        int[] ordinals = new int[10];
+        float[] top = new float[10];
+        assertEquals(10, collector.drainTo(ordinals, top));
+        assertEquals(0, collector.size());
+
+        int[] expected = IntStream.range(0, scores.length).boxed()
+            .sorted(Comparator.comparing((Integer i) -> scores[i]).reversed())
+            .limit(10)
+            .mapToInt(Integer::intValue)
+            .toArray();
+        assertArrayEquals(expected, ordinals);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(scores[expected[i]], top[i]);
+        }
+    }
+
+    @Test
+    void testFewerCandidatesThanK() {
+        TopKCollector collector = new TopKCollector(5);
+        collector.collect(3, 0.1f);
+        collector.collect(8, 0.9f);
+
+        int[] ordinals = new int[collector.size()];
+        float[] scores = new float[ordinals.length];
+        collector.drainTo(ordinals, scores);
+
+        assertArrayEquals(new int[] {8, 3}, ordinals);
+        assertEquals(Float.NEGATIVE_INFINITY, new TopKCollector(1).minScore());
+    }
+
+    @Test
+    void testTiesPreferLowerOrdinal() {
+        TopKCollector collector = new TopKCollector(2);
+        for (int i = 5; i >= 0; i--) {
+            collector.collect(i, 0.5f);
+        }
+
+        int[] ordinals = new int[2];
+        collector.drainTo(ordinals, new float[2]);
+
+        assertArrayEquals(new int[] {0, 1}, ordinals);
+    }
+
+    @Test
+    void testCollectAllMergesPartialResults() {
+        TopKCollector left = new TopKCollector(3);
+        TopKCollector right = new TopKCollector(3);
+        float[] scores = {0.2f, 0.8f, 0.5f, 0.9f, 0.1f, 0.7f};
+        for (int i = 0; i < scores.length; i++) {
+            (i < 3 ? left : right).collect(i, scores[i]);
+        }
+
+        left.collectAll(right);
+        int[] ordinals = new int[3];
+        left.drainTo(ordinals, new float[3]);
+
+        assertArrayEquals(new int[] {3, 1, 5}, ordinals);
+    }
+
+    @Test
+    void testRejectsNonPositiveK() {
+        assertThrows(IllegalArgumentException.class, () -> new TopKCollector(0));
+    }
+}
@@ -0,0 +1,165 @@
+package io.maven.vectors.parser;
+
+import io.maven.vectors.IndexConfig;
+import io.maven.vectors.VectorIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IncrementalIndexer - re-indexing only changed source files.
+ */
+class IncrementalIndexerTest {
+
+    private static final int DIMENSIONS = 16;
+
+    private IndexConfig config;
+    private List<String> embedded;
+
+    @BeforeEach
+    void setUp() {
+        config = IndexConfig.forModel("test-model", DIMENSIONS);
+        embedded = new ArrayList<>();
+    }
+
+    @Test
+    void testUnchangedSourcesAreNotReEmbedded(@TempDir Path tempDir) throws IOException {
+        Path src = writeSources(tempDir);
+        Path indexPath = tempDir.resolve("vectors.mvec");
+
+        IncrementalIndexer.Result first = index(src, indexPath, "settings");
+        first.save(indexPath);
+        assertTrue(first.rebuilt());
+        assertEquals(3, first.changedFiles());
+        int chunks = first.index().size();
+        assertEquals(chunks, embedded.size());
+        assertTrue(Files.exists(IndexManifest.pathFor(indexPath)));
+
+        embedded.clear();
+        IncrementalIndexer.Result second = index(src, indexPath, "settings");
+
+        assertFalse(second.rebuilt());
+        assertFalse(second.isModified());
+        assertEquals(chunks, second.index().size());
+        assertTrue(embedded.isEmpty());
+    }
+
+    @Test
+    void testChangedAndDeletedFilesAreReIndexed(@TempDir Path tempDir) throws IOException {
+        Path src = writeSources(tempDir);
+        Path indexPath = tempDir.resolve("vectors.mvec");
+        index(src, indexPath, "settings").save(indexPath);
+
+        // Shift Alpha's methods down and add one, delete Beta, add Delta
+        Files.writeString(src.resolve("Alpha.java"), "// moved\n" + source("Alpha", "one", "two", "added"));
+        Files.delete(src.resolve("Beta.java"));
+        Files.writeString(src.resolve("Delta.java"), source("Delta", "four"));
+        embedded.clear();
+
+        IncrementalIndexer.Result result = index(src, indexPath, "settings");
+        result.save(indexPath);
+
+        assertFalse(result.rebuilt());
+        assertEquals(2, result.changedFiles());
+        assertEquals(1, result.removedFiles());
+        // Alpha's unchanged methods keep their embeddings despite moving
+        assertEquals(2, result.reusedChunks());
+        assertEquals(result.embeddedChunks(), embedded.size());
+        assertTrue(embedded.stream().noneMatch(code -> code.strip().startsWith("public void one()")));
+
+        Path fullPath = tempDir.resolve("full.mvec");
+        IncrementalIndexer.Result rebuilt = index(src, fullPath, "settings");
+        assertTrue(rebuilt.rebuilt());
+        assertEquals(ids(rebuilt.index()), ids(VectorIndex.load(indexPath)));
+        assertEquals(rebuilt.index().search(embed("void two()"), 3), result.index().search(embed("void two()"), 3));
+    }
+
+    @Test
+    void testChangedSettingsRebuild(@TempDir Path tempDir) throws IOException {
+        Path src = writeSources(tempDir);
+        Path indexPath = tempDir.resolve("vectors.mvec");
+        index(src, indexPath, "settings").save(indexPath);
+
+        IncrementalIndexer.Result result = index(src, indexPath, "other settings");
+
+        assertTrue(result.rebuilt());
+        assertEquals(result.index().size(), result.embeddedChunks());
+    }
+
+    @Test
+    void testApproximateEmbeddingsAreNotReused(@TempDir Path tempDir) throws IOException {
+        Path src = writeSources(tempDir);
+        Path indexPath = tempDir.resolve("vectors.mvpq");
+        index(src, indexPath, "settings", () -> VectorIndex.createPq(config)).save(indexPath);
+
+        Files.writeString(src.resolve("Alpha.java"), source("Alpha", "one", "two", "added"));
+        embedded.clear();
+        IncrementalIndexer.Result result = index(src, indexPath, "settings", () -> VectorIndex.createPq(config));
+
+        assertFalse(result.rebuilt());
+        assertEquals(0, result.reusedChunks());
+        assertTrue(embedded.stream().anyMatch(code -> code.strip().startsWith("public void one()")));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private IncrementalIndexer.Result index(Path src, Path indexPath, String settings) throws IOException {
+        return index(src, indexPath, settings, () -> VectorIndex.create(config));
+    }
+
+    private IncrementalIndexer.Result index(Path src, Path indexPath, String settings,
+                                            Supplier<VectorIndex> newIndex) throws IOException {
+        IncrementalIndexer indexer = new IncrementalIndexer(new JavaCodeChunker(), settings);
+        return indexer.index(List.of(src, src.resolve("missing")), indexPath,
+            newIndex,
+            codes -> {
+                embedded.addAll(codes);
+                return codes.stream().map(IncrementalIndexerTest::embed).toList();
+            });
+    }
+
+    private static Path writeSources(Path dir) throws IOException {
+        Path src = Files.createDirectories(dir.resolve("src"));
+        Files.writeString(src.resolve("Alpha.java"), source("Alpha", "one", "two"));
+        Files.writeString(src.resolve("Beta.java"), source("Beta", "three"));
+        Files.writeString(src.resolve("Gamma.java"), source("Gamma", "five"));
+        return src;
+    }
+
+    private static String source(String className, String... methods) {
+        StringBuilder sb = new StringBuilder("public class " + className + " {\n");
+        for (String method : methods) {
+            sb.append("    public void ").append(method).append("() {\n")
+              .append("        System.out.println(\"").append(method).append(" does its work here\");\n")
+              .append("    }\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static Set<String> ids(VectorIndex index) {
+        return index.entries().stream().map(e -> e.chunk().id())
+            .collect(Collectors.toSet());
+    }
+
+    /** Deterministic embedding of a code snippet, for comparing indexes. */
+    private static float[] embed(String code) {
+        Random random = new Random(code.hashCode());
+        float[] embedding = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] = (float) random.nextGaussian();
+        }
+        return embedding;
+    }
+}
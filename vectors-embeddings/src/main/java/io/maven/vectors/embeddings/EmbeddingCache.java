@@ -0,0 +1,583 @@
+package io.maven.vectors.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Decorates an {@link EmbeddingModel} with a persistent cache of the embeddings
+ * it has computed, so unchanged code is never embedded twice, across builds,
+ * modules and branches.
+ *
+ * <p>Embeddings are keyed by the model (its id, hash, dimensions and the
+ * preprocessing and normalization settings) and the SHA-256 of the text. They
+ * are appended to a single file, by default {@code embeddings.cache} under
+ * {@link EmbeddingConfig#cacheDir()}, which any number of models and processes
+ * share. Opening the cache scans the file once into an in-memory index of
+ * record offsets; hits are then read from a memory-mapped view of the file.</p>
+ *
+ * <p>Record layout (little-endian): model key (int64), text SHA-256 (32 bytes),
+ * dimensions (int32), the vector (float32 each) and a CRC32C of the preceding
+ * bytes. A record torn by a crash ends the valid part of the file and is cut
+ * off by the next process to open it.</p>
+ *
+ * <p>When the file grows past its size bound it is rewritten to three quarters
+ * of the bound, every model keeping the same share of its records: the most
+ * recently used ones. Recency is what this instance has seen: records count in
+ * file order, and hits move a record of this model to the newest end. The
+ * rewrite holds the file lock and replaces the file, and other instances
+ * reopen the new file before their next append.</p>
+ *
+ * <pre>{@code
+ * try (EmbeddingModel model = EmbeddingCache.open(EmbeddingModel.load(modelId, config), config)) {
+ *     List<float[]> embeddings = model.embedBatch(codes);
+ * }
+ * }</pre>
+ *
+ * <p>Thread-safe. Appends take a file lock, so processes can share the file.</p>
+ */
+public class EmbeddingCache implements EmbeddingModel {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    /** Default bound of the cache file size */
+    public static final long DEFAULT_MAX_BYTES = 1L << 30;
+
+    /** Name of the cache file under {@link EmbeddingConfig#cacheDir()} */
+    public static final String FILE_NAME = "embeddings.cache";
+
+    private static final int MAGIC = 0x434D454D; // "MEMC" little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // model key, text hash, dimensions; the vector and CRC follow
+    private static final int RECORD_PREFIX_BYTES = 8 + 32 + 4;
+    private static final int MAX_DIMENSIONS = 1 << 16;
+
+    // FileLock is held per JVM, so instances in one JVM also synchronize here
+    private static final Map<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final EmbeddingModel delegate;
+    private final Path file;
+    private final long maxBytes;
+    private final long modelKey;
+    private final int dimensions;
+    private final Object fileLock;
+
+    // Offsets of records by key, least recently used first
+    private final LinkedHashMap<Key, Long> offsets = new LinkedHashMap<>(1024, 0.75f, true);
+    private FileChannel channel;
+    // Identity of the opened file, to notice when another instance replaces it
+    private Object fileKey;
+    private MappedByteBuffer mapped;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache in {@code embeddings.cache} under the configured cache
+     * directory, bounded to {@link #DEFAULT_MAX_BYTES}.
+     *
+     * @param delegate Model computing embeddings on a miss; closed with the cache
+     * @param config Configuration the delegate was loaded with
+     * @throws IOException if the cache file cannot be opened
+     */
+    public EmbeddingCache(EmbeddingModel delegate, EmbeddingConfig config) throws IOException {
+        this(delegate, config, config.cacheDir().resolve(FILE_NAME), DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache in the given file.
+     *
+     * @param delegate Model computing embeddings on a miss; closed with the cache
+     * @param config Configuration the delegate was loaded with
+     * @param file Cache file, created if it does not exist
+     * @param maxBytes Size past which the file is rewritten without its least recently used records
+     * @throws IOException if the cache file cannot be opened
+     */
+    public EmbeddingCache(EmbeddingModel delegate, EmbeddingConfig config, Path file, long maxBytes) throws IOException {
+        if (maxBytes <= HEADER_BYTES || maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes must be in (" + HEADER_BYTES + ", 2 GB): " + maxBytes);
+        }
+        this.delegate = delegate;
+        this.file = file.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.dimensions = delegate.getDimensions();
+        this.modelKey = modelKey(delegate, config);
+        this.fileLock = JVM_LOCKS.computeIfAbsent(this.file, p -> new Object());
+
+        Files.createDirectories(this.file.getParent());
+        synchronized (fileLock) {
+            open();
+        }
+        log.debug("Opened embedding cache {} with {} records", this.file, offsets.size());
+    }
+
+    /**
+     * Wraps a model in a cache under the configured cache directory, or returns
+     * the model itself if the cache cannot be opened: caching never fails a build.
+     */
+    public static EmbeddingModel open(EmbeddingModel delegate, EmbeddingConfig config) {
+        try {
+            return new EmbeddingCache(delegate, config);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Embedding without a cache: {}", e.getMessage());
+            return delegate;
+        }
+    }
+
+    // ==================== EmbeddingModel ====================
+
+    @Override
+    public float[] embed(String code) {
+        return embedBatch(List.of(code)).get(0);
+    }
+
+    @Override
+    public synchronized List<float[]> embedBatch(List<String> codes) {
+        float[][] embeddings = new float[codes.size()][];
+        // Texts to embed, each once, with the positions that wait for it
+        Map<Key, List<Integer>> pending = new LinkedHashMap<>();
+        List<String> missed = new ArrayList<>();
+        for (int i = 0; i < codes.size(); i++) {
+            Key key = key(codes.get(i));
+            Long offset = offsets.get(key);
+            float[] cached = offset != null ? read(offset) : null;
+            if (cached != null) {
+                embeddings[i] = cached;
+                hits++;
+                continue;
+            }
+            List<Integer> positions = pending.get(key);
+            if (positions == null) {
+                positions = new ArrayList<>(1);
+                pending.put(key, positions);
+                missed.add(codes.get(i));
+            }
+            positions.add(i);
+        }
+        if (missed.isEmpty()) {
+            return List.of(embeddings);
+        }
+
+        misses += missed.size();
+        List<float[]> computed = delegate.embedBatch(missed);
+        List<Key> keys = new ArrayList<>(pending.keySet());
+        for (int m = 0; m < keys.size(); m++) {
+            List<Integer> positions = pending.get(keys.get(m));
+            embeddings[positions.get(0)] = computed.get(m);
+            // Repeated texts get their own copy, as callers may normalize in place
+            for (int p = 1; p < positions.size(); p++) {
+                embeddings[positions.get(p)] = computed.get(m).clone();
+            }
+        }
+        if (delegate.isCacheable()) {
+            try {
+                append(keys, computed);
+            } catch (IOException e) {
+                log.warn("Failed to write embedding cache {}: {}", file, e.getMessage());
+            }
+        }
+        return List.of(embeddings);
+    }
+
+    @Override
+    public String getModelId() {
+        return delegate.getModelId();
+    }
+
+    @Override
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public long getModelHash() {
+        return delegate.getModelHash();
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return delegate.isCacheable();
+    }
+
+    /**
+     * Returns the number of texts served from the cache.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of texts the delegate was asked to embed.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of records this cache can serve.
+     */
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+                mapped = null;
+            }
+        } finally {
+            delegate.close();
+        }
+    }
+
+    // ==================== File ====================
+
+    /**
+     * Opens the file, writing its header if new, and indexes its records.
+     * A torn tail is truncated.
+     */
+    private void open() throws IOException {
+        // Retry until the file did not change while it was being opened, so fileKey is that of the channel
+        while (true) {
+            Object before = Files.exists(file) ? fileKey() : null;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            try {
+                fileKey = fileKey();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            if (fileKey == null || fileKey.equals(before)) {
+                break;
+            }
+            channel.close();
+        }
+        try (FileLock lock = channel.lock()) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                size = HEADER_BYTES;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Not an embedding cache of version " + VERSION + ": " + file);
+            }
+            long valid = index();
+            if (valid < size) {
+                log.warn("Truncating embedding cache {} after a torn record at {}", file, valid);
+                mapped = null;
+                channel.truncate(valid);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, valid);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indexes the records of the mapped file, returning where the valid ones end.
+     */
+    private long index() {
+        offsets.clear();
+        return forEachRecord((position, length, model, dims) -> {
+            if (model == modelKey && dims == dimensions) {
+                offsets.put(new Key(mapped.getLong(position + 8), mapped.getLong(position + 16),
+                    mapped.getLong(position + 24), mapped.getLong(position + 32)), (long) position);
+            }
+        });
+    }
+
+    /**
+     * Visits the valid records of the mapped file in order, returning where they end.
+     */
+    private long forEachRecord(RecordVisitor visitor) {
+        CRC32C crc = new CRC32C();
+        int position = HEADER_BYTES;
+        int limit = mapped.capacity();
+        while (limit - position >= RECORD_PREFIX_BYTES) {
+            int dims = mapped.getInt(position + 40);
+            if (dims <= 0 || dims > MAX_DIMENSIONS) {
+                break;
+            }
+            int length = recordBytes(dims);
+            if (length > limit - position) {
+                break;
+            }
+            crc.reset();
+            crc.update(mapped.slice(position, length - 4));
+            if ((int) crc.getValue() != mapped.getInt(position + length - 4)) {
+                break;
+            }
+            visitor.visit(position, length, mapped.getLong(position), dims);
+            position += length;
+        }
+        return position;
+    }
+
+    private interface RecordVisitor {
+        void visit(int position, int length, long model, int dims);
+    }
+
+    /**
+     * Takes the file lock, first reopening the file if another instance
+     * replaced it: a lock on the replaced file excludes no one.
+     */
+    private FileLock lockCurrentFile() throws IOException {
+        while (true) {
+            FileLock lock = channel.lock();
+            boolean replaced;
+            try {
+                replaced = replaced();
+            } catch (IOException | RuntimeException e) {
+                lock.release();
+                throw e;
+            }
+            if (!replaced) {
+                return lock;
+            }
+            lock.release();
+            reopen();
+        }
+    }
+
+    /**
+     * Whether the file is no longer the one this instance opened. Without
+     * file keys, a replacement is noticed by the file having shrunk.
+     */
+    private boolean replaced() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        Object key = attributes.fileKey();
+        return key != null ? !key.equals(fileKey) : attributes.size() < mapped.capacity();
+    }
+
+    /**
+     * Opens the file again after it was replaced, keeping the recency order of
+     * the records that are still there.
+     */
+    private void reopen() throws IOException {
+        List<Key> recency = new ArrayList<>(offsets.keySet());
+        channel.close();
+        channel = null;
+        mapped = null;
+        open();
+        for (Key key : recency) {
+            offsets.get(key);
+        }
+    }
+
+    private Object fileKey() throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Reads the vector of a record, or returns null if it is no longer mapped.
+     */
+    private float[] read(long offset) {
+        if (mapped == null || offset + recordBytes(dimensions) > mapped.capacity()) {
+            return null;
+        }
+        float[] vector = new float[dimensions];
+        mapped.slice((int) offset + RECORD_PREFIX_BYTES, dimensions * Float.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * Appends records at the end of the file, then remaps it; past the size
+     * bound the file is rewritten and reopened.
+     */
+    private void append(List<Key> keys, List<float[]> vectors) throws IOException {
+        if (channel == null) {
+            throw new IOException("Embedding cache is closed");
+        }
+        int length = recordBytes(dimensions);
+        ByteBuffer records = ByteBuffer.allocate(length * keys.size()).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < keys.size(); i++) {
+            writeRecord(records, keys.get(i), vectors.get(i));
+        }
+        records.flip();
+
+        synchronized (fileLock) {
+            boolean evicted = false;
+            try (FileLock lock = lockCurrentFile()) {
+                long start = channel.size();
+                if (start + records.remaining() > Integer.MAX_VALUE) {
+                    throw new IOException("Embedding cache exceeds 2 GB: " + file);
+                }
+                long position = start;
+                while (records.hasRemaining()) {
+                    position += channel.write(records, position);
+                }
+                for (int i = 0; i < keys.size(); i++) {
+                    offsets.put(keys.get(i), start + (long) i * length);
+                }
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                if (position > maxBytes) {
+                    evict();
+                    evicted = true;
+                }
+            }
+            if (evicted) {
+                reopen();
+            }
+        }
+    }
+
+    /**
+     * Replaces the file with the most recently used records of every model,
+     * each keeping the same share of its bytes so that three quarters of the
+     * size bound are filled. Records are oldest first in file order, except
+     * that those of this model which this instance indexed are oldest first
+     * in its recency order. Called with the file lock held and the whole file
+     * mapped; the caller reopens the file.
+     */
+    private void evict() throws IOException {
+        Set<Long> tracked = new HashSet<>(offsets.values());
+        Map<Long, List<Span>> byModel = new LinkedHashMap<>();
+        List<Span> own = new ArrayList<>();
+        long end = forEachRecord((position, length, model, dims) -> {
+            if (!tracked.contains((long) position)) {
+                byModel.computeIfAbsent(model, m -> new ArrayList<>()).add(new Span(position, length));
+            }
+        });
+        for (long position : offsets.values()) {
+            own.add(new Span((int) position, recordBytes(dimensions)));
+        }
+        byModel.computeIfAbsent(modelKey, m -> new ArrayList<>()).addAll(own);
+
+        long total = end - HEADER_BYTES;
+        long budget = maxBytes * 3 / 4 - HEADER_BYTES;
+        int records = 0;
+        int kept = 0;
+        Path temp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                out.write(header);
+                for (List<Span> spans : byModel.values()) {
+                    long bytes = 0;
+                    for (Span span : spans) {
+                        bytes += span.length();
+                    }
+                    long share = bytes * budget / total;
+                    int first = spans.size();
+                    while (first > 0 && share >= spans.get(first - 1).length()) {
+                        share -= spans.get(--first).length();
+                    }
+                    for (Span span : spans.subList(first, spans.size())) {
+                        ByteBuffer record = mapped.slice(span.position(), span.length());
+                        while (record.hasRemaining()) {
+                            out.write(record);
+                        }
+                    }
+                    records += spans.size();
+                    kept += spans.size() - first;
+                }
+                out.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Evicted {} of {} records from embedding cache {}", records - kept, records, file);
+    }
+
+    /**
+     * A record in the mapped file.
+     */
+    private record Span(int position, int length) {
+    }
+
+    private void writeRecord(ByteBuffer buffer, Key key, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalStateException("Model returned " + vector.length
+                + " dimensions, expected " + dimensions);
+        }
+        int start = buffer.position();
+        buffer.putLong(modelKey)
+            .putLong(key.h0()).putLong(key.h1()).putLong(key.h2()).putLong(key.h3())
+            .putInt(dimensions);
+        for (float v : vector) {
+            buffer.putFloat(v);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start, buffer.position() - start));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static int recordBytes(int dimensions) {
+        return RECORD_PREFIX_BYTES + dimensions * Float.BYTES + 4;
+    }
+
+    // ==================== Keys ====================
+
+    /**
+     * SHA-256 of a text, as four longs.
+     */
+    private record Key(long h0, long h1, long h2, long h3) {
+    }
+
+    private static Key key(String text) {
+        ByteBuffer hash = ByteBuffer.wrap(sha256(text.getBytes(StandardCharsets.UTF_8)));
+        return new Key(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * Identifies everything besides the text that an embedding depends on.
+     */
+    private static long modelKey(EmbeddingModel model, EmbeddingConfig config) {
+        String identity = model.getClass().getName() + "|" + model.getModelId() + "|" + model.getModelHash()
+            + "|" + model.getDimensions() + "|normalize=" + config.normalizeOutput()
+            + "|preprocess=" + config.preprocessCode() + "|maxSequenceLength=" + config.maxSequenceLength();
+        return ByteBuffer.wrap(sha256(identity.getBytes(StandardCharsets.UTF_8))).getLong();
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -43,6 +43,15 @@ public interface EmbeddingModel extends Closeable {
      */
     long getModelHash();
     
+    /**
+     * Returns whether embeddings depend only on the model and the text, so
+     * they may be cached (see {@link EmbeddingCache}). False while a model
+     * falls back to placeholder embeddings.
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+    
     /**
      * Loads an embedding model by ID.
      * 
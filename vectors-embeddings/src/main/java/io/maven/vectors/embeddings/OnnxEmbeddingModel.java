@@ -203,6 +203,12 @@ public class OnnxEmbeddingModel implements EmbeddingModel {
         return modelId.hashCode();
     }
     
+    @Override
+    public boolean isCacheable() {
+        // Hash-based fallback embeddings must not be cached as the model's
+        return initialized;
+    }
+    
     @Override
     public void close() {
         try {
@@ -0,0 +1,218 @@
+package io.maven.vectors.embeddings;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingCacheTest {
+
+    private static final EmbeddingConfig CONFIG = EmbeddingConfig.defaults();
+
+    @Test
+    void testHitsSkipTheModel(@TempDir Path tempDir) throws IOException {
+        CountingModel model = new CountingModel("model-a");
+        try (EmbeddingCache cache = new EmbeddingCache(model, CONFIG, tempDir.resolve("cache"), 1 << 20)) {
+            List<float[]> first = cache.embedBatch(List.of("a", "b", "a"));
+            List<float[]> second = cache.embedBatch(List.of("b", "c"));
+
+            assertEquals(List.of("a", "b", "c"), model.embedded);
+            assertArrayEquals(model.vector("a"), first.get(0));
+            assertArrayEquals(first.get(0), first.get(2));
+            assertArrayEquals(first.get(1), second.get(0));
+            assertEquals(1, cache.hits());
+            assertEquals(3, cache.misses());
+        }
+    }
+
+    @Test
+    void testEmbeddingsPersistPerModel(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("cache");
+        try (EmbeddingCache cache = new EmbeddingCache(new CountingModel("model-a"), CONFIG, file, 1 << 20)) {
+            cache.embedBatch(List.of("a", "b"));
+        }
+
+        CountingModel same = new CountingModel("model-a");
+        try (EmbeddingCache cache = new EmbeddingCache(same, CONFIG, file, 1 << 20)) {
+            assertEquals(2, cache.size());
+            assertArrayEquals(same.vector("b"), cache.embed("b"));
+            assertTrue(same.embedded.isEmpty());
+        }
+
+        // Another model, or other preprocessing, shares the file but not the embeddings
+        CountingModel other = new CountingModel("model-b");
+        try (EmbeddingCache cache = new EmbeddingCache(other, CONFIG, file, 1 << 20)) {
+            assertEquals(0, cache.size());
+            cache.embed("a");
+        }
+        CountingModel preprocessed = new CountingModel("model-a");
+        try (EmbeddingCache cache = new EmbeddingCache(preprocessed, CONFIG.withPreprocessing(true), file, 1 << 20)) {
+            cache.embed("a");
+        }
+        assertEquals(List.of("a"), other.embedded);
+        assertEquals(List.of("a"), preprocessed.embedded);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("cache");
+        // 8 dimensions make 80-byte records: the 13th passes a 1000-byte bound, and 9 are kept
+        CountingModel model = new CountingModel("model-a");
+        try (EmbeddingCache cache = new EmbeddingCache(model, CONFIG, file, 1000)) {
+            for (int i = 0; i < 10; i++) {
+                cache.embed("text" + i);
+            }
+            cache.embed("text0");
+            for (int i = 10; i < 13; i++) {
+                cache.embed("text" + i);
+            }
+
+            assertEquals(9, cache.size());
+            assertEquals(8 + 9 * 80, Files.size(file));
+            assertEquals(13, model.embedded.size());
+        }
+
+        CountingModel reopened = new CountingModel("model-a");
+        try (EmbeddingCache cache = new EmbeddingCache(reopened, CONFIG, file, 1000)) {
+            List<String> texts = new ArrayList<>();
+            for (int i = 0; i < 13; i++) {
+                texts.add("text" + i);
+            }
+            cache.embedBatch(texts);
+            // text0 was used again, so text1 to text4 were the least recently used
+            assertEquals(List.of("text1", "text2", "text3", "text4"), reopened.embedded);
+        }
+    }
+
+    @Test
+    void testEvictionKeepsEveryModelsShare(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("cache");
+        CountingModel modelA = new CountingModel("model-a");
+        CountingModel modelB = new CountingModel("model-b");
+        try (EmbeddingCache cacheA = new EmbeddingCache(modelA, CONFIG, file, 1000);
+             EmbeddingCache cacheB = new EmbeddingCache(modelB, CONFIG, file, 1000)) {
+            for (int i = 0; i < 4; i++) {
+                cacheB.embed("b" + i);
+            }
+            // The 13th record passes the bound: 4 of 13 records are model-b's, which keeps 2 of them
+            for (int i = 0; i < 9; i++) {
+                cacheA.embed("a" + i);
+            }
+            assertEquals(6, cacheA.size());
+            assertEquals(8 + 8 * 80, Files.size(file));
+
+            // model-b's cache notices the replaced file before appending to it
+            cacheB.embed("b4");
+            assertEquals(3, cacheB.size());
+            assertEquals(8 + 9 * 80, Files.size(file));
+        }
+
+        CountingModel reopenedA = new CountingModel("model-a");
+        CountingModel reopenedB = new CountingModel("model-b");
+        try (EmbeddingCache cacheA = new EmbeddingCache(reopenedA, CONFIG, file, 1000);
+             EmbeddingCache cacheB = new EmbeddingCache(reopenedB, CONFIG, file, 1000)) {
+            cacheA.embedBatch(List.of("a0", "a1", "a2", "a3", "a8"));
+            cacheB.embedBatch(List.of("b0", "b1", "b2", "b3", "b4"));
+        }
+        assertEquals(List.of("a0", "a1", "a2"), reopenedA.embedded);
+        assertEquals(List.of("b0", "b1"), reopenedB.embedded);
+    }
+
+    @Test
+    void testTornRecordIsTruncated(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("cache");
+        try (EmbeddingCache cache = new EmbeddingCache(new CountingModel("model-a"), CONFIG, file, 1 << 20)) {
+            cache.embedBatch(List.of("a", "b"));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 10);
+        }
+
+        CountingModel model = new CountingModel("model-a");
+        try (EmbeddingCache cache = new EmbeddingCache(model, CONFIG, file, 1 << 20)) {
+            assertEquals(1, cache.size());
+            cache.embedBatch(List.of("a", "b"));
+            assertEquals(List.of("b"), model.embedded);
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void testFallbackEmbeddingsAreNotCached(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("cache");
+        CountingModel model = new CountingModel("model-a");
+        model.cacheable = false;
+        try (EmbeddingCache cache = new EmbeddingCache(model, CONFIG, file, 1 << 20)) {
+            cache.embed("a");
+            cache.embed("a");
+
+            assertEquals(List.of("a", "a"), model.embedded);
+            assertEquals(0, cache.size());
+        }
+    }
+
+    /**
+     * Deterministic 8-dimensional model that records what it embeds.
+     */
+    private static class CountingModel implements EmbeddingModel {
+
+        final SimpleEmbeddingModel reference;
+        final List<String> embedded = new ArrayList<>();
+        boolean cacheable = true;
+
+        CountingModel(String modelId) {
+            this.reference = new SimpleEmbeddingModel(modelId, CONFIG);
+        }
+
+        float[] vector(String code) {
+            float[] full = reference.embed(code);
+            float[] embedding = new float[getDimensions()];
+            System.arraycopy(full, 0, embedding, 0, embedding.length);
+            return embedding;
+        }
+
+        @Override
+        public float[] embed(String code) {
+            embedded.add(code);
+            return vector(code);
+        }
+
+        @Override
+        public List<float[]> embedBatch(List<String> codes) {
+            return codes.stream().map(this::embed).toList();
+        }
+
+        @Override
+        public String getModelId() {
+            return reference.getModelId();
+        }
+
+        @Override
+        public int getDimensions() {
+            return 8;
+        }
+
+        @Override
+        public long getModelHash() {
+            return reference.getModelHash();
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return cacheable;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
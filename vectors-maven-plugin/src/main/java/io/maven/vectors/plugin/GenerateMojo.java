@@ -1,8 +1,11 @@
 package io.maven.vectors.plugin;
 
 import io.maven.vectors.*;
+import io.maven.vectors.embeddings.EmbeddingCache;
 import io.maven.vectors.embeddings.EmbeddingConfig;
 import io.maven.vectors.embeddings.EmbeddingModel;
+import io.maven.vectors.parser.IncrementalIndexer;
+import io.maven.vectors.parser.IndexManifest;
 import io.maven.vectors.parser.JavaCodeChunker;
 import io.maven.vectors.parser.JavaCodeChunker.ChunkerConfig;
 import org.apache.maven.plugin.AbstractMojo;
@@ -16,6 +19,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -84,6 +88,39 @@ public class GenerateMojo extends AbstractMojo {
     @Parameter(property = "vectors.attach", defaultValue = "true")
     private boolean attachArtifact;
     
+    /**
+     * Vector quantization of the generated index: none or int8 (4x smaller).
+     */
+    @Parameter(property = "vectors.quantization", defaultValue = "none")
+    private String quantization;
+    
+    /**
+     * Whether an int8-quantized index also keeps full-precision vectors to
+     * re-rank search results (better ranking, larger file).
+     */
+    @Parameter(property = "vectors.rerank", defaultValue = "false")
+    private boolean rerank;
+    
+    /**
+     * Whether to also store 1-bit sign codes for binary-mode search.
+     */
+    @Parameter(property = "vectors.binaryCodes", defaultValue = "false")
+    private boolean binaryCodes;
+    
+    /**
+     * Whether to re-embed only source files changed since the last build, using
+     * the content-hash manifest kept next to the index.
+     */
+    @Parameter(property = "vectors.incremental", defaultValue = "true")
+    private boolean incremental;
+    
+    /**
+     * Whether to keep computed embeddings in a cache shared by all builds on
+     * this machine, keyed by model and code, so unchanged code is embedded once.
+     */
+    @Parameter(property = "vectors.embeddingCache", defaultValue = "true")
+    private boolean embeddingCache;
+    
     /**
      * Skip vector generation.
      */
@@ -100,6 +137,13 @@ public class GenerateMojo extends AbstractMojo {
         getLog().info("Generating vectors for " + project.getArtifactId());
         getLog().info("Using model: " + model);
         
+        Quantization vectorQuantization;
+        try {
+            vectorQuantization = Quantization.fromName(quantization);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        
         try {
             // Get source directories
             List<String> sourceRoots = project.getCompileSourceRoots();
@@ -122,54 +166,67 @@ public class GenerateMojo extends AbstractMojo {
             
             JavaCodeChunker chunker = new JavaCodeChunker(chunkerConfig);
             
-            // Parse all source files
-            List<CodeChunk> allChunks = new java.util.ArrayList<>();
-            for (String sourceRoot : sourceRoots) {
-                Path sourcePath = Path.of(sourceRoot);
-                if (Files.exists(sourcePath)) {
-                    getLog().info("Parsing sources in: " + sourcePath);
-                    List<CodeChunk> chunks = chunker.parseDirectory(sourcePath);
-                    allChunks.addAll(chunks);
-                }
-            }
-            
-            getLog().info("Found " + allChunks.size() + " code chunks");
-            
-            if (allChunks.isEmpty()) {
-                getLog().warn("No code chunks to index");
-                return;
+            String fileName = project.getArtifactId() + "-" + project.getVersion() + "-vectors.mvec";
+            Path outputPath = outputDirectory.toPath().resolve(fileName);
+            if (!incremental) {
+                Files.deleteIfExists(IndexManifest.pathFor(outputPath));
             }
             
             // Initialize embedding model
             getLog().info("Loading embedding model...");
             EmbeddingConfig embeddingConfig = EmbeddingConfig.defaults();
             
-            try (EmbeddingModel embeddingModel = EmbeddingModel.load(model, embeddingConfig)) {
+            EmbeddingModel loadedModel = EmbeddingModel.load(model, embeddingConfig);
+            try (EmbeddingModel embeddingModel = embeddingCache
+                    ? EmbeddingCache.open(loadedModel, embeddingConfig) : loadedModel) {
                 
                 // Create index
-                IndexConfig indexConfig = IndexConfig.forModel(model, embeddingModel.getDimensions());
-                VectorIndex index = VectorIndex.create(indexConfig);
+                IndexConfig indexConfig = IndexConfig.forModel(model, embeddingModel.getDimensions())
+                    .withNormalized(embeddingConfig.normalizeOutput())
+                    .withQuantization(vectorQuantization)
+                    .withRerank(rerank)
+                    .withBinaryCodes(binaryCodes);
+                
+                // Parse and embed the source files changed since the last build
+                getLog().info("Parsing sources in: " + sourceRoots);
+                IncrementalIndexer indexer = new IncrementalIndexer(chunker,
+                    indexConfig + ", preprocessCode=" + embeddingConfig.preprocessCode());
+                IncrementalIndexer.Result result = indexer.index(
+                    sourceRoots.stream().map(Path::of).toList(),
+                    outputPath,
+                    () -> VectorIndex.create(indexConfig),
+                    codes -> {
+                        getLog().info("Generating embeddings...");
+                        List<float[]> embeddings = new ArrayList<>(codes.size());
+                        for (int i = 0; i < codes.size(); i += 100) {
+                            embeddings.addAll(embeddingModel.embedBatch(codes.subList(i, Math.min(i + 100, codes.size()))));
+                            if (embeddings.size() % 100 == 0) {
+                                getLog().info("Progress: " + embeddings.size() + "/" + codes.size());
+                            }
+                        }
+                        return embeddings;
+                    });
+                VectorIndex index = result.index();
                 
-                // Generate embeddings
-                getLog().info("Generating embeddings...");
-                int progress = 0;
-                for (CodeChunk chunk : allChunks) {
-                    float[] embedding = embeddingModel.embed(chunk.code());
-                    index.add(chunk, embedding);
-                    
-                    progress++;
-                    if (progress % 100 == 0) {
-                        getLog().info("Progress: " + progress + "/" + allChunks.size());
-                    }
+                if (result.rebuilt()) {
+                    getLog().info("Found " + index.size() + " code chunks");
+                } else {
+                    getLog().info(String.format("Re-indexed %d changed and %d deleted files: %d chunks embedded, %d reused",
+                        result.changedFiles(), result.removedFiles(), result.embeddedChunks(), result.reusedChunks()));
                 }
                 
-                // Create output directory
-                Files.createDirectories(outputDirectory.toPath());
+                if (embeddingModel instanceof EmbeddingCache cache) {
+                    getLog().info("Embedding cache: " + cache.hits() + " hits, " + cache.misses() + " computed");
+                }
                 
-                // Save index
-                String fileName = project.getArtifactId() + "-" + project.getVersion() + "-vectors.mvec";
-                Path outputPath = outputDirectory.toPath().resolve(fileName);
-                index.save(outputPath);
+                if (index.isEmpty()) {
+                    getLog().warn("No code chunks to index");
+                    return;
+                }
+                
+                // Save index and manifest
+                Files.createDirectories(outputDirectory.toPath());
+                result.save(outputPath);
                 
                 getLog().info("Saved vectors to: " + outputPath);
                 
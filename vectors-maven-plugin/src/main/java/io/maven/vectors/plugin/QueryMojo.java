@@ -47,6 +47,14 @@ public class QueryMojo extends AbstractMojo {
     @Parameter(property = "vectors.type")
     private String chunkType;
     
+    /**
+     * Restrict the search to dependencies, as comma-separated exact
+     * {@code groupId:artifactId:version} coordinates or {@code groupId[:artifactId]}
+     * globs such as {@code org.springframework.data*}. Use with {@code vectors.resolved}.
+     */
+    @Parameter(property = "vectors.artifacts")
+    private String artifacts;
+    
     /**
      * Embedding model (must match the one used for generation).
      */
@@ -86,7 +94,7 @@ public class QueryMojo extends AbstractMojo {
             getLog().info("Loading index from: " + indexPath);
             
             // Load index
-            VectorIndex index = VectorIndex.load(indexPath);
+            VectorIndex index = VectorIndex.loadMapped(indexPath);
 
             // Load embedding model for query embedding
             EmbeddingConfig embeddingConfig = EmbeddingConfig.defaults();
@@ -97,11 +105,19 @@ public class QueryMojo extends AbstractMojo {
                     memIndex.setEmbeddingProvider(embeddingModel::embed);
                 } else if (index instanceof HnswVectorIndex hnswIndex) {
                     hnswIndex.setEmbeddingProvider(embeddingModel::embed);
+                } else if (index instanceof PqVectorIndex pqIndex) {
+                    pqIndex.setEmbeddingProvider(embeddingModel::embed);
                 }
                 
                 // Execute search
                 List<SearchResult> results;
-                if (chunkType != null && !chunkType.isEmpty()) {
+                ChunkFilter scope = artifactScope();
+                if (scope != null) {
+                    if (chunkType != null && !chunkType.isEmpty()) {
+                        scope = ChunkFilter.ofType(ChunkType.valueOf(chunkType.toUpperCase())).and(scope);
+                    }
+                    results = index.search(embeddingModel.embed(query), topK, SearchOptions.defaults().withFilter(scope));
+                } else if (chunkType != null && !chunkType.isEmpty()) {
                     ChunkType type = ChunkType.valueOf(chunkType.toUpperCase());
                     results = index.searchByType(query, type, topK);
                 } else {
@@ -126,6 +142,23 @@ public class QueryMojo extends AbstractMojo {
         }
     }
     
+    /**
+     * Returns a filter matching any of the configured artifact patterns, or null if none.
+     */
+    private ChunkFilter artifactScope() {
+        if (artifacts == null || artifacts.isBlank()) {
+            return null;
+        }
+        ChunkFilter scope = null;
+        for (String pattern : artifacts.split(",")) {
+            if (!pattern.isBlank()) {
+                ChunkFilter filter = ChunkFilter.fromArtifacts(pattern.trim());
+                scope = scope == null ? filter : scope.or(filter);
+            }
+        }
+        return scope;
+    }
+    
     private Path findIndexFile() throws IOException {
         if (!indexDirectory.exists()) {
             return null;
@@ -56,11 +56,51 @@ public class ResolveMojo extends AbstractMojo {
     private String model;
 
     /**
-     * Output format: inmemory or hnsw.
+     * Output format: inmemory, hnsw or pq (product-quantized, approximate scores).
      */
     @Parameter(property = "vectors.format", defaultValue = "inmemory")
     private String outputFormat;
 
+    /**
+     * Vector quantization of the merged index: none or int8 (4x smaller).
+     * Applies to the inmemory format only.
+     */
+    @Parameter(property = "vectors.quantization", defaultValue = "none")
+    private String quantization;
+
+    /**
+     * Whether an int8-quantized index also keeps full-precision vectors to
+     * re-rank search results (better ranking, larger file).
+     */
+    @Parameter(property = "vectors.rerank", defaultValue = "false")
+    private boolean rerank;
+
+    /**
+     * Whether the merged index also stores 1-bit sign codes for binary-mode
+     * search. Applies to the inmemory format only.
+     */
+    @Parameter(property = "vectors.binaryCodes", defaultValue = "false")
+    private boolean binaryCodes;
+
+    /**
+     * HNSW max connections per node. Higher values improve recall at the cost
+     * of memory and build time. Applies to the hnsw format only.
+     */
+    @Parameter(property = "vectors.hnswM", defaultValue = "16")
+    private int hnswM;
+
+    /**
+     * HNSW build-time search breadth. Higher values build a better graph, more slowly.
+     */
+    @Parameter(property = "vectors.hnswEfConstruction", defaultValue = "200")
+    private int hnswEfConstruction;
+
+    /**
+     * Default HNSW query-time search breadth, stored in the merged index.
+     */
+    @Parameter(property = "vectors.hnswEfSearch", defaultValue = "50")
+    private int hnswEfSearch;
+
     /**
      * Whether to include the current project's vectors in the merged index.
      */
@@ -100,9 +140,18 @@ public class ResolveMojo extends AbstractMojo {
         }
 
         // Determine output format
-        IndexMerger.OutputFormat format = "hnsw".equalsIgnoreCase(outputFormat)
-            ? IndexMerger.OutputFormat.HNSW
-            : IndexMerger.OutputFormat.IN_MEMORY;
+        IndexMerger.OutputFormat format = switch (outputFormat.toLowerCase()) {
+            case "hnsw" -> IndexMerger.OutputFormat.HNSW;
+            case "pq" -> IndexMerger.OutputFormat.PQ;
+            default -> IndexMerger.OutputFormat.IN_MEMORY;
+        };
+
+        Quantization vectorQuantization;
+        try {
+            vectorQuantization = Quantization.fromName(quantization);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
 
         int dimensions = -1;
         String resolvedModelId = model;
@@ -173,6 +222,13 @@ public class ResolveMojo extends AbstractMojo {
         getLog().info("Merging " + totalSources + " index(es)...");
 
         IndexMerger merger = new IndexMerger(resolvedModelId, dimensions, format, 100_000);
+        merger.setQuantization(vectorQuantization, rerank);
+        merger.setBinaryCodes(binaryCodes);
+        try {
+            merger.setHnswParameters(hnswM, hnswEfConstruction, hnswEfSearch);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid HNSW parameters: " + e.getMessage(), e);
+        }
 
         if (selfIndex != null) {
             String selfCoords = project.getGroupId() + ":" + project.getArtifactId()
@@ -41,10 +41,9 @@ public class StatsMojo extends AbstractMojo {
                     "Vector index not found. Run 'mvn vectors:generate' first.");
             }
             
-            getLog().info("Loading index from: " + indexPath);
+            getLog().info("Reading index from: " + indexPath);
             
-            VectorIndex index = VectorIndex.load(indexPath);
-            IndexStats stats = index.getStats();
+            IndexStats stats = VectorIndex.readStats(indexPath);
             
             getLog().info("");
             getLog().info("Vector Index Statistics");
@@ -59,8 +58,6 @@ public class StatsMojo extends AbstractMojo {
             stats.chunksByType().forEach((type, count) -> 
                 getLog().info("  " + type + ": " + count));
             
-            index.close();
-            
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to read index stats", e);
         }